@@ -0,0 +1,179 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga em "modelo aberto": dispara requisições a uma taxa fixa (req/s), sem esperar
+ * as anteriores, e mede a latência a partir do horário agendado de cada uma (a fila do servidor
+ * entra na conta). A taxa sobe em degraus até a latência p99 passar do limite ou os erros
+ * passarem de 1%: esse é o ponto de quebra do cenário.
+ *
+ * Uso (Java 21, sem dependências):
+ *   java CargaBenchmark.java --url http://localhost:8080 --usuario admin --senha admin \
+ *        --viagem 1 --modo virtual [--taxas 25,50,100,200,400,800] [--duracao 20] \
+ *        [--limite-p99-ms 500] [--cenarios manifesto,relatorio,assentos] [--saida resultados.csv]
+ */
+public class CargaBenchmark {
+
+    private static final Duration TIMEOUT_REQUISICAO = Duration.ofSeconds(10);
+
+    record Cenario(String nome, String metodo, String caminho) {}
+
+    record Degrau(String modo, String cenario, int taxa, double vazao, long p50, long p95, long p99, double erros) {
+        String csv() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%.1f,%d,%d,%d,%.2f", modo, cenario, taxa, vazao, p50, p95, p99, erros);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = opcoes(args);
+        String url = opcoes.getOrDefault("url", "http://localhost:8080");
+        String viagem = obrigatoria(opcoes, "viagem");
+        String modo = opcoes.getOrDefault("modo", "?");
+        int[] taxas = Arrays.stream(opcoes.getOrDefault("taxas", "25,50,100,200,400,800,1600").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int duracao = Integer.parseInt(opcoes.getOrDefault("duracao", "20"));
+        long limiteP99 = Long.parseLong(opcoes.getOrDefault("limite-p99-ms", "500"));
+        Path saida = Path.of(opcoes.getOrDefault("saida", "resultados.csv"));
+
+        Map<String, Cenario> disponiveis = Map.of(
+                "manifesto", new Cenario("manifesto", "GET", "/api/passageiroviagem/viagem/" + viagem),
+                "relatorio", new Cenario("relatorio", "GET", "/api/v1/reports/passageiros/viagem/" + viagem),
+                "assentos", new Cenario("assentos", "POST", "/api/viagem/" + viagem + "/assentos/auto"));
+        List<Cenario> cenarios = new ArrayList<>();
+        for (String nome : opcoes.getOrDefault("cenarios", "manifesto,relatorio,assentos").split(",")) {
+            Cenario c = disponiveis.get(nome.trim());
+            if (c == null) throw new IllegalArgumentException("Cenário desconhecido: " + nome);
+            cenarios.add(c);
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String cookie = login(http, url, opcoes.getOrDefault("usuario", "admin"), opcoes.getOrDefault("senha", "admin"));
+
+        if (!Files.exists(saida)) {
+            Files.writeString(saida, "modo,cenario,taxa_alvo,vazao_ok,p50_ms,p95_ms,p99_ms,erros_pct\n");
+        }
+        System.out.printf("Modo %s | degraus de %ds | quebra: p99 > %d ms ou erros > 1%%%n", modo, duracao, limiteP99);
+
+        for (Cenario cenario : cenarios) {
+            // Aquecimento (JIT, pool de conexões, caches)
+            executar(http, url, cookie, cenario, modo, taxas[0], 5);
+
+            Integer quebra = null;
+            for (int taxa : taxas) {
+                Degrau d = executar(http, url, cookie, cenario, modo, taxa, duracao);
+                Files.writeString(saida, d.csv() + "\n", StandardOpenOption.APPEND);
+                System.out.printf(Locale.ROOT, "%-10s %5d req/s -> %7.1f ok/s  p50 %5d  p95 %5d  p99 %5d ms  erros %5.2f%%%n",
+                        cenario.nome(), taxa, d.vazao(), d.p50(), d.p95(), d.p99(), d.erros());
+                if (d.p99() > limiteP99 || d.erros() > 1.0) {
+                    quebra = taxa;
+                    break;
+                }
+            }
+            System.out.printf("%-10s ponto de quebra: %s%n%n", cenario.nome(),
+                    quebra == null ? "não atingido até " + taxas[taxas.length - 1] + " req/s" : quebra + " req/s");
+        }
+    }
+
+    private static Degrau executar(HttpClient http, String url, String cookie, Cenario cenario, String modo,
+                                   int taxa, int segundos) throws InterruptedException {
+        ConcurrentLinkedQueue<Long> latencias = new ConcurrentLinkedQueue<>();
+        AtomicInteger erros = new AtomicInteger();
+        int total = taxa * segundos;
+        long intervaloNs = 1_000_000_000L / taxa;
+
+        HttpRequest.Builder base = HttpRequest.newBuilder()
+                .timeout(TIMEOUT_REQUISICAO)
+                .header("Cookie", cookie)
+                .header("Content-Type", "application/json");
+        HttpRequest requisicao = (cenario.metodo().equals("POST")
+                ? base.POST(HttpRequest.BodyPublishers.ofString("{}"))
+                : base.GET()).uri(URI.create(url + cenario.caminho())).build();
+
+        long inicio = System.nanoTime();
+        try (ExecutorService disparos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                long agendado = inicio + i * intervaloNs;
+                long espera = agendado - System.nanoTime();
+                if (espera > 0) LockSupport.parkNanos(espera);
+                disparos.submit(() -> {
+                    try {
+                        HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                        if (resposta.statusCode() >= 400) {
+                            erros.incrementAndGet();
+                        } else {
+                            latencias.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - agendado));
+                        }
+                    } catch (Exception e) {
+                        erros.incrementAndGet();
+                    }
+                });
+            }
+        }
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+
+        long[] ordenadas = latencias.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Degrau(modo, cenario.nome(), taxa, ordenadas.length / decorrido,
+                percentil(ordenadas, 50), percentil(ordenadas, 95), percentil(ordenadas, 99),
+                100.0 * erros.get() / total);
+    }
+
+    private static long percentil(long[] ordenadas, int p) {
+        if (ordenadas.length == 0) return Long.MAX_VALUE;
+        int i = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(i, ordenadas.length - 1))];
+    }
+
+    // O cookie é 'Secure'; aqui ele é reenviado à mão, então funciona também em http://localhost
+    private static String login(HttpClient http, String url, String usuario, String senha) throws Exception {
+        HttpRequest login = HttpRequest.newBuilder(URI.create(url + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + usuario + "\",\"password\":\"" + senha + "\"}"))
+                .build();
+        HttpResponse<String> resposta = http.send(login, HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Login falhou: HTTP " + resposta.statusCode() + " " + resposta.body());
+        }
+        return resposta.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("authToken="))
+                .map(c -> c.substring(0, c.indexOf(';') < 0 ? c.length() : c.indexOf(';')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Login sem cookie authToken"));
+    }
+
+    private static Map<String, String> opcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Opção inválida: " + args[i]);
+            opcoes.put(args[i].substring(2), args[i + 1]);
+        }
+        return opcoes;
+    }
+
+    private static String obrigatoria(Map<String, String> opcoes, String nome) {
+        String valor = opcoes.get(nome);
+        if (valor == null) throw new IllegalArgumentException("Informe --" + nome);
+        return valor;
+    }
+}
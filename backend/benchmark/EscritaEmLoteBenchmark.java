@@ -0,0 +1,210 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mede as escritas em lote: quantos statements JDBC o Hibernate prepara e quanto tempo leva cada operação.
+ * Os números vêm das métricas do Hibernate no actuator (hibernate.statements, hibernate.entities.*),
+ * lidas antes e depois de cada requisição. Cenários:
+ *   viagem - POST /api/viagem com vários ônibus (1 viagem + capacidade x ônibus assentos);
+ *   grupo  - POST /api/passageiroviagem/grupo com N pessoas novas (INSERTs) e de novo com os
+ *            mesmos passageiros e outro valor/nome (UPDATEs em massa).
+ * Rode com e sem lote (ver lote.sh) e compare as linhas.
+ *
+ * Uso (Java 21, sem dependências):
+ *   java EscritaEmLoteBenchmark.java --url http://localhost:8080 --usuario admin --senha admin \
+ *        --onibus 1,2,3 --modo lote [--membros 40] [--repeticoes 10] [--saida lote.csv]
+ */
+public class EscritaEmLoteBenchmark {
+
+    private static final Duration TIMEOUT_REQUISICAO = Duration.ofSeconds(30);
+    private static final Pattern PASSAGEIRO = Pattern.compile("\\{\"id\":(\\d+),\"pessoa\":\\{\"id\":(\\d+)");
+    private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+)");
+    private static final Pattern VALOR = Pattern.compile("\"value\":([-0-9.Ee]+)");
+
+    // CPF é obrigatório e único, e as pessoas criadas ficam no banco: prefixo diferente a cada execução
+    private static final int EXECUCAO = (int) (System.currentTimeMillis() / 1000 % 10_000);
+
+    record Contagem(double statements, double inserts, double updates) {
+        Contagem menos(Contagem antes) {
+            return new Contagem(statements - antes.statements, inserts - antes.inserts, updates - antes.updates);
+        }
+    }
+
+    record Medida(long ms, Contagem contagem) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = opcoes(args);
+        String url = opcoes.getOrDefault("url", "http://localhost:8080");
+        String onibus = obrigatoria(opcoes, "onibus");
+        String modo = opcoes.getOrDefault("modo", "?");
+        int membros = Integer.parseInt(opcoes.getOrDefault("membros", "40"));
+        int repeticoes = Integer.parseInt(opcoes.getOrDefault("repeticoes", "10"));
+        Path saida = Path.of(opcoes.getOrDefault("saida", "escrita-em-lote.csv"));
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String cookie = login(http, url, opcoes.getOrDefault("usuario", "admin"), opcoes.getOrDefault("senha", "admin"));
+        String viagemJson = "{\"dataHoraPartida\":\"2099-01-01T08:00:00\",\"dataHoraChegada\":\"2099-01-01T20:00:00\","
+                + "\"onibusIds\":[" + onibus + "]}";
+
+        if (!Files.exists(saida)) {
+            Files.writeString(saida, "modo,cenario,media_ms,p50_ms,statements,inserts,updates\n");
+        }
+        System.out.printf("Modo %s | %d repetições (+2 de aquecimento) | ônibus %s | grupo de %d%n",
+                modo, repeticoes, onibus, membros);
+
+        // viagem: cria e apaga (a exclusão fica fora da medida)
+        List<Medida> viagens = new ArrayList<>();
+        for (int i = 0; i < repeticoes + 2; i++) {
+            Contagem antes = contagem(http, url, cookie);
+            long inicio = System.nanoTime();
+            String criada = enviar(http, url, cookie, "POST", "/api/viagem", viagemJson);
+            Medida m = new Medida((System.nanoTime() - inicio) / 1_000_000, contagem(http, url, cookie).menos(antes));
+            if (i >= 2) viagens.add(m);
+            enviar(http, url, cookie, "DELETE", "/api/viagem/" + id(criada), null);
+        }
+        registrar(saida, modo, "viagem", viagens);
+
+        // grupo: uma viagem só (sem ônibus) para todos os grupos; apagada no fim
+        String viagemGrupo = id(enviar(http, url, cookie, "POST", "/api/viagem",
+                "{\"dataHoraPartida\":\"2099-01-02T08:00:00\",\"dataHoraChegada\":\"2099-01-02T20:00:00\",\"onibusIds\":[]}"));
+        List<Medida> insercoes = new ArrayList<>();
+        List<Medida> atualizacoes = new ArrayList<>();
+        try {
+            for (int i = 0; i < repeticoes + 2; i++) {
+                Contagem antes = contagem(http, url, cookie);
+                long inicio = System.nanoTime();
+                String criados = enviar(http, url, cookie, "POST", "/api/passageiroviagem/grupo",
+                        grupoJson(viagemGrupo, i, membros, null, "100.00"));
+                Medida m = new Medida((System.nanoTime() - inicio) / 1_000_000, contagem(http, url, cookie).menos(antes));
+                if (i >= 2) insercoes.add(m);
+
+                List<long[]> ids = new ArrayList<>();
+                Matcher passageiro = PASSAGEIRO.matcher(criados);
+                while (passageiro.find()) {
+                    ids.add(new long[]{Long.parseLong(passageiro.group(1)), Long.parseLong(passageiro.group(2))});
+                }
+                antes = contagem(http, url, cookie);
+                inicio = System.nanoTime();
+                enviar(http, url, cookie, "POST", "/api/passageiroviagem/grupo",
+                        grupoJson(viagemGrupo, i, membros, ids, "120.00"));
+                m = new Medida((System.nanoTime() - inicio) / 1_000_000, contagem(http, url, cookie).menos(antes));
+                if (i >= 2) atualizacoes.add(m);
+            }
+        } finally {
+            enviar(http, url, cookie, "DELETE", "/api/viagem/" + viagemGrupo, null);
+        }
+        registrar(saida, modo, "grupo-insert", insercoes);
+        registrar(saida, modo, "grupo-update", atualizacoes);
+        System.out.println("Resultados em " + saida);
+    }
+
+    // 'ids' = [passageiroId, pessoaId] de cada membro para atualizar; null para criar pessoas novas
+    private static String grupoJson(String viagemId, int repeticao, int membros, List<long[]> ids, String valor) {
+        List<String> lista = new ArrayList<>();
+        for (int j = 0; j < membros; j++) {
+            String nome = "Benchmark " + repeticao + "-" + j + (ids == null ? "" : " (alterado)");
+            String chaves = ids == null || j >= ids.size()
+                    ? "\"id\":null,\"pessoaId\":null"
+                    : "\"id\":" + ids.get(j)[0] + ",\"pessoaId\":" + ids.get(j)[1];
+            lista.add("{" + chaves + ",\"nome\":\"" + nome + "\",\"telefone\":\"1190000" + String.format("%04d", j)
+                    + "\",\"cpf\":\"" + String.format("9%04d%03d%03d", EXECUCAO, repeticao, j) + "\",\"numeroAssento\":null}");
+        }
+        return "{\"viagemId\":" + viagemId + ",\"valorIndividual\":" + valor
+                + ",\"membros\":[" + String.join(",", lista) + "]}";
+    }
+
+    private static void registrar(Path saida, String modo, String cenario, List<Medida> medidas) throws Exception {
+        long[] ms = medidas.stream().mapToLong(Medida::ms).sorted().toArray();
+        double media = Arrays.stream(ms).average().orElse(0);
+        long p50 = ms.length == 0 ? 0 : ms[(ms.length - 1) / 2];
+        double statements = medidas.stream().mapToDouble(m -> m.contagem().statements()).average().orElse(0);
+        double inserts = medidas.stream().mapToDouble(m -> m.contagem().inserts()).average().orElse(0);
+        double updates = medidas.stream().mapToDouble(m -> m.contagem().updates()).average().orElse(0);
+        Files.writeString(saida, String.format(Locale.ROOT, "%s,%s,%.1f,%d,%.1f,%.1f,%.1f%n",
+                modo, cenario, media, p50, statements, inserts, updates), StandardOpenOption.APPEND);
+        System.out.printf(Locale.ROOT, "%-13s média %7.1f ms  p50 %5d ms  statements %7.1f  entidades: %6.1f inseridas, %6.1f alteradas%n",
+                cenario, media, p50, statements, inserts, updates);
+    }
+
+    // Totais acumulados desde a subida da aplicação (métricas do Hibernate via actuator)
+    private static Contagem contagem(HttpClient http, String url, String cookie) throws Exception {
+        return new Contagem(
+                metrica(http, url, cookie, "hibernate.statements?tag=status:prepared"),
+                metrica(http, url, cookie, "hibernate.entities.inserts"),
+                metrica(http, url, cookie, "hibernate.entities.updates"));
+    }
+
+    private static double metrica(HttpClient http, String url, String cookie, String nome) throws Exception {
+        Matcher valor = VALOR.matcher(enviar(http, url, cookie, "GET", "/actuator/metrics/" + nome, null));
+        if (!valor.find()) throw new IllegalStateException("Métrica sem valor: " + nome);
+        return Double.parseDouble(valor.group(1));
+    }
+
+    private static String enviar(HttpClient http, String url, String cookie, String metodo, String caminho,
+                                 String corpo) throws Exception {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url + caminho))
+                .timeout(TIMEOUT_REQUISICAO)
+                .header("Cookie", cookie)
+                .header("Content-Type", "application/json")
+                .method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+        HttpResponse<String> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() >= 400) {
+            throw new IllegalStateException(metodo + " " + caminho + ": HTTP " + resposta.statusCode() + " " + resposta.body());
+        }
+        return resposta.body();
+    }
+
+    private static String id(String json) {
+        Matcher id = ID.matcher(json);
+        if (!id.find()) throw new IllegalStateException("Resposta sem id: " + json);
+        return id.group(1);
+    }
+
+    // O cookie é 'Secure'; aqui ele é reenviado à mão, então funciona também em http://localhost
+    private static String login(HttpClient http, String url, String usuario, String senha) throws Exception {
+        HttpRequest login = HttpRequest.newBuilder(URI.create(url + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + usuario + "\",\"password\":\"" + senha + "\"}"))
+                .build();
+        HttpResponse<String> resposta = http.send(login, HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Login falhou: HTTP " + resposta.statusCode() + " " + resposta.body());
+        }
+        return resposta.headers().allValues("Set-Cookie").stream()
+                .filter(c -> c.startsWith("authToken="))
+                .map(c -> c.substring(0, c.indexOf(';') < 0 ? c.length() : c.indexOf(';')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Login sem cookie authToken"));
+    }
+
+    private static Map<String, String> opcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Opção inválida: " + args[i]);
+            opcoes.put(args[i].substring(2), args[i + 1]);
+        }
+        return opcoes;
+    }
+
+    private static String obrigatoria(Map<String, String> opcoes, String nome) {
+        String valor = opcoes.get(nome);
+        if (valor == null) throw new IllegalArgumentException("Informe --" + nome);
+        return valor;
+    }
+}
@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Escritas com e sem lote JDBC nos mesmos cenários (ver README.md).
+# Uso: ./lote.sh <onibusIds, ex.: 1,2,3> [opções extras do EscritaEmLoteBenchmark]
+# O banco vem das variáveis SPRING_DATASOURCE_URL/USERNAME/PASSWORD (ex.: docker compose up -d db).
+set -euo pipefail
+cd "$(dirname "$0")"
+
+ONIBUS="${1:?informe os ids dos ônibus da viagem, ex.: 1,2,3}"
+shift
+PORTA="${PORTA:-8080}"
+JAR="$(ls ../target/crud-*.jar 2>/dev/null | head -1 || true)"
+if [ -z "$JAR" ]; then
+    (cd .. && ./mvnw -q -DskipTests package)
+    JAR="$(ls ../target/crud-*.jar | head -1)"
+fi
+
+SAIDA="escrita-em-lote-$(date +%Y%m%d-%H%M%S).csv"
+
+for MODO in lote sem-lote; do
+    OPCOES=(--spring.jpa.show-sql=false)
+    if [ "$MODO" = sem-lote ]; then
+        # batch_size=1 desliga o lote; o driver deixa de reescrever os INSERTs
+        OPCOES+=(--spring.jpa.properties.hibernate.jdbc.batch_size=1
+                 --spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=false)
+    fi
+
+    echo "== Subindo a aplicação ($MODO) =="
+    SERVER_PORT=$PORTA java -Xms1g -Xmx1g -jar "$JAR" "${OPCOES[@]}" > "app-$MODO.log" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null || true' EXIT
+
+    for _ in $(seq 1 90); do
+        curl -sf "http://localhost:$PORTA/actuator/health" > /dev/null && break
+        sleep 1
+    done
+
+    java EscritaEmLoteBenchmark.java --url "http://localhost:$PORTA" --onibus "$ONIBUS" --modo "$MODO" --saida "$SAIDA" "$@"
+
+    kill $PID
+    wait $PID 2>/dev/null || true
+done
+
+echo "Resultados em benchmark/$SAIDA"
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compara threads de plataforma e threads virtuais nos mesmos cenários (ver README.md).
+# Uso: ./run.sh <viagemId> [opções extras do CargaBenchmark]
+# O banco vem das variáveis SPRING_DATASOURCE_URL/USERNAME/PASSWORD (ex.: docker compose up -d db).
+set -euo pipefail
+cd "$(dirname "$0")"
+
+VIAGEM="${1:?informe o id de uma viagem com passageiros}"
+shift
+PORTA="${PORTA:-8080}"
+JAR="$(ls ../target/crud-*.jar 2>/dev/null | head -1 || true)"
+if [ -z "$JAR" ]; then
+    (cd .. && ./mvnw -q -DskipTests package)
+    JAR="$(ls ../target/crud-*.jar | head -1)"
+fi
+
+SAIDA="resultados-$(date +%Y%m%d-%H%M%S).csv"
+
+for MODO in plataforma virtual; do
+    VIRTUAL=false
+    [ "$MODO" = virtual ] && VIRTUAL=true
+
+    echo "== Subindo a aplicação ($MODO) =="
+    SPRING_THREADS_VIRTUAL_ENABLED=$VIRTUAL SERVER_PORT=$PORTA \
+        java -Xms1g -Xmx1g -jar "$JAR" > "app-$MODO.log" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null || true' EXIT
+
+    for _ in $(seq 1 90); do
+        curl -sf "http://localhost:$PORTA/actuator/health" > /dev/null && break
+        sleep 1
+    done
+
+    java CargaBenchmark.java --url "http://localhost:$PORTA" --viagem "$VIAGEM" --modo "$MODO" --saida "$SAIDA" "$@"
+
+    kill $PID
+    wait $PID 2>/dev/null || true
+done
+
+echo "Resultados em benchmark/$SAIDA"
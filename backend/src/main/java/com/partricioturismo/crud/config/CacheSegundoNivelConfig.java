@@ -0,0 +1,72 @@
+package com.partricioturismo.crud.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    /**
+     * Cache de segundo nível do Hibernate (JCache + Caffeine) para os cadastros que quase não mudam:
+     * Onibus, Taxista, Comisseiro e Pessoa (com os telefones), além das páginas da listagem de afiliados.
+     * Alterações feitas pela JPA invalidam as entradas no commit. UPDATEs nativos declaram as tabelas
+     * que alteram (HibernateHints.HINT_NATIVE_SPACES); sem isso o Hibernate esvaziaria todas as regiões.
+     * Alterações feitas direto no banco aparecem depois de 'cache.segundo-nivel.ttl-min'.
+     *
+     * Métricas (hibernate.generate_statistics): hibernate.second.level.cache.requests (tags region, result),
+     * hibernate.cache.query.requests.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(
+            @Value("${cache.segundo-nivel.ttl-min:60}") long ttlMin,
+            @Value("${cache.segundo-nivel.consultas-ttl-min:10}") long consultasTtlMin,
+            @Value("${cache.segundo-nivel.max-pessoas:20000}") long maxPessoas) {
+        CacheManager regioes = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        Duration ttl = Duration.ofMinutes(ttlMin);
+        Duration consultasTtl = Duration.ofMinutes(consultasTtlMin);
+
+        criar(regioes, "onibus", 500, ttl);
+        criar(regioes, "taxista", 2000, ttl);
+        criar(regioes, "comisseiro", 2000, ttl);
+        criar(regioes, "pessoa", maxPessoas, ttl);
+        criar(regioes, "pessoa.telefones", maxPessoas, ttl);
+        criar(regioes, "consultas.afiliados", 500, consultasTtl);
+        criar(regioes, "default-query-results-region", 500, consultasTtl);
+        // Horário da última alteração de cada tabela: uma entrada por tabela, não pode expirar
+        // antes dos resultados de consulta que dependem dele
+        if (regioes.getCache("default-update-timestamps-region") == null) {
+            regioes.createCache("default-update-timestamps-region", new CaffeineConfiguration<>().setStoreByValue(false));
+        }
+
+        return propriedades -> {
+            propriedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            propriedades.put(AvailableSettings.USE_QUERY_CACHE, true);
+            propriedades.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            propriedades.put(ConfigSettings.CACHE_MANAGER, regioes);
+            propriedades.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // Estatísticas só para as métricas; sem o log de cada sessão
+            propriedades.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    // O CacheManager padrão é do JVM inteiro: num segundo contexto (testes) as regiões já existem
+    private static void criar(CacheManager regioes, String nome, long maxEntradas, Duration ttl) {
+        if (regioes.getCache(nome) != null) return;
+        // Por referência: o Hibernate já guarda cópias desmontadas das entidades
+        regioes.createCache(nome, new CaffeineConfiguration<>()
+                .setStoreByValue(false)
+                .setMaximumSize(OptionalLong.of(maxEntradas))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos())));
+    }
+}
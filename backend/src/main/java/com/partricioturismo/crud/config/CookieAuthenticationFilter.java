@@ -7,13 +7,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 // import org.springframework.beans.factory.annotation.Autowired; // <-- REMOVIDO
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException; // <-- IMPORTADO
-import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 // import org.springframework.stereotype.Component; // <-- REMOVIDO
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,12 +19,17 @@ import java.util.Arrays;
 
 public class CookieAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtDecoder jwtDecoder;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
-    public CookieAuthenticationFilter(JwtDecoder jwtDecoder, UserDetailsService userDetailsService) {
-        this.jwtDecoder = jwtDecoder;
-        this.userDetailsService = userDetailsService;
+    public CookieAuthenticationFilter(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    // Só a API e o Actuator dependem do usuário logado; arquivos estáticos e rotas do SPA são públicos
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        return !(caminho.startsWith("/api/") || caminho.startsWith("/actuator/"));
     }
 
     @Override
@@ -41,13 +42,8 @@ public class CookieAuthenticationFilter extends OncePerRequestFilter {
 
         if (token != null) {
             try {
-                Jwt jwt = jwtDecoder.decode(token);
-                String username = jwt.getSubject();
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                // Token já visto: sem validar a assinatura de novo nem consultar o banco
+                Authentication authentication = principalCache.autenticar(token);
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
 
@@ -60,7 +56,7 @@ public class CookieAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String extractTokenFromCookie(HttpServletRequest request) {
+    static String extractTokenFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
         if (cookies == null) {
             return null;
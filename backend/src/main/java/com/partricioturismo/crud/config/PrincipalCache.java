@@ -0,0 +1,147 @@
+package com.partricioturismo.crud.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache das autenticações feitas pelo CookieAuthenticationFilter, para não validar a assinatura
+ * do JWT nem buscar o usuário no banco a cada requisição.
+ *
+ * - chave: SHA-256 do token (o token em si não fica na memória);
+ * - valor: login, permissões já convertidas (conjunto imutável) e a Authentication pronta;
+ * - validade: o 'exp' do token, limitada a 'auth.cache.ttl-maximo-min' para que alterações feitas
+ *   direto no banco também cheguem aqui;
+ * - tamanho: LRU limitado a 'auth.cache.max-entradas'.
+ *
+ * Alterações e exclusões de Usuario pela JPA invalidam as entradas do login (UsuarioCacheListener);
+ * o logout descarta a entrada do token.
+ *
+ * Métricas: auth.principal.cache (tag resultado), auth.principal.cache.tamanho.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entrada(String login, Instant expiraEm, Authentication autenticacao) {}
+
+    private final JwtDecoder jwtDecoder;
+    private final UserDetailsService userDetailsService;
+    private final Duration ttlMaximo;
+    private final Map<String, Entrada> entradas;
+
+    private final Counter acertos;
+    private final Counter faltas;
+
+    public PrincipalCache(JwtDecoder jwtDecoder,
+                          UserDetailsService userDetailsService,
+                          MeterRegistry metricas,
+                          @Value("${auth.cache.max-entradas:1000}") int maxEntradas,
+                          @Value("${auth.cache.ttl-maximo-min:30}") long ttlMaximoMin) {
+        this.jwtDecoder = jwtDecoder;
+        this.userDetailsService = userDetailsService;
+        this.ttlMaximo = Duration.ofMinutes(ttlMaximoMin);
+        this.entradas = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                return size() > maxEntradas;
+            }
+        });
+
+        this.acertos = consultas(metricas, "acerto");
+        this.faltas = consultas(metricas, "falta");
+        metricas.gauge("auth.principal.cache.tamanho", entradas, Map::size);
+    }
+
+    /**
+     * Autenticação do token do cookie. JwtException para token inválido ou vencido;
+     * UsernameNotFoundException quando o usuário do token não existe mais.
+     */
+    public Authentication autenticar(String token) {
+        String chave = hash(token);
+        Instant agora = Instant.now();
+
+        Entrada guardada = entradas.get(chave);
+        if (guardada != null) {
+            if (guardada.expiraEm().isAfter(agora)) {
+                acertos.increment();
+                return guardada.autenticacao();
+            }
+            entradas.remove(chave, guardada);
+        }
+        faltas.increment();
+
+        Jwt jwt = jwtDecoder.decode(token);
+        UserDetails usuario = userDetailsService.loadUserByUsername(jwt.getSubject());
+        if (usuario == null) {
+            throw new UsernameNotFoundException("Usuário do token não encontrado.");
+        }
+
+        Set<GrantedAuthority> permissoes = Set.copyOf(usuario.getAuthorities());
+        // Principal sem a senha: a Authentication é compartilhada entre requisições
+        UserDetails principal = User.withUsername(usuario.getUsername())
+                .password("")
+                .authorities(permissoes)
+                .build();
+        Authentication autenticacao = UsernamePasswordAuthenticationToken.authenticated(principal, null, permissoes);
+
+        Instant limite = agora.plus(ttlMaximo);
+        Instant expiraEm = jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(limite) ? jwt.getExpiresAt() : limite;
+        entradas.put(chave, new Entrada(usuario.getUsername(), expiraEm, autenticacao));
+        return autenticacao;
+    }
+
+    /** Descarta a entrada de um token (logout). */
+    public void esquecer(String token) {
+        if (token != null) {
+            entradas.remove(hash(token));
+        }
+    }
+
+    /** Descarta todas as entradas de um login (permissões alteradas, usuário excluído). */
+    public void invalidarUsuario(String login) {
+        synchronized (entradas) {
+            entradas.values().removeIf(e -> e.login().equals(login));
+        }
+    }
+
+    public void invalidarTudo() {
+        entradas.clear();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter consultas(MeterRegistry metricas, String resultado) {
+        return Counter.builder("auth.principal.cache")
+                .description("Autenticações por cookie, resolvidas pelo cache ou não")
+                .tag("resultado", resultado)
+                .register(metricas);
+    }
+}
@@ -7,6 +7,7 @@ import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.partricioturismo.crud.repositories.UsuarioRepository;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -70,15 +71,23 @@ public class SecurityConfig {
         return new NimbusJwtEncoder(jwks);
     }
     @Bean
-    public CookieAuthenticationFilter cookieAuthenticationFilter(JwtDecoder jwtDecoder, UserDetailsService userDetailsService) {
-        return new CookieAuthenticationFilter(jwtDecoder, userDetailsService);
+    public CookieAuthenticationFilter cookieAuthenticationFilter(PrincipalCache principalCache) {
+        return new CookieAuthenticationFilter(principalCache);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, CookieAuthenticationFilter cookieAuthenticationFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, CookieAuthenticationFilter cookieAuthenticationFilter,
+                                                   PrincipalCache principalCache) throws Exception {
         http
                 .authorizeHttpRequests(authorize -> authorize
+                        // Continuação de requisições assíncronas (CEP, SSE, relatórios em streaming):
+                        // a requisição original já passou pela autorização
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.POST, "/login").permitAll()
+                        // Métricas (Actuator) só para usuários logados; antes das rotas do SPA.
+                        // A saúde fica aberta para o healthcheck do docker-compose.
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("USER")
                         .requestMatchers(
                                 "/", "/index.html", "/assets/**",
                                 "/*.png", "/*.ico", "/*.svg"
@@ -97,6 +106,8 @@ public class SecurityConfig {
                 .addFilterBefore(cookieAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .logout(logout -> logout
                         .logoutUrl("/logout")
+                        .addLogoutHandler((request, response, authentication) ->
+                                principalCache.esquecer(CookieAuthenticationFilter.extractTokenFromCookie(request)))
                         .logoutSuccessHandler((request, response, authentication) -> {
                             ResponseCookie cookie = ResponseCookie.from("authToken", "")
                                     .httpOnly(true)
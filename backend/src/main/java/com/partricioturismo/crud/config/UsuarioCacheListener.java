@@ -0,0 +1,35 @@
+package com.partricioturismo.crud.config;
+
+import com.partricioturismo.crud.model.Usuario;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Limpa o PrincipalCache quando um Usuario é alterado (permissões, login) ou excluído pela JPA.
+ * Limpa tudo porque o login antigo não é conhecido aqui; usuários mudam raramente.
+ * Atualizações em massa (JPQL/SQL) não passam por aqui: nesse caso chame PrincipalCache.invalidarTudo().
+ */
+public class UsuarioCacheListener {
+
+    // Instanciado pelo Hibernate via Spring (SpringBeanContainer)
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    void usuarioAlterado(Usuario usuario) {
+        principalCache.invalidarTudo();
+        // De novo após o commit: uma requisição entre o flush e o commit pode ter lido o usuário antigo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principalCache.invalidarTudo();
+                }
+            });
+        }
+    }
+}
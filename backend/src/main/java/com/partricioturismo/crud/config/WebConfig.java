@@ -0,0 +1,28 @@
+package com.partricioturismo.crud.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Open-in-view (spring.jpa.open-in-view=false desliga o registro automático), exceto no SSE.
+     * Com ele, o EntityManager da requisição segura a conexão até a resposta terminar, e uma
+     * inscrição em /events dura até 30 minutos: poucos clientes esgotariam o pool do Hikari.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openInView)
+                .excludePathPatterns("/api/viagem/*/events");
+    }
+}
@@ -4,11 +4,14 @@ import com.partricioturismo.crud.dtos.CorRequestDto; // Certifique-se de importa
 import com.partricioturismo.crud.dtos.EncomendaSaveRequestDto;
 import com.partricioturismo.crud.dtos.EncomendaResponseDto;
 import com.partricioturismo.crud.service.EncomendaService;
+import com.partricioturismo.crud.service.ManifestoService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,15 +23,26 @@ public class EncomendaController {
     @Autowired
     EncomendaService service;
 
+    @Autowired
+    ManifestoService manifestoService;
+
     @GetMapping
     public ResponseEntity<List<EncomendaResponseDto>> getAll() {
         return ResponseEntity.status(HttpStatus.OK).body(service.findAll());
     }
 
+    // Mesma versão do manifesto de passageiros: 304 sem ler as encomendas quando nada mudou
     @GetMapping("/viagem/{viagemId}")
-    public ResponseEntity<List<EncomendaResponseDto>> getByViagemId(@PathVariable Long viagemId) {
+    public ResponseEntity<List<EncomendaResponseDto>> getByViagemId(@PathVariable Long viagemId, WebRequest request) {
+        Optional<Long> versao = manifestoService.versaoAtual(viagemId);
+        if (versao.isEmpty()) return ResponseEntity.notFound().build();
+
+        String etag = ManifestoService.etag(viagemId, versao.get());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
         List<EncomendaResponseDto> encomendas = service.findByViagemId(viagemId);
-        return ResponseEntity.status(HttpStatus.OK).body(encomendas);
+        return ResponseEntity.status(HttpStatus.OK).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(encomendas);
     }
 
     @GetMapping("/{id}")
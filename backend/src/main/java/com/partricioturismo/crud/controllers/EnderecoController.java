@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClientException;
 
 // --- IMPORTS NOVOS ---
 import org.springframework.data.domain.Page;
@@ -14,6 +13,9 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/endereco")
@@ -64,21 +66,28 @@ public class EnderecoController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<EnderecoDto>> searchEnderecos(@RequestParam("query") String query) {
-        List<EnderecoDto> resultados = service.search(query);
+    public ResponseEntity<List<EnderecoDto>> searchEnderecos(@RequestParam("query") String query,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "10") int size) {
+        List<EnderecoDto> resultados = service.search(query, page, size);
         return ResponseEntity.ok(resultados);
     }
 
+    // Assíncrono: a thread do Tomcat é liberada enquanto o CEP é consultado
     @GetMapping("/consulta-cep")
-    public ResponseEntity<Object> consultarCep(@RequestParam("cep") String cep) {
-        try {
-            EnderecoDto enderecoDto = service.consultarCep(cep);
-            return ResponseEntity.ok(enderecoDto);
-        } catch (WebClientException e) {
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body("Erro ao conectar-se ao serviço ViaCEP: " + e.getMessage());
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<Object>> consultarCep(@RequestParam("cep") String cep) {
+        return service.consultarCepAsync(cep)
+                .thenApply(enderecoDto -> ResponseEntity.<Object>ok(enderecoDto))
+                .exceptionally(erro -> {
+                    Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                    if (causa instanceof TimeoutException) {
+                        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Tempo esgotado ao consultar o CEP.");
+                    }
+                    if (causa instanceof IllegalStateException) {
+                        // ViaCEP fora, lento ou saturado e CEP ainda não guardado no cache
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(causa.getMessage());
+                    }
+                    return ResponseEntity.badRequest().body(causa.getMessage());
+                });
     }
 }
\ No newline at end of file
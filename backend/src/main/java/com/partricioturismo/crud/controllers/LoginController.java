@@ -1,13 +1,13 @@
 package com.partricioturismo.crud.controllers;
 
 import com.partricioturismo.crud.dtos.LoginRequestDto;
-import com.partricioturismo.crud.service.TokenService;
+import com.partricioturismo.crud.service.LoginService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,25 +15,29 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 public class LoginController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
-
-    @Autowired
-    private TokenService tokenService;
+    private LoginService loginService;
 
+    // A verificação da senha roda no executor do LoginService; a thread da requisição fica livre
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequest) {
-        var usernamePassword = new UsernamePasswordAuthenticationToken(
-                loginRequest.username(), loginRequest.password());
-
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequestDto loginRequest,
+                                                      HttpServletRequest request) {
+        CompletableFuture<LoginService.Resultado> resultado;
         try {
-            Authentication auth = authenticationManager.authenticate(usernamePassword);
-            String token = tokenService.generateToken(auth);
+            resultado = loginService.autenticar(loginRequest.username(), loginRequest.password(), request.getRemoteAddr());
+        } catch (LoginService.LoginRecusadoException e) {
+            return CompletableFuture.completedFuture(muitasTentativas(e.getMessage(), e.getTenteEmSegundos()));
+        }
 
-            ResponseCookie cookie = ResponseCookie.from("authToken", token)
+        return resultado.<ResponseEntity<?>>thenApply(login -> {
+            ResponseCookie cookie = ResponseCookie.from("authToken", login.token())
                     .httpOnly(true)
                     .secure(true) // <-- OBRIGATÓRIO para HTTPS no Render
                     .path("/")
@@ -43,11 +47,23 @@ public class LoginController {
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                    .body(auth.getName()); // Retorna o username
+                    .body(login.autenticacao().getName()); // Retorna o username
+        }).exceptionally(erro -> {
+            Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+            if (causa instanceof AuthenticationException) {
+                return ResponseEntity.status(401).body("Credenciais inválidas");
+            }
+            if (causa instanceof TimeoutException) {
+                return muitasTentativas("Servidor ocupado com outros logins. Tente novamente em instantes.", 2);
+            }
+            return ResponseEntity.internalServerError().body("Erro ao fazer login.");
+        });
+    }
 
-        } catch (AuthenticationException e) {
-            return ResponseEntity.status(401).body("Credenciais inválidas");
-        }
+    private static ResponseEntity<?> muitasTentativas(String mensagem, long tenteEmSegundos) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(tenteEmSegundos))
+                .body(mensagem);
     }
 
     // O método "me" continua essencial para o refresh da página
@@ -1,11 +1,11 @@
 package com.partricioturismo.crud.controllers;
 
-import com.partricioturismo.crud.dtos.AssentoLayoutDto;
 import com.partricioturismo.crud.dtos.OnibusDto;
 import com.partricioturismo.crud.service.AssentoService;
 import com.partricioturismo.crud.service.OnibusService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -35,15 +35,23 @@ public class OnibusController {
     }
 
     // --- NOVO ENDPOINT: Retorna o desenho dos assentos ---
+    // Corpo já serializado (List<List<AssentoLayoutDto>>), guardado por ônibus
     @GetMapping("/{id}/layout")
-    public ResponseEntity<List<List<AssentoLayoutDto>>> getLayoutOnibus(@PathVariable Long id) {
-        List<List<AssentoLayoutDto>> layout = assentoService.getMapaAssentos(id);
-        return ResponseEntity.ok(layout);
+    public ResponseEntity<Object> getLayoutOnibus(@PathVariable Long id) {
+        return assentoService.getLayout(id)
+                .<ResponseEntity<Object>>map(layout -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(layout.json()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Onibus não existente"));
     }
 
     @PostMapping
-    public ResponseEntity<OnibusDto> save(@RequestBody OnibusDto onibusDto) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.save(onibusDto));
+    public ResponseEntity<Object> save(@RequestBody OnibusDto onibusDto) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(service.save(onibusDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -55,7 +63,12 @@ public class OnibusController {
 
     @PutMapping("/{id}")
     public ResponseEntity<Object> update(@PathVariable Long id, @RequestBody OnibusDto onibusDto) {
-        Optional<OnibusDto> onibusAtualizado = service.update(id, onibusDto);
+        Optional<OnibusDto> onibusAtualizado;
+        try {
+            onibusAtualizado = service.update(id, onibusDto);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         if (onibusAtualizado.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Onibus não existente");
         return ResponseEntity.ok(onibusAtualizado.get());
     }
@@ -1,32 +1,59 @@
 package com.partricioturismo.crud.controllers;
 
 import com.partricioturismo.crud.dtos.*;
+import com.partricioturismo.crud.service.ManifestoService;
 import com.partricioturismo.crud.service.PassageiroViagemService;
+import com.partricioturismo.crud.service.SeatInventory.ConflitoAssentoException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/passageiroviagem")
 public class PassageiroViagemController {
 
     @Autowired PassageiroViagemService service;
+    @Autowired ManifestoService manifestoService;
 
+    // Listagem geral paginada por cursor (mais recentes primeiro). Use 'proximoCursor' da resposta para continuar.
     @GetMapping
-    public ResponseEntity<List<PassengerResponseDto>> findAll() {
-        return ResponseEntity.ok(service.findAll());
+    public ResponseEntity<?> findAll(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestParam(required = false) Boolean pago,
+            @RequestParam(required = false) Long taxistaId,
+            @RequestParam(required = false) Long comisseiroId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(service.findAll(inicio, fim, pago, taxistaId, comisseiroId, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
+    // Manifesto com ETag: se o If-None-Match bater com a versão atual, responde 304 sem ler os passageiros
     @GetMapping("/viagem/{viagemId}")
-    public ResponseEntity<List<PassengerResponseDto>> findByViagemId(@PathVariable Long viagemId) {
-        return ResponseEntity.ok(service.findByViagemId(viagemId));
+    public ResponseEntity<List<PassengerResponseDto>> findByViagemId(@PathVariable Long viagemId, WebRequest request) {
+        // A versão é lida antes dos dados: uma escrita no meio só faz a próxima leitura não bater com o ETag
+        Optional<Long> versao = manifestoService.versaoAtual(viagemId);
+        if (versao.isEmpty()) return ResponseEntity.notFound().build();
+
+        String etag = ManifestoService.etag(viagemId, versao.get());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate())
+                .body(service.findByViagemId(viagemId));
     }
 
     @GetMapping("/historico/taxista/{id}")
@@ -70,6 +97,8 @@ public class PassageiroViagemController {
     public ResponseEntity<?> createGroup(@RequestBody FamilyGroupRequestDto dto) {
         try {
             return ResponseEntity.ok(service.salvarGrupoFamilia(dto));
+        } catch (ConflitoAssentoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace(); // Mostra no console do servidor
             return ResponseEntity.badRequest().body("Erro ao salvar grupo: " + e.getMessage());
@@ -115,12 +144,38 @@ public class PassageiroViagemController {
     }
 
     @PatchMapping("/reordenar")
-    public ResponseEntity<Void> reordenar(@RequestBody Map<String, List<Long>> payload) {
-        List<Long> ids = payload.get("ids");
-        if (ids != null && !ids.isEmpty()) {
-            service.reordenarPassageiros(ids);
+    public ResponseEntity<?> reordenar(@RequestBody ReorderRequestDto dto) {
+        try {
+            return ResponseEntity.ok(service.reordenarPassageiros(dto.ids()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Move um único passageiro para entre dois vizinhos (grava só a linha dele)
+    @PatchMapping("/{id}/mover")
+    public ResponseEntity<?> mover(@PathVariable Long id, @RequestBody MoverPassageiroRequestDto dto) {
+        try {
+            return ResponseEntity.ok(service.moverPassageiro(id, dto.anteriorId(), dto.proximoId()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Atribui um taxista (coleta ou entrega) a vários passageiros e encomendas de uma vez
+    @PostMapping("/atribuir-massa")
+    public ResponseEntity<?> atribuirTaxistaEmMassa(@RequestBody BulkAssignRequestDto dto) {
+        try {
+            return ResponseEntity.ok(service.atribuirTaxistaEmMassa(dto.passageiroIds(), dto.encomendaIds(), dto.taxistaId(), dto.tipo()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        return ResponseEntity.ok().build();
     }
 
     @PatchMapping("/{id}/pagar")
@@ -134,6 +189,22 @@ public class PassageiroViagemController {
     public ResponseEntity<Object> vincularAssento(@PathVariable Long id, @RequestParam Long onibusId, @RequestParam(required = false) String numero) {
         try {
             return ResponseEntity.ok(service.vincularAssentoPorNumero(id, onibusId, numero));
+        } catch (ConflitoAssentoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Troca os assentos de dois passageiros da mesma viagem em uma única operação
+    @PatchMapping("/{id}/trocar-assento/{outroId}")
+    public ResponseEntity<Object> trocarAssento(@PathVariable Long id, @PathVariable Long outroId) {
+        try {
+            return ResponseEntity.ok(service.trocarAssentos(id, outroId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (ConflitoAssentoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -6,7 +6,10 @@ import com.partricioturismo.crud.model.Encomenda;
 import com.partricioturismo.crud.model.PassageiroViagem;
 import com.partricioturismo.crud.repositories.EncomendaRepository;
 import com.partricioturismo.crud.repositories.PassageiroViagemRepository;
+import com.partricioturismo.crud.service.RelatorioStreamService;
+import com.partricioturismo.crud.service.ViagemLinhaMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.transaction.annotation.Transactional; // <-- IMPORT NOVO
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -31,6 +35,9 @@ public class ReportController {
     @Autowired
     private EncomendaRepository encomendaRepository;
 
+    @Autowired
+    private RelatorioStreamService relatorioStreamService;
+
     // --- RELATÓRIOS DE PASSAGEIROS (Existentes) ---
 
     @GetMapping("/passageiros/viagem/{viagemId}")
@@ -106,67 +113,60 @@ public class ReportController {
     }
 
     // --- RELATÓRIOS DE PASSAGEIROS POR PERÍODO (Passo 3) ---
+    // Períodos longos: a resposta é escrita em streaming, linha a linha, sem carregar entidades.
 
     @GetMapping("/taxista/{taxistaId}/passageiros")
-    @Transactional(readOnly = true) // <-- ADICIONADO
-    public ResponseEntity<List<PassengerResponseDto>> getPassageirosPorTaxistaEPeriodo(
+    public ResponseEntity<StreamingResponseBody> getPassageirosPorTaxistaEPeriodo(
             @PathVariable Long taxistaId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim
     ) {
-        List<PassageiroViagem> entidade = passageiroViagemRepository.findByTaxistaIdAndViagemDataHoraPartidaBetween(taxistaId, inicio, fim);
-
-        List<PassengerResponseDto> listaDto = entidade.stream()
-                .map(PassengerResponseDto::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(listaDto);
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        return streaming(relatorioStreamService.transmitir(
+                () -> passageiroViagemRepository.streamManifestoByTaxistaIdAndPeriodo(taxistaId, inicio, fim),
+                l -> new PassengerResponseDto(l, viagens.viagemDa(l))));
     }
 
     @GetMapping("/comisseiro/{comisseiroId}/passageiros")
-    @Transactional(readOnly = true) // <-- ADICIONADO
-    public ResponseEntity<List<PassengerResponseDto>> getPassageirosPorComisseiroEPeriodo(
+    public ResponseEntity<StreamingResponseBody> getPassageirosPorComisseiroEPeriodo(
             @PathVariable Long comisseiroId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim
     ) {
-        List<PassageiroViagem> entidade = passageiroViagemRepository.findByComisseiroIdAndViagemDataHoraPartidaBetween(comisseiroId, inicio, fim);
-
-        List<PassengerResponseDto> listaDto = entidade.stream()
-                .map(PassengerResponseDto::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(listaDto);
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        return streaming(relatorioStreamService.transmitir(
+                () -> passageiroViagemRepository.streamManifestoByComisseiroIdAndPeriodo(comisseiroId, inicio, fim),
+                l -> new PassengerResponseDto(l, viagens.viagemDa(l))));
     }
 
     // --- ENDPOINTS NOVOS (Passo 3.B) ---
 
     @GetMapping("/taxista/{taxistaId}/encomendas")
-    @Transactional(readOnly = true) // <-- ADICIONADO
-    public ResponseEntity<List<EncomendaResponseDto>> getEncomendasPorTaxistaEPeriodo(
+    public ResponseEntity<StreamingResponseBody> getEncomendasPorTaxistaEPeriodo(
             @PathVariable Long taxistaId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim
     ) {
-        List<Encomenda> entidade = encomendaRepository.findByTaxistaIdAndViagemDataHoraPartidaBetween(taxistaId, inicio, fim);
-
-        List<EncomendaResponseDto> listaDto = entidade.stream()
-                .map(EncomendaResponseDto::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(listaDto);
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        return streaming(relatorioStreamService.transmitir(
+                () -> encomendaRepository.streamByTaxistaIdAndPeriodo(taxistaId, inicio, fim),
+                l -> new EncomendaResponseDto(l, viagens.viagemDa(l))));
     }
 
     @GetMapping("/comisseiro/{comisseiroId}/encomendas")
-    @Transactional(readOnly = true) // <-- ADICIONADO
-    public ResponseEntity<List<EncomendaResponseDto>> getEncomendasPorComisseiroEPeriodo(
+    public ResponseEntity<StreamingResponseBody> getEncomendasPorComisseiroEPeriodo(
             @PathVariable Long comisseiroId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim
     ) {
-        List<Encomenda> entidade = encomendaRepository.findByComisseiroIdAndViagemDataHoraPartidaBetween(comisseiroId, inicio, fim);
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        return streaming(relatorioStreamService.transmitir(
+                () -> encomendaRepository.streamByComisseiroIdAndPeriodo(comisseiroId, inicio, fim),
+                l -> new EncomendaResponseDto(l, viagens.viagemDa(l))));
+    }
 
-        List<EncomendaResponseDto> listaDto = entidade.stream()
-                .map(EncomendaResponseDto::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(listaDto);
+    private ResponseEntity<StreamingResponseBody> streaming(StreamingResponseBody corpo) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo);
     }
 
 
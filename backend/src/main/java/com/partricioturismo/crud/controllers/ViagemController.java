@@ -1,19 +1,28 @@
 package com.partricioturismo.crud.controllers;
 
 import com.partricioturismo.crud.dtos.AssentoDto;
+import com.partricioturismo.crud.dtos.AutoAssentoRequestDto;
+import com.partricioturismo.crud.dtos.OcupacaoAssentosDto;
 import com.partricioturismo.crud.dtos.ViagemDto;
 import com.partricioturismo.crud.dtos.ViagemSaveRequestDto;
+import com.partricioturismo.crud.service.AlocacaoAssentosService;
 import com.partricioturismo.crud.service.AssentoService;
+import com.partricioturismo.crud.service.ManifestoEventosService;
+import com.partricioturismo.crud.service.ManifestoService;
+import com.partricioturismo.crud.service.SeatInventory.ConflitoAssentoException;
 import com.partricioturismo.crud.service.ViagemService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/viagem")
@@ -25,6 +34,15 @@ public class ViagemController {
     @Autowired
     AssentoService assentoService;
 
+    @Autowired
+    AlocacaoAssentosService alocacaoAssentosService;
+
+    @Autowired
+    ManifestoService manifestoService;
+
+    @Autowired
+    ManifestoEventosService manifestoEventosService;
+
     @GetMapping
     public ResponseEntity<?> getAll(
             @RequestParam(required = false) Integer mes,
@@ -35,6 +53,8 @@ public class ViagemController {
         try {
             Page<ViagemDto> listViagem = service.findAll(mes, ano, query, pageable);
             return ResponseEntity.status(HttpStatus.OK).body(listViagem);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             // ISSO VAI IMPRIMIR O ERRO REAL NO SEU TERMINAL
             e.printStackTrace();
@@ -43,6 +63,39 @@ public class ViagemController {
         }
     }
 
+    // Próximas viagens em ordem de partida, paginadas por cursor. Use 'proximoCursor' da resposta para continuar.
+    @GetMapping("/proximas")
+    public ResponseEntity<?> proximas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(service.findProximas(cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Alterações no manifesto da viagem em tempo real (Server-Sent Events), enviadas após o commit
+    @GetMapping(value = "/{idViagem}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable(value = "idViagem") Long idViagem) {
+        Optional<Long> versao = manifestoService.versaoAtual(idViagem);
+        if (versao.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(manifestoEventosService.inscrever(idViagem, versao.get()));
+    }
+
+    // Ressincronização incremental: só o que mudou no manifesto desde a versão 'since'
+    @GetMapping("/{idViagem}/changes")
+    public ResponseEntity<Object> changes(@PathVariable(value = "idViagem") Long idViagem, @RequestParam long since) {
+        if (since < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("'since' não pode ser negativo");
+        }
+        return manifestoService.alteracoesDesde(idViagem, since)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Viagem não existente"));
+    }
+
     @GetMapping("/{idViagem}")
     public ResponseEntity<Object> getById(@PathVariable(value = "idViagem") Long idViagem) {
         try {
@@ -90,4 +143,25 @@ public class ViagemController {
         List<AssentoDto> assentos = assentoService.findByViagemId(idViagem);
         return ResponseEntity.ok(assentos);
     }
-}
\ No newline at end of file
+
+    // Assentos ocupados de um ônibus da viagem, servidos do mapa em memória
+    @GetMapping("/{idViagem}/onibus/{onibusId}/ocupacao")
+    public ResponseEntity<OcupacaoAssentosDto> getOcupacao(@PathVariable Long idViagem, @PathVariable Long onibusId) {
+        return ResponseEntity.ok(assentoService.getOcupacao(idViagem, onibusId));
+    }
+
+    // Aloca automaticamente assentos vizinhos para os grupos da viagem (todos ou os grupoIds informados)
+    @PostMapping("/{idViagem}/assentos/auto")
+    public ResponseEntity<Object> alocarAssentosAutomaticamente(@PathVariable Long idViagem,
+                                                               @RequestBody(required = false) AutoAssentoRequestDto dto) {
+        try {
+            return ResponseEntity.ok(alocacaoAssentosService.alocarGrupos(idViagem, dto != null ? dto.grupoIds() : null));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (ConflitoAssentoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
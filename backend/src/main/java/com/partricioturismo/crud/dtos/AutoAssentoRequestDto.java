@@ -0,0 +1,7 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+public record AutoAssentoRequestDto(
+        List<String> grupoIds // Opcional: se vazio, aloca todos os grupos da viagem
+) {}
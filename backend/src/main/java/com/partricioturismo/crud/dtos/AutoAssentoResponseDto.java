@@ -0,0 +1,8 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+public record AutoAssentoResponseDto(
+        int passageirosAlocados,
+        List<String> gruposNaoAlocados // Grupos que não couberam em assentos vizinhos
+) {}
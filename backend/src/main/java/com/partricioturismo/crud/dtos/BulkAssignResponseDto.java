@@ -0,0 +1,10 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+public record BulkAssignResponseDto(
+        int passageirosAtualizados,
+        int encomendasAtualizadas,
+        List<Long> passageirosIgnorados, // IDs não encontrados
+        List<Long> encomendasIgnoradas
+) {}
@@ -0,0 +1,8 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> itens,
+        String proximoCursor // null quando não há mais páginas
+) {}
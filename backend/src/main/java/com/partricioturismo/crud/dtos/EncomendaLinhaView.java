@@ -0,0 +1,64 @@
+package com.partricioturismo.crud.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * Linha "achatada" de encomenda para os relatórios em streaming (projeção nativa, sem entidades gerenciadas).
+ */
+public interface EncomendaLinhaView extends ViagemLinhaView {
+
+    Long getId();
+    String getDescricao();
+    BigDecimal getValor();
+    String getMetodoPagamento();
+    Boolean getPago();
+
+    Long getRemetentePessoaId();
+    String getRemetenteNome();
+    String getRemetenteCpf();
+    Integer getRemetenteIdade();
+    String getRemetenteTelefones();
+
+    Long getDestinatarioPessoaId();
+    String getDestinatarioNome();
+    String getDestinatarioCpf();
+    Integer getDestinatarioIdade();
+    String getDestinatarioTelefones();
+
+    Long getColetaId();
+    String getColetaLogradouro();
+    String getColetaNumero();
+    String getColetaBairro();
+    String getColetaCidade();
+    String getColetaEstado();
+    String getColetaCep();
+
+    Long getEntregaId();
+    String getEntregaLogradouro();
+    String getEntregaNumero();
+    String getEntregaBairro();
+    String getEntregaCidade();
+    String getEntregaEstado();
+    String getEntregaCep();
+
+    Long getTaxistaColetaId();
+    Long getTaxistaColetaPessoaId();
+    String getTaxistaColetaNome();
+    String getTaxistaColetaCpf();
+    Integer getTaxistaColetaIdade();
+    String getTaxistaColetaTelefones();
+
+    Long getTaxistaEntregaId();
+    Long getTaxistaEntregaPessoaId();
+    String getTaxistaEntregaNome();
+    String getTaxistaEntregaCpf();
+    Integer getTaxistaEntregaIdade();
+    String getTaxistaEntregaTelefones();
+
+    Long getComisseiroId();
+    Long getComisseiroPessoaId();
+    String getComisseiroNome();
+    String getComisseiroCpf();
+    Integer getComisseiroIdade();
+    String getComisseiroTelefones();
+}
@@ -49,8 +49,38 @@ public record EncomendaResponseDto(
                                 .collect(Collectors.toList()),
                         // Passando os totais calculados pelo @Formula
                         e.getViagem().getTotalPassageiros(),
-                        e.getViagem().getTotalEncomendas()
+                        e.getViagem().getTotalEncomendas(),
+                        null
                 ) : null
         );
     }
-}
\ No newline at end of file
+
+    // Relatórios: monta a resposta a partir da linha projetada (sem tocar em entidades)
+    public EncomendaResponseDto(EncomendaLinhaView l, ViagemDto viagem) {
+        this(
+                l.getId(),
+                l.getDescricao(),
+                new PessoaDto(l.getRemetentePessoaId(), l.getRemetenteNome(), l.getRemetenteCpf(),
+                        ViagemLinhaView.telefones(l.getRemetenteTelefones()), l.getRemetenteIdade()),
+                new PessoaDto(l.getDestinatarioPessoaId(), l.getDestinatarioNome(), l.getDestinatarioCpf(),
+                        ViagemLinhaView.telefones(l.getDestinatarioTelefones()), l.getDestinatarioIdade()),
+                l.getColetaId() != null ? new EnderecoDto(l.getColetaId(), l.getColetaLogradouro(), l.getColetaNumero(),
+                        l.getColetaBairro(), l.getColetaCidade(), l.getColetaEstado(), l.getColetaCep()) : null,
+                l.getEntregaId() != null ? new EnderecoDto(l.getEntregaId(), l.getEntregaLogradouro(), l.getEntregaNumero(),
+                        l.getEntregaBairro(), l.getEntregaCidade(), l.getEntregaEstado(), l.getEntregaCep()) : null,
+                l.getTaxistaColetaId() != null ? new AffiliateResponseDto(l.getTaxistaColetaId(), new PessoaDto(
+                        l.getTaxistaColetaPessoaId(), l.getTaxistaColetaNome(), l.getTaxistaColetaCpf(),
+                        ViagemLinhaView.telefones(l.getTaxistaColetaTelefones()), l.getTaxistaColetaIdade())) : null,
+                l.getTaxistaEntregaId() != null ? new AffiliateResponseDto(l.getTaxistaEntregaId(), new PessoaDto(
+                        l.getTaxistaEntregaPessoaId(), l.getTaxistaEntregaNome(), l.getTaxistaEntregaCpf(),
+                        ViagemLinhaView.telefones(l.getTaxistaEntregaTelefones()), l.getTaxistaEntregaIdade())) : null,
+                l.getComisseiroId() != null ? new AffiliateResponseDto(l.getComisseiroId(), new PessoaDto(
+                        l.getComisseiroPessoaId(), l.getComisseiroNome(), l.getComisseiroCpf(),
+                        ViagemLinhaView.telefones(l.getComisseiroTelefones()), l.getComisseiroIdade())) : null,
+                l.getValor(),
+                l.getMetodoPagamento(),
+                Boolean.TRUE.equals(l.getPago()),
+                viagem
+        );
+    }
+}
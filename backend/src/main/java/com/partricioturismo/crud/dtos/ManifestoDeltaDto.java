@@ -0,0 +1,18 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+// Resposta de GET /api/viagem/{id}/changes?since=N: só o que mudou desde a versão N
+public record ManifestoDeltaDto(
+        Long viagemId,
+        Long versao, // Use como 'since' na próxima chamada
+        boolean recarregar, // true: o histórico não cobre 'since' (ou a alteração não é por item); baixe o manifesto inteiro
+        List<PassengerResponseDto> passageiros, // Incluídos ou alterados (estado atual)
+        List<Long> passageirosRemovidos,
+        List<EncomendaResponseDto> encomendas,
+        List<Long> encomendasRemovidas
+) {
+    public static ManifestoDeltaDto recarregar(Long viagemId, Long versao) {
+        return new ManifestoDeltaDto(viagemId, versao, true, List.of(), List.of(), List.of(), List.of());
+    }
+}
@@ -0,0 +1,29 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+// Alteração no manifesto de uma viagem, enviada por SSE após o commit
+public record ManifestoEventoDto(
+        Long viagemId,
+        Long versao, // manifest_version após a alteração (o mesmo valor do ETag)
+        TipoAlteracao tipo,
+        List<Long> passageiroIds,
+        List<Long> encomendaIds
+) {
+    public enum TipoAlteracao {
+        PASSAGEIRO_ADICIONADO,
+        PASSAGEIRO_ATUALIZADO,
+        PASSAGEIRO_REMOVIDO,
+        ASSENTO_ALTERADO,
+        REORDENADO,
+        PAGAMENTO_ALTERADO,
+        COR_ALTERADA,
+        GRUPO_ALTERADO,
+        TAXISTA_ATRIBUIDO,
+        ENCOMENDA_ADICIONADA,
+        ENCOMENDA_ATUALIZADA,
+        ENCOMENDA_REMOVIDA,
+        // Mudou algo que não é de um item só (dados da viagem, de uma pessoa): o cliente recarrega
+        MANIFESTO_ATUALIZADO
+    }
+}
@@ -0,0 +1,64 @@
+package com.partricioturismo.crud.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * Linha "achatada" do manifesto da viagem (projeção nativa, sem entidades gerenciadas).
+ * Telefones vêm concatenados com o separador ViagemLinhaView.TELEFONE_SEPARADOR.
+ */
+public interface ManifestoPassageiroView extends ViagemLinhaView {
+
+    Long getId();
+    BigDecimal getValor();
+    String getMetodoPagamento();
+    Boolean getPago();
+    String getCorTag();
+    Integer getOrdem();
+    String getGrupoId();
+
+    Long getPessoaId();
+    String getPessoaNome();
+    String getPessoaCpf();
+    Integer getPessoaIdade();
+    String getPessoaTelefones();
+
+    Long getColetaId();
+    String getColetaLogradouro();
+    String getColetaNumero();
+    String getColetaBairro();
+    String getColetaCidade();
+    String getColetaEstado();
+    String getColetaCep();
+
+    Long getEntregaId();
+    String getEntregaLogradouro();
+    String getEntregaNumero();
+    String getEntregaBairro();
+    String getEntregaCidade();
+    String getEntregaEstado();
+    String getEntregaCep();
+
+    Long getTaxistaColetaId();
+    Long getTaxistaColetaPessoaId();
+    String getTaxistaColetaNome();
+    String getTaxistaColetaCpf();
+    Integer getTaxistaColetaIdade();
+    String getTaxistaColetaTelefones();
+
+    Long getTaxistaEntregaId();
+    Long getTaxistaEntregaPessoaId();
+    String getTaxistaEntregaNome();
+    String getTaxistaEntregaCpf();
+    Integer getTaxistaEntregaIdade();
+    String getTaxistaEntregaTelefones();
+
+    Long getComisseiroId();
+    Long getComisseiroPessoaId();
+    String getComisseiroNome();
+    String getComisseiroCpf();
+    Integer getComisseiroIdade();
+    String getComisseiroTelefones();
+
+    String getAssentoNumero();
+    Long getAssentoOnibusId();
+}
@@ -0,0 +1,6 @@
+package com.partricioturismo.crud.dtos;
+
+public record MoverPassageiroRequestDto(
+        Long anteriorId, // Passageiro que ficará antes (null = início da lista)
+        Long proximoId   // Passageiro que ficará depois (null = fim da lista)
+) {}
@@ -0,0 +1,9 @@
+package com.partricioturismo.crud.dtos;
+
+import java.util.List;
+
+public record OcupacaoAssentosDto(
+        Long viagemId,
+        Long onibusId,
+        List<Integer> ocupados // Números dos assentos com passageiro
+) {}
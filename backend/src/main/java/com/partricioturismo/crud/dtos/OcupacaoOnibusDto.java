@@ -0,0 +1,9 @@
+package com.partricioturismo.crud.dtos;
+
+// Ocupação de um ônibus da viagem, lida dos contadores (viagem_onibus.assentos_ocupados)
+public record OcupacaoOnibusDto(
+        Long onibusId,
+        int capacidade,
+        int ocupados,
+        int livres
+) {}
@@ -62,8 +62,39 @@ public record PassengerResponseDto(
                                 .collect(Collectors.toList()),
                         // Passamos os totais aqui também
                         pv.getViagem().getTotalPassageiros(),
-                        pv.getViagem().getTotalEncomendas()
+                        pv.getViagem().getTotalEncomendas(),
+                        null
                 ) : null
         );
     }
-}
\ No newline at end of file
+
+    // Manifesto: monta a resposta a partir da linha projetada (sem tocar em entidades)
+    public PassengerResponseDto(ManifestoPassageiroView l, ViagemDto viagem) {
+        this(
+                l.getId(),
+                new PessoaDto(l.getPessoaId(), l.getPessoaNome(), l.getPessoaCpf(), ViagemLinhaView.telefones(l.getPessoaTelefones()), l.getPessoaIdade()),
+                l.getColetaId() != null ? new EnderecoDto(l.getColetaId(), l.getColetaLogradouro(), l.getColetaNumero(),
+                        l.getColetaBairro(), l.getColetaCidade(), l.getColetaEstado(), l.getColetaCep()) : null,
+                l.getEntregaId() != null ? new EnderecoDto(l.getEntregaId(), l.getEntregaLogradouro(), l.getEntregaNumero(),
+                        l.getEntregaBairro(), l.getEntregaCidade(), l.getEntregaEstado(), l.getEntregaCep()) : null,
+                l.getTaxistaColetaId() != null ? new AffiliateResponseDto(l.getTaxistaColetaId(), new PessoaDto(
+                        l.getTaxistaColetaPessoaId(), l.getTaxistaColetaNome(), l.getTaxistaColetaCpf(),
+                        ViagemLinhaView.telefones(l.getTaxistaColetaTelefones()), l.getTaxistaColetaIdade())) : null,
+                l.getTaxistaEntregaId() != null ? new AffiliateResponseDto(l.getTaxistaEntregaId(), new PessoaDto(
+                        l.getTaxistaEntregaPessoaId(), l.getTaxistaEntregaNome(), l.getTaxistaEntregaCpf(),
+                        ViagemLinhaView.telefones(l.getTaxistaEntregaTelefones()), l.getTaxistaEntregaIdade())) : null,
+                l.getComisseiroId() != null ? new AffiliateResponseDto(l.getComisseiroId(), new PessoaDto(
+                        l.getComisseiroPessoaId(), l.getComisseiroNome(), l.getComisseiroCpf(),
+                        ViagemLinhaView.telefones(l.getComisseiroTelefones()), l.getComisseiroIdade())) : null,
+                l.getValor(),
+                l.getMetodoPagamento(),
+                Boolean.TRUE.equals(l.getPago()),
+                l.getAssentoNumero(),
+                l.getAssentoNumero() != null ? l.getAssentoOnibusId() : null,
+                l.getCorTag(),
+                l.getOrdem(),
+                l.getGrupoId(),
+                viagem
+        );
+    }
+}
@@ -0,0 +1,6 @@
+package com.partricioturismo.crud.dtos;
+
+public record ReorderResponseDto(
+        Long viagemId,
+        Long versao // Nova versão do manifesto da viagem (mesma do ETag)
+) {}
@@ -10,6 +10,8 @@ public record ViagemDto(
         List<OnibusDto> onibus,
         // Novos campos para os cards
         Integer totalPassageiros,
-        Integer totalEncomendas
+        Integer totalEncomendas,
+        // Só na listagem/detalhe da viagem; null quando a viagem vem embutida em passageiro/encomenda
+        List<OcupacaoOnibusDto> ocupacaoOnibus
 ) {
 }
\ No newline at end of file
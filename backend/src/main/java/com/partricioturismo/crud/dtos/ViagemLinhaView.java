@@ -0,0 +1,28 @@
+package com.partricioturismo.crud.dtos;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Colunas da viagem presentes nas linhas projetadas (manifesto e relatórios).
+ * Os ônibus (JSON) só vêm preenchidos na primeira linha de cada viagem.
+ */
+public interface ViagemLinhaView {
+
+    String TELEFONE_SEPARADOR = "\u001F";
+
+    Long getViagemId();
+    LocalDateTime getViagemPartida();
+    LocalDateTime getViagemChegada();
+    Integer getTotalPassageiros();
+    Integer getTotalEncomendas();
+    String getOnibusJson();
+
+    // Separa os telefones concatenados por string_agg
+    static List<String> telefones(String concatenados) {
+        if (concatenados == null || concatenados.isEmpty()) return new ArrayList<>();
+        return new ArrayList<>(Arrays.asList(concatenados.split(TELEFONE_SEPARADOR)));
+    }
+}
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class Assento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assento_seq")
+    @SequenceGenerator(name = "assento_seq", sequenceName = "assento_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
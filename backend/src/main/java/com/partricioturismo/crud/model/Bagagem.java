@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 public class Bagagem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bagagem_seq")
+    @SequenceGenerator(name = "bagagem_seq", sequenceName = "bagagem_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(precision = 10, scale = 2) // Para DECIMAL(10, 2)
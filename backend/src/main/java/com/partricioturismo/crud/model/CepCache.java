@@ -0,0 +1,42 @@
+package com.partricioturismo.crud.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// Resposta do ViaCEP guardada em banco (ver CepCacheService). Gravada via upsert no repositório.
+@Entity
+@Table(name = "cep_cache")
+public class CepCache {
+
+    // Só os 8 dígitos; CHAR(8) na V28 (o validate do perfil prod compara o tipo)
+    @Id
+    @Column(length = 8)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private String cep;
+
+    // false: o ViaCEP respondeu que o CEP não existe
+    @Column(nullable = false)
+    private boolean encontrado;
+
+    private String logradouro;
+    private String bairro;
+    private String cidade;
+    private String estado;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    public CepCache() {
+    }
+
+    public String getCep() { return cep; }
+    public boolean isEncontrado() { return encontrado; }
+    public String getLogradouro() { return logradouro; }
+    public String getBairro() { return bairro; }
+    public String getCidade() { return cidade; }
+    public String getEstado() { return estado; }
+    public LocalDateTime getAtualizadoEm() { return atualizadoEm; }
+}
@@ -2,14 +2,19 @@ package com.partricioturismo.crud.model;
 
 import com.partricioturismo.crud.model.Pessoa;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Objects;
 
 @Entity
 @Table(name = "comisseiro")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "comisseiro")
 public class Comisseiro {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comisseiro_seq")
+    @SequenceGenerator(name = "comisseiro_seq", sequenceName = "comisseiro_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 public class Encomenda {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "encomenda_seq")
+    @SequenceGenerator(name = "encomenda_seq", sequenceName = "encomenda_id_seq", allocationSize = 50)
     private Long id;
 
     private String descricao;
@@ -0,0 +1,61 @@
+package com.partricioturismo.crud.model;
+
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// Uma alteração no manifesto de uma viagem (ver ManifestoService). Só é inserida, nunca atualizada.
+@Entity
+@Table(name = "manifesto_alteracao")
+public class ManifestoAlteracao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "manifesto_alteracao_seq")
+    @SequenceGenerator(name = "manifesto_alteracao_seq", sequenceName = "manifesto_alteracao_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Só o ID: gravar uma alteração não precisa carregar a viagem
+    @Column(name = "viagem_id", nullable = false)
+    private Long viagemId;
+
+    @Column(nullable = false)
+    private Long versao;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private TipoAlteracao tipo;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "passageiro_ids", nullable = false)
+    private Long[] passageiroIds;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "encomenda_ids", nullable = false)
+    private Long[] encomendaIds;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    public ManifestoAlteracao() {
+    }
+
+    public ManifestoAlteracao(Long viagemId, Long versao, TipoAlteracao tipo, Long[] passageiroIds, Long[] encomendaIds) {
+        this.viagemId = viagemId;
+        this.versao = versao;
+        this.tipo = tipo;
+        this.passageiroIds = passageiroIds;
+        this.encomendaIds = encomendaIds;
+        this.criadoEm = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getViagemId() { return viagemId; }
+    public Long getVersao() { return versao; }
+    public TipoAlteracao getTipo() { return tipo; }
+    public Long[] getPassageiroIds() { return passageiroIds; }
+    public Long[] getEncomendaIds() { return encomendaIds; }
+    public LocalDateTime getCriadoEm() { return criadoEm; }
+}
@@ -1,13 +1,18 @@
 package com.partricioturismo.crud.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity(name = "onibus")
 @Table(name = "onibus")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "onibus") // Muda poucas vezes por mês
 public class Onibus {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "onibus_seq")
+    @SequenceGenerator(name = "onibus_seq", sequenceName = "onibus_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "modelo")
@@ -10,7 +10,8 @@ import java.util.List;
 public class PassageiroViagem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passageiro_viagem_seq")
+    @SequenceGenerator(name = "passageiro_viagem_seq", sequenceName = "passageiro_viagem_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -1,15 +1,21 @@
 package com.partricioturismo.crud.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity(name = "pessoa")
 @Table(name = "pessoa")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pessoa")
 public class Pessoa {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pessoa_seq")
+    @SequenceGenerator(name = "pessoa_seq", sequenceName = "pessoa_id_seq", allocationSize = 50)
     private Long id;
 
     private String nome;
@@ -18,10 +24,13 @@ public class Pessoa {
 
     // A lista nova que criamos
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50) // Evita uma consulta de telefones por pessoa em listagens
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pessoa.telefones")
     @CollectionTable(
             name = "pessoa_telefones",
             joinColumns = @JoinColumn(name = "pessoa_id")
     )
+    @OrderColumn(name = "posicao") // Troca de telefone vira UPDATE por posição, em lote (V31)
     @Column(name = "telefone")
     private List<String> telefones = new ArrayList<>();
 
@@ -2,14 +2,19 @@ package com.partricioturismo.crud.model;
 
 import com.partricioturismo.crud.model.Pessoa;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Objects;
 
 @Entity
 @Table(name = "taxista")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "taxista")
 public class Taxista {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "taxista_seq")
+    @SequenceGenerator(name = "taxista_seq", sequenceName = "taxista_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
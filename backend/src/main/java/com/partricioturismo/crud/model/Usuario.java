@@ -1,5 +1,6 @@
 package com.partricioturismo.crud.model; // (Seu pacote)
 
+import com.partricioturismo.crud.config.UsuarioCacheListener;
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -11,10 +12,12 @@ import java.util.ArrayList; // Import ArrayList
 
 @Entity
 @Table(name = "usuarios") // Nome da tabela no banco
+@EntityListeners(UsuarioCacheListener.class) // Invalida o cache de autenticação
 public class Usuario implements UserDetails { // Implementa UserDetails do Spring Security
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -1,7 +1,7 @@
 package com.partricioturismo.crud.model;
 
 import jakarta.persistence.*;
-import org.hibernate.annotations.Formula; // <--- IMPORTANTE
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,7 +11,8 @@ import java.util.List;
 public class Viagem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "viagem_seq")
+    @SequenceGenerator(name = "viagem_seq", sequenceName = "viagem_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,6 +22,7 @@ public class Viagem {
     private LocalDateTime dataHoraChegada;
 
     @ManyToMany
+    @BatchSize(size = 50) // Listas com várias viagens carregam os ônibus em lote
     @JoinTable(
             name = "viagem_onibus",
             joinColumns = @JoinColumn(name = "viagem_id"),
@@ -31,17 +33,21 @@ public class Viagem {
     @OneToMany(mappedBy = "viagem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Assento> assentos;
 
-    // === NOVOS CAMPOS CALCULADOS (Fórmulas) ===
-    // O Hibernate executa esse SQL automaticamente ao buscar a viagem.
-    // Isso evita carregar a lista inteira de passageiros na memória.
+    // === CONTADORES ===
+    // Colunas mantidas por trigger no banco (V26): ler a viagem não executa nenhum count(*).
+    // Somente leitura aqui, para o Hibernate nunca sobrescrever o valor do trigger.
 
-    @Formula("(select count(*) from passageiro_viagem pv where pv.viagem_id = id)")
+    @Column(name = "total_passageiros", insertable = false, updatable = false)
     private Integer totalPassageiros;
 
-    @Formula("(select count(*) from encomenda e where e.viagem_id = id)")
+    @Column(name = "total_encomendas", insertable = false, updatable = false)
     private Integer totalEncomendas;
     // ==========================================
 
+    // Versão do manifesto (passageiros, encomendas e ordem); controlada via UPDATE nativo no repositório
+    @Column(name = "manifest_version", insertable = false, updatable = false)
+    private Long manifestVersion;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -62,6 +68,8 @@ public class Viagem {
     public Integer getTotalPassageiros() { return totalPassageiros != null ? totalPassageiros : 0; }
     public Integer getTotalEncomendas() { return totalEncomendas != null ? totalEncomendas : 0; }
 
+    public Long getManifestVersion() { return manifestVersion != null ? manifestVersion : 0L; }
+
     // Métodos Legacy (Compatibilidade)
     public Onibus getOnibus() {
         if (this.listaOnibus != null && !this.listaOnibus.isEmpty()) {
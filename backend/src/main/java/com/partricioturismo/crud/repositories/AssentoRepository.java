@@ -1,9 +1,16 @@
 package com.partricioturismo.crud.repositories;
 
 import com.partricioturismo.crud.model.Assento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +28,33 @@ public interface AssentoRepository extends JpaRepository<Assento, Long> {
      * Usado para vincular passageiros pelo mapa visual.
      */
     Optional<Assento> findByViagemIdAndOnibusIdAndNumero(Long viagemId, Long onibusId, String numero);
-}
\ No newline at end of file
+
+    /**
+     * Busca de uma vez vários assentos de um ônibus da viagem, já com o passageiro que os ocupa.
+     * Usado para vincular os assentos de um grupo inteiro.
+     */
+    @Query("SELECT a FROM Assento a LEFT JOIN FETCH a.passageiroViagem " +
+            "WHERE a.viagem.id = :viagemId AND a.onibus.id = :onibusId AND a.numero IN :numeros")
+    List<Assento> findComOcupanteByViagemIdAndOnibusIdAndNumeroIn(@Param("viagemId") Long viagemId,
+                                                                 @Param("onibusId") Long onibusId,
+                                                                 @Param("numeros") Collection<String> numeros);
+
+    /**
+     * Números dos assentos com passageiro em um ônibus da viagem (carga do mapa de ocupação em memória).
+     */
+    @Query(value = "SELECT a.numero FROM assento a JOIN passageiro_viagem pv ON pv.assento_id = a.id " +
+            "WHERE a.viagem_id = :viagemId AND a.onibus_id = :onibusId",
+            nativeQuery = true)
+    List<String> findNumerosOcupados(@Param("viagemId") Long viagemId, @Param("onibusId") Long onibusId);
+
+    /**
+     * Retorna [id, onibus_id, numero] de todos os assentos da viagem.
+     */
+    @Query(value = "SELECT a.id, a.onibus_id, a.numero FROM assento a WHERE a.viagem_id = :viagemId", nativeQuery = true)
+    List<Object[]> findResumoByViagemId(@Param("viagemId") Long viagemId);
+
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "assento"))
+    @Query(value = "UPDATE assento SET ocupado = TRUE WHERE id = ANY(CAST(:ids AS BIGINT[]))", nativeQuery = true)
+    int marcarOcupados(@Param("ids") Long[] ids);
+}
@@ -0,0 +1,32 @@
+package com.partricioturismo.crud.repositories;
+
+import com.partricioturismo.crud.model.CepCache;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CepCacheRepository extends JpaRepository<CepCache, String> {
+
+    // Insere ou renova a resposta do CEP em uma única ida ao banco
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cep_cache"))
+    @Query(value = "INSERT INTO cep_cache (cep, encontrado, logradouro, bairro, cidade, estado, atualizado_em) " +
+            "VALUES (:cep, :encontrado, :logradouro, :bairro, :cidade, :estado, now()) " +
+            "ON CONFLICT (cep) DO UPDATE SET encontrado = EXCLUDED.encontrado, logradouro = EXCLUDED.logradouro, " +
+            "bairro = EXCLUDED.bairro, cidade = EXCLUDED.cidade, estado = EXCLUDED.estado, atualizado_em = now()",
+            nativeQuery = true)
+    int gravar(@Param("cep") String cep,
+               @Param("encontrado") boolean encontrado,
+               @Param("logradouro") String logradouro,
+               @Param("bairro") String bairro,
+               @Param("cidade") String cidade,
+               @Param("estado") String estado);
+}
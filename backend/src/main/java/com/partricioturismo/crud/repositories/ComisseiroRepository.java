@@ -1,14 +1,23 @@
 package com.partricioturismo.crud.repositories;
 
 import com.partricioturismo.crud.model.Comisseiro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ComisseiroRepository extends JpaRepository<Comisseiro, Long> {
 
+    // Páginas da listagem de comisseiros no cache de consultas (invalidadas a cada alteração na tabela comisseiro)
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas.afiliados")})
+    Page<Comisseiro> findAll(Pageable pageable);
+
     // Verifica se já existe um comisseiro vinculado a esta pessoa
     boolean existsByPessoaId(Long pessoaId);
 
@@ -1,13 +1,19 @@
 package com.partricioturismo.crud.repositories;
 
+import com.partricioturismo.crud.dtos.EncomendaLinhaView;
 import com.partricioturismo.crud.model.Encomenda;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EncomendaRepository extends JpaRepository<Encomenda, Long> {
@@ -100,4 +106,86 @@ public interface EncomendaRepository extends JpaRepository<Encomenda, Long> {
             "LEFT JOIN FETCH e.comisseiro " +
             "WHERE e.destinatario.id = :pessoaId ORDER BY v.dataHoraPartida DESC")
     List<Encomenda> findByDestinatarioIdWithHistory(@Param("pessoaId") Long pessoaId);
-}
\ No newline at end of file
+
+    // --- TAXISTA EM MASSA ---
+
+    // Atribui (ou remove, com taxistaId null) o taxista de coleta/entrega em um único UPDATE. Retorna os IDs alterados.
+    // Só altera linhas das viagens informadas, que quem chama já travou.
+    @Query(value = "UPDATE encomenda SET " +
+            "taxista_coleta_id = CASE WHEN :tipo = 'COLETA' THEN CAST(:taxistaId AS BIGINT) ELSE taxista_coleta_id END, " +
+            "taxista_entrega_id = CASE WHEN :tipo = 'ENTREGA' THEN CAST(:taxistaId AS BIGINT) ELSE taxista_entrega_id END " +
+            "WHERE id = ANY(CAST(:ids AS BIGINT[])) AND viagem_id = ANY(CAST(:viagemIds AS BIGINT[])) RETURNING id",
+            nativeQuery = true)
+    List<Long> atribuirTaxista(@Param("ids") Long[] ids, @Param("viagemIds") Long[] viagemIds,
+                               @Param("taxistaId") Long taxistaId, @Param("tipo") String tipo);
+
+    // --- RELATÓRIOS EM STREAMING (projeção nativa, sem entidades) ---
+
+    // Colunas exatas do EncomendaResponseDto. Ônibus só na primeira linha de cada viagem.
+    String RELATORIO_SELECT = "SELECT e.id AS \"id\", e.descricao AS \"descricao\", e.valor AS \"valor\", " +
+            "e.metodo_pagamento AS \"metodoPagamento\", e.pago AS \"pago\", " +
+            "rp.id AS \"remetentePessoaId\", rp.nome AS \"remetenteNome\", rp.cpf AS \"remetenteCpf\", rp.idade AS \"remetenteIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = rp.id) AS \"remetenteTelefones\", " +
+            "dp.id AS \"destinatarioPessoaId\", dp.nome AS \"destinatarioNome\", dp.cpf AS \"destinatarioCpf\", dp.idade AS \"destinatarioIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = dp.id) AS \"destinatarioTelefones\", " +
+            "ec.id AS \"coletaId\", ec.logradouro AS \"coletaLogradouro\", ec.numero AS \"coletaNumero\", " +
+            "ec.bairro AS \"coletaBairro\", ec.cidade AS \"coletaCidade\", ec.estado AS \"coletaEstado\", ec.cep AS \"coletaCep\", " +
+            "ee.id AS \"entregaId\", ee.logradouro AS \"entregaLogradouro\", ee.numero AS \"entregaNumero\", " +
+            "ee.bairro AS \"entregaBairro\", ee.cidade AS \"entregaCidade\", ee.estado AS \"entregaEstado\", ee.cep AS \"entregaCep\", " +
+            "tc.id AS \"taxistaColetaId\", " +
+            "tcp.id AS \"taxistaColetaPessoaId\", tcp.nome AS \"taxistaColetaNome\", tcp.cpf AS \"taxistaColetaCpf\", tcp.idade AS \"taxistaColetaIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = tcp.id) AS \"taxistaColetaTelefones\", " +
+            "te.id AS \"taxistaEntregaId\", " +
+            "tep.id AS \"taxistaEntregaPessoaId\", tep.nome AS \"taxistaEntregaNome\", tep.cpf AS \"taxistaEntregaCpf\", tep.idade AS \"taxistaEntregaIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = tep.id) AS \"taxistaEntregaTelefones\", " +
+            "co.id AS \"comisseiroId\", " +
+            "cop.id AS \"comisseiroPessoaId\", cop.nome AS \"comisseiroNome\", cop.cpf AS \"comisseiroCpf\", cop.idade AS \"comisseiroIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = cop.id) AS \"comisseiroTelefones\", " +
+            "v.id AS \"viagemId\", v.data_hora_partida AS \"viagemPartida\", v.data_hora_chegada AS \"viagemChegada\", " +
+            "v.total_passageiros AS \"totalPassageiros\", v.total_encomendas AS \"totalEncomendas\", " +
+            "CASE WHEN row_number() OVER por_viagem = 1 THEN (" +
+            "  SELECT CAST(json_agg(json_build_object('id', o.id, 'modelo', o.modelo, 'placa', o.placa, " +
+            "    'capacidadePassageiros', o.capacidade_passageiros, 'layoutJson', o.layout_json)) AS TEXT) " +
+            "  FROM viagem_onibus vo JOIN onibus o ON o.id = vo.onibus_id WHERE vo.viagem_id = v.id" +
+            ") END AS \"onibusJson\" ";
+
+    String RELATORIO_FROM = "FROM encomenda e " +
+            "JOIN viagem v ON v.id = e.viagem_id " +
+            "JOIN pessoa rp ON rp.id = e.remetente_id " +
+            "JOIN pessoa dp ON dp.id = e.destinatario_id " +
+            "LEFT JOIN endereco ec ON ec.id = e.endereco_coleta_id " +
+            "LEFT JOIN endereco ee ON ee.id = e.endereco_entrega_id " +
+            "LEFT JOIN taxista tc ON tc.id = e.taxista_coleta_id LEFT JOIN pessoa tcp ON tcp.id = tc.pessoa_id " +
+            "LEFT JOIN taxista te ON te.id = e.taxista_entrega_id LEFT JOIN pessoa tep ON tep.id = te.pessoa_id " +
+            "LEFT JOIN comisseiro co ON co.id = e.comisseiro_id LEFT JOIN pessoa cop ON cop.id = co.pessoa_id ";
+
+    String RELATORIO_JANELA = " WINDOW por_viagem AS (PARTITION BY e.viagem_id ORDER BY e.id) ";
+
+    // Só as encomendas pedidas da viagem (ressincronização incremental)
+    @Query(value = RELATORIO_SELECT + RELATORIO_FROM +
+            " WHERE e.viagem_id = :viagemId AND e.id IN (:ids)" + RELATORIO_JANELA +
+            "ORDER BY e.id",
+            nativeQuery = true)
+    List<EncomendaLinhaView> findLinhasByViagemIdAndIdIn(@Param("viagemId") Long viagemId,
+                                                         @Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query(value = RELATORIO_SELECT + RELATORIO_FROM +
+            " WHERE (e.taxista_coleta_id = :taxistaId OR e.taxista_entrega_id = :taxistaId) " +
+            "AND v.data_hora_partida BETWEEN :inicio AND :fim" + RELATORIO_JANELA +
+            "ORDER BY v.data_hora_partida DESC, v.id DESC, e.id",
+            nativeQuery = true)
+    Stream<EncomendaLinhaView> streamByTaxistaIdAndPeriodo(@Param("taxistaId") Long taxistaId,
+                                                           @Param("inicio") LocalDateTime inicio,
+                                                           @Param("fim") LocalDateTime fim);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query(value = RELATORIO_SELECT + RELATORIO_FROM +
+            " WHERE e.comisseiro_id = :comisseiroId " +
+            "AND v.data_hora_partida BETWEEN :inicio AND :fim" + RELATORIO_JANELA +
+            "ORDER BY v.data_hora_partida DESC, v.id DESC, e.id",
+            nativeQuery = true)
+    Stream<EncomendaLinhaView> streamByComisseiroIdAndPeriodo(@Param("comisseiroId") Long comisseiroId,
+                                                              @Param("inicio") LocalDateTime inicio,
+                                                              @Param("fim") LocalDateTime fim);
+}
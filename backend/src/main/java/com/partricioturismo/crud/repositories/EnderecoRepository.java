@@ -14,12 +14,13 @@ public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
 
     Optional<Endereco> findByCep(String cep);
 
-    // --- NOVA BUSCA ABRANGENTE ---
-    // Busca por trechos em Logradouro, Bairro, Cidade OU CEP
-    @Query("SELECT e FROM Endereco e WHERE " +
-            "LOWER(e.logradouro) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(e.bairro) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(e.cidade) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "e.cep LIKE CONCAT('%', :query, '%')")
-    List<Endereco> search(@Param("query") String query);
+    // --- BUSCA ABRANGENTE (V27) ---
+    // Logradouro, bairro, cidade, UF ou CEP pela coluna normalizada 'busca' (índice trigram).
+    // 'termo' já normalizado (TextoNormalizador). Mais parecidos primeiro, uma página por vez.
+    @Query(value = "SELECT e.* FROM endereco e " +
+            "WHERE e.busca LIKE '%' || :termo || '%' OR :termo <% e.busca " +
+            "ORDER BY word_similarity(:termo, e.busca) DESC, e.id " +
+            "LIMIT :limite OFFSET :inicio",
+            nativeQuery = true)
+    List<Endereco> search(@Param("termo") String termo, @Param("limite") int limite, @Param("inicio") int inicio);
 }
\ No newline at end of file
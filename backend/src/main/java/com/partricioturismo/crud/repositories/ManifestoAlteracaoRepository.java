@@ -0,0 +1,23 @@
+package com.partricioturismo.crud.repositories;
+
+import com.partricioturismo.crud.model.ManifestoAlteracao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ManifestoAlteracaoRepository extends JpaRepository<ManifestoAlteracao, Long> {
+
+    // Alterações posteriores a 'versao', em ordem (usa idx_manifesto_alteracao_viagem_versao)
+    List<ManifestoAlteracao> findByViagemIdAndVersaoGreaterThanOrderByVersao(Long viagemId, Long versao);
+
+    // Limpeza do histórico antigo em um único DELETE
+    @Modifying
+    @Query("DELETE FROM ManifestoAlteracao a WHERE a.criadoEm < :limite")
+    int deleteByCriadoEmBefore(@Param("limite") LocalDateTime limite);
+}
@@ -1,17 +1,25 @@
 package com.partricioturismo.crud.repositories;
 
+import com.partricioturismo.crud.dtos.ManifestoPassageiroView;
 import com.partricioturismo.crud.model.PassageiroViagem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PassageiroViagemRepository extends JpaRepository<PassageiroViagem, Long> {
+public interface PassageiroViagemRepository extends JpaRepository<PassageiroViagem, Long>, JpaSpecificationExecutor<PassageiroViagem> {
 
     // --- QUERY OTIMIZADA ---
     @Query("SELECT DISTINCT pv FROM PassageiroViagem pv " +
@@ -25,10 +33,102 @@ public interface PassageiroViagemRepository extends JpaRepository<PassageiroViag
             "ORDER BY pv.ordem ASC, pv.id ASC")
     List<PassageiroViagem> findByViagemId(@Param("viagemId") Long viagemId);
 
+    // --- MANIFESTO (leitura da tela da viagem e relatórios) ---
+
+    // Colunas exatas do PassengerResponseDto, sem entidades. Os ônibus (JSON) da viagem
+    // vêm só na primeira linha de cada viagem (janela 'por_viagem'), evitando repetir o layout em toda linha.
+    String MANIFESTO_SELECT = "SELECT pv.id AS \"id\", pv.valor AS \"valor\", pv.metodo_pagamento AS \"metodoPagamento\", " +
+            "pv.pago AS \"pago\", pv.cor_tag AS \"corTag\", pv.ordem AS \"ordem\", pv.grupo_id AS \"grupoId\", " +
+            "p.id AS \"pessoaId\", p.nome AS \"pessoaNome\", p.cpf AS \"pessoaCpf\", p.idade AS \"pessoaIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = p.id) AS \"pessoaTelefones\", " +
+            "ec.id AS \"coletaId\", ec.logradouro AS \"coletaLogradouro\", ec.numero AS \"coletaNumero\", " +
+            "ec.bairro AS \"coletaBairro\", ec.cidade AS \"coletaCidade\", ec.estado AS \"coletaEstado\", ec.cep AS \"coletaCep\", " +
+            "ee.id AS \"entregaId\", ee.logradouro AS \"entregaLogradouro\", ee.numero AS \"entregaNumero\", " +
+            "ee.bairro AS \"entregaBairro\", ee.cidade AS \"entregaCidade\", ee.estado AS \"entregaEstado\", ee.cep AS \"entregaCep\", " +
+            "tc.id AS \"taxistaColetaId\", " +
+            "tcp.id AS \"taxistaColetaPessoaId\", tcp.nome AS \"taxistaColetaNome\", tcp.cpf AS \"taxistaColetaCpf\", tcp.idade AS \"taxistaColetaIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = tcp.id) AS \"taxistaColetaTelefones\", " +
+            "te.id AS \"taxistaEntregaId\", " +
+            "tep.id AS \"taxistaEntregaPessoaId\", tep.nome AS \"taxistaEntregaNome\", tep.cpf AS \"taxistaEntregaCpf\", tep.idade AS \"taxistaEntregaIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = tep.id) AS \"taxistaEntregaTelefones\", " +
+            "co.id AS \"comisseiroId\", " +
+            "cop.id AS \"comisseiroPessoaId\", cop.nome AS \"comisseiroNome\", cop.cpf AS \"comisseiroCpf\", cop.idade AS \"comisseiroIdade\", " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = cop.id) AS \"comisseiroTelefones\", " +
+            "a.numero AS \"assentoNumero\", a.onibus_id AS \"assentoOnibusId\", " +
+            "v.id AS \"viagemId\", v.data_hora_partida AS \"viagemPartida\", v.data_hora_chegada AS \"viagemChegada\", " +
+            "v.total_passageiros AS \"totalPassageiros\", v.total_encomendas AS \"totalEncomendas\", " +
+            "CASE WHEN row_number() OVER por_viagem = 1 THEN (" +
+            "  SELECT CAST(json_agg(json_build_object('id', o.id, 'modelo', o.modelo, 'placa', o.placa, " +
+            "    'capacidadePassageiros', o.capacidade_passageiros, 'layoutJson', o.layout_json)) AS TEXT) " +
+            "  FROM viagem_onibus vo JOIN onibus o ON o.id = vo.onibus_id WHERE vo.viagem_id = v.id" +
+            ") END AS \"onibusJson\" ";
+
+    String MANIFESTO_FROM = "FROM passageiro_viagem pv " +
+            "JOIN viagem v ON v.id = pv.viagem_id " +
+            "JOIN pessoa p ON p.id = pv.pessoa_id " +
+            "LEFT JOIN endereco ec ON ec.id = pv.endereco_coleta_id " +
+            "LEFT JOIN endereco ee ON ee.id = pv.endereco_entrega_id " +
+            "LEFT JOIN taxista tc ON tc.id = pv.taxista_coleta_id LEFT JOIN pessoa tcp ON tcp.id = tc.pessoa_id " +
+            "LEFT JOIN taxista te ON te.id = pv.taxista_entrega_id LEFT JOIN pessoa tep ON tep.id = te.pessoa_id " +
+            "LEFT JOIN comisseiro co ON co.id = pv.comisseiro_id LEFT JOIN pessoa cop ON cop.id = co.pessoa_id " +
+            "LEFT JOIN assento a ON a.id = pv.assento_id ";
+
+    // A ordem dentro da janela acompanha a ordem das linhas: a primeira linha de cada viagem traz os dados dela
+    String MANIFESTO_JANELA = " WINDOW por_viagem AS (PARTITION BY pv.viagem_id ORDER BY pv.ordem, pv.id) ";
+
+    @Query(value = MANIFESTO_SELECT + MANIFESTO_FROM +
+            " WHERE pv.viagem_id = :viagemId" + MANIFESTO_JANELA +
+            "ORDER BY pv.ordem, pv.id",
+            nativeQuery = true)
+    List<ManifestoPassageiroView> findManifestoByViagemId(@Param("viagemId") Long viagemId);
+
+    // Só as linhas pedidas do manifesto (ressincronização incremental)
+    @Query(value = MANIFESTO_SELECT + MANIFESTO_FROM +
+            " WHERE pv.viagem_id = :viagemId AND pv.id IN (:ids)" + MANIFESTO_JANELA +
+            "ORDER BY pv.ordem, pv.id",
+            nativeQuery = true)
+    List<ManifestoPassageiroView> findManifestoByViagemIdAndIdIn(@Param("viagemId") Long viagemId,
+                                                                 @Param("ids") Collection<Long> ids);
+
+    // Relatórios por período em streaming (linhas de cada viagem contíguas, viagens mais recentes primeiro)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query(value = MANIFESTO_SELECT + MANIFESTO_FROM +
+            " WHERE (pv.taxista_coleta_id = :taxistaId OR pv.taxista_entrega_id = :taxistaId) " +
+            "AND v.data_hora_partida BETWEEN :inicio AND :fim" + MANIFESTO_JANELA +
+            "ORDER BY v.data_hora_partida DESC, v.id DESC, pv.ordem, pv.id",
+            nativeQuery = true)
+    Stream<ManifestoPassageiroView> streamManifestoByTaxistaIdAndPeriodo(@Param("taxistaId") Long taxistaId,
+                                                                        @Param("inicio") LocalDateTime inicio,
+                                                                        @Param("fim") LocalDateTime fim);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query(value = MANIFESTO_SELECT + MANIFESTO_FROM +
+            " WHERE pv.comisseiro_id = :comisseiroId " +
+            "AND v.data_hora_partida BETWEEN :inicio AND :fim" + MANIFESTO_JANELA +
+            "ORDER BY v.data_hora_partida DESC, v.id DESC, pv.ordem, pv.id",
+            nativeQuery = true)
+    Stream<ManifestoPassageiroView> streamManifestoByComisseiroIdAndPeriodo(@Param("comisseiroId") Long comisseiroId,
+                                                                           @Param("inicio") LocalDateTime inicio,
+                                                                           @Param("fim") LocalDateTime fim);
+
     // ✅ NOVO: Busca segura para evitar duplicidade
     @Query("SELECT pv FROM PassageiroViagem pv WHERE pv.pessoa.id = :pessoaId AND pv.viagem.id = :viagemId")
     Optional<PassageiroViagem> findByPessoaAndViagem(@Param("pessoaId") Long pessoaId, @Param("viagemId") Long viagemId);
 
+    // Grupo Família: passageiros já existentes na viagem, por ID ou pela Pessoa, com as associações usadas na resposta
+    @Query("SELECT pv FROM PassageiroViagem pv " +
+            "JOIN FETCH pv.pessoa p " +
+            "LEFT JOIN FETCH pv.assento " +
+            "LEFT JOIN FETCH pv.enderecoColeta " +
+            "LEFT JOIN FETCH pv.enderecoEntrega " +
+            "LEFT JOIN FETCH pv.taxistaColeta " +
+            "LEFT JOIN FETCH pv.taxistaEntrega " +
+            "LEFT JOIN FETCH pv.comisseiro " +
+            "WHERE pv.viagem.id = :viagemId AND (pv.id IN :ids OR p.id IN :pessoaIds)")
+    List<PassageiroViagem> findParaGrupo(@Param("viagemId") Long viagemId,
+                                         @Param("ids") Collection<Long> ids,
+                                         @Param("pessoaIds") Collection<Long> pessoaIds);
+
     // --- MÉTODOS PARA RELATÓRIOS ---
     @Query("SELECT pv FROM PassageiroViagem pv " +
             "JOIN FETCH pv.pessoa " +
@@ -80,10 +180,127 @@ public interface PassageiroViagemRepository extends JpaRepository<PassageiroViag
             "WHERE p.id = :pessoaId ORDER BY v.dataHoraPartida DESC")
     List<PassageiroViagem> findByPessoaIdWithHistory(@Param("pessoaId") Long pessoaId);
 
+    // --- ORDENAÇÃO EM MASSA ---
+
+    // Retorna [viagemId, quantidade] para os IDs informados (valida a reordenação em uma única consulta)
+    @Query("SELECT pv.viagem.id, COUNT(pv) FROM PassageiroViagem pv WHERE pv.id IN :ids GROUP BY pv.viagem.id")
+    List<Object[]> contarPorViagem(@Param("ids") Collection<Long> ids);
+
+    // Aplica a nova ordem inteira em um único UPDATE: a posição no array define a 'ordem' (0, intervalo, 2*intervalo...)
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"))
+    @Query(value = "UPDATE passageiro_viagem pv SET ordem = (t.pos - 1) * :intervalo " +
+            "FROM unnest(CAST(:ids AS BIGINT[])) WITH ORDINALITY AS t(id, pos) " +
+            "WHERE pv.id = t.id AND pv.viagem_id = :viagemId",
+            nativeQuery = true)
+    int reordenar(@Param("viagemId") Long viagemId, @Param("ids") Long[] ids, @Param("intervalo") int intervalo);
+
+    // Renumera a viagem mantendo a ordem atual, devolvendo o espaço entre as posições
+    @Modifying(clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"))
+    @Query(value = "UPDATE passageiro_viagem pv SET ordem = r.pos * :intervalo " +
+            "FROM (SELECT id, row_number() OVER (ORDER BY ordem, id) - 1 AS pos " +
+            "      FROM passageiro_viagem WHERE viagem_id = :viagemId) r " +
+            "WHERE pv.id = r.id",
+            nativeQuery = true)
+    int rebalancearOrdem(@Param("viagemId") Long viagemId, @Param("intervalo") int intervalo);
+
+    // Retorna [id, ordem] dos passageiros informados dentro da viagem
+    @Query("SELECT pv.id, pv.ordem FROM PassageiroViagem pv WHERE pv.viagem.id = :viagemId AND pv.id IN :ids")
+    List<Object[]> findOrdensByViagemIdAndIds(@Param("viagemId") Long viagemId, @Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PassageiroViagem pv SET pv.ordem = :ordem WHERE pv.id = :id")
+    int atualizarOrdem(@Param("id") Long id, @Param("ordem") Integer ordem);
+
+    // --- ASSENTOS ---
+
+    // Retorna [viagem_id, numero do assento atual, onibus_id do assento atual, primeiro ônibus da viagem]
+    @Query(value = "SELECT pv.viagem_id, a.numero, a.onibus_id, " +
+            "(SELECT vo.onibus_id FROM viagem_onibus vo WHERE vo.viagem_id = pv.viagem_id LIMIT 1) " +
+            "FROM passageiro_viagem pv LEFT JOIN assento a ON a.id = pv.assento_id " +
+            "WHERE pv.id = :id",
+            nativeQuery = true)
+    List<Object[]> findSituacaoAssento(@Param("id") Long id);
+
+    // Ocupa o assento (criando-o se preciso), desaloja quem estava nele e libera o assento antigo
+    // em um único comando. Depende de uq_assento_viagem ser DEFERRABLE (verificada no fim do comando).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "assento")})
+    @Query(value = "WITH existente AS (" +
+            "  SELECT a.id FROM assento a " +
+            "  WHERE a.viagem_id = :viagemId AND a.onibus_id = :onibusId AND a.numero = :numero " +
+            "  ORDER BY a.id LIMIT 1), " +
+            "criado AS (" +
+            "  INSERT INTO assento (numero, ocupado, viagem_id, onibus_id) " +
+            "  SELECT :numero, TRUE, :viagemId, :onibusId WHERE NOT EXISTS (SELECT 1 FROM existente) " +
+            "  RETURNING id), " +
+            "alvo AS (SELECT id FROM existente UNION ALL SELECT id FROM criado), " +
+            "desalojado AS (" +
+            "  UPDATE passageiro_viagem p SET assento_id = NULL FROM alvo " +
+            "  WHERE p.assento_id = alvo.id AND p.id <> :id), " +
+            "liberado AS (" +
+            "  UPDATE assento a SET ocupado = FALSE FROM passageiro_viagem p " +
+            "  WHERE p.id = :id AND a.id = p.assento_id AND a.id NOT IN (SELECT id FROM alvo)), " +
+            "ocupado AS (" +
+            "  UPDATE assento a SET ocupado = TRUE FROM existente WHERE a.id = existente.id) " +
+            "UPDATE passageiro_viagem SET assento_id = (SELECT id FROM alvo) WHERE id = :id",
+            nativeQuery = true)
+    int ocuparAssento(@Param("id") Long id, @Param("viagemId") Long viagemId,
+                      @Param("onibusId") Long onibusId, @Param("numero") String numero);
+
+    // Libera o assento do passageiro (assento e vínculo em um único comando)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "assento")})
+    @Query(value = "WITH liberado AS (" +
+            "  UPDATE assento a SET ocupado = FALSE FROM passageiro_viagem p " +
+            "  WHERE p.id = :id AND a.id = p.assento_id) " +
+            "UPDATE passageiro_viagem SET assento_id = NULL WHERE id = :id",
+            nativeQuery = true)
+    int liberarAssento(@Param("id") Long id);
+
+    // Troca os assentos de dois passageiros em um único UPDATE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"))
+    @Query(value = "UPDATE passageiro_viagem p " +
+            "SET assento_id = CASE WHEN p.id = :id THEN b.assento_id ELSE a.assento_id END " +
+            "FROM passageiro_viagem a, passageiro_viagem b " +
+            "WHERE a.id = :id AND b.id = :outroId AND p.id IN (:id, :outroId)",
+            nativeQuery = true)
+    int trocarAssentos(@Param("id") Long id, @Param("outroId") Long outroId);
+
+    // Retorna [id, grupo_id, onibus_id do assento, numero do assento] dos passageiros em grupo da viagem
+    @Query(value = "SELECT pv.id, pv.grupo_id, a.onibus_id, a.numero " +
+            "FROM passageiro_viagem pv LEFT JOIN assento a ON a.id = pv.assento_id " +
+            "WHERE pv.viagem_id = :viagemId AND pv.grupo_id IS NOT NULL " +
+            "ORDER BY pv.ordem, pv.id",
+            nativeQuery = true)
+    List<Object[]> findGruposParaAlocacao(@Param("viagemId") Long viagemId);
+
+    // Grava vários vínculos passageiro -> assento em um único UPDATE (arrays pareados por posição)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "passageiro_viagem"))
+    @Query(value = "UPDATE passageiro_viagem pv SET assento_id = t.assento_id " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:assentoIds AS BIGINT[])) AS t(id, assento_id) " +
+            "WHERE pv.id = t.id AND pv.assento_id IS NULL",
+            nativeQuery = true)
+    int atribuirAssentos(@Param("ids") Long[] ids, @Param("assentoIds") Long[] assentoIds);
+
+    // --- TAXISTA EM MASSA ---
+
+    // Atribui (ou remove, com taxistaId null) o taxista de coleta/entrega em um único UPDATE. Retorna os IDs alterados.
+    // Só altera linhas das viagens informadas, que quem chama já travou.
+    @Query(value = "UPDATE passageiro_viagem SET " +
+            "taxista_coleta_id = CASE WHEN :tipo = 'COLETA' THEN CAST(:taxistaId AS BIGINT) ELSE taxista_coleta_id END, " +
+            "taxista_entrega_id = CASE WHEN :tipo = 'ENTREGA' THEN CAST(:taxistaId AS BIGINT) ELSE taxista_entrega_id END " +
+            "WHERE id = ANY(CAST(:ids AS BIGINT[])) AND viagem_id = ANY(CAST(:viagemIds AS BIGINT[])) RETURNING id",
+            nativeQuery = true)
+    List<Long> atribuirTaxista(@Param("ids") Long[] ids, @Param("viagemIds") Long[] viagemIds,
+                               @Param("taxistaId") Long taxistaId, @Param("tipo") String tipo);
+
     // --- HELPERS ---
     @Query("SELECT MIN(pv.ordem) FROM PassageiroViagem pv WHERE pv.viagem.id = :viagemId")
     Integer findMinOrdemByViagemId(@Param("viagemId") Long viagemId);
-
-    @Query("SELECT MAX(pv.ordem) FROM PassageiroViagem pv WHERE pv.viagem.id = :viagemId")
-    Integer findMaxOrdemByViagemId(@Param("viagemId") Long viagemId);
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.partricioturismo.crud.repositories;
 
 import com.partricioturismo.crud.model.Pessoa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +20,24 @@ public interface PessoaRepository extends JpaRepository<Pessoa, Long> {
     boolean existsByCpf(String cpf);
 
     List<Pessoa> findTop10ByNomeContainingIgnoreCaseOrCpf(String nome, String cpf);
+
+    // Carga do índice de busca (PessoaSearchIndex): [id, nome, cpf, idade, telefones, ultima_viagem].
+    // Telefones concatenados com ViagemLinhaView.TELEFONE_SEPARADOR; última viagem em segundos (epoch) ou null.
+    @Query(value = "SELECT p.id, p.nome, p.cpf, p.idade, " +
+            "(SELECT string_agg(t.telefone, chr(31)) FROM pessoa_telefones t WHERE t.pessoa_id = p.id), " +
+            "u.ultima " +
+            "FROM pessoa p LEFT JOIN (" + ULTIMAS_VIAGENS + ") u ON u.pessoa_id = p.id",
+            nativeQuery = true)
+    List<Object[]> findLinhasIndiceBusca();
+
+    // [pessoa_id, ultima_viagem] de quem já viajou (recência usada na ordenação da busca)
+    @Query(value = ULTIMAS_VIAGENS, nativeQuery = true)
+    List<Object[]> findUltimasViagens();
+
+    String ULTIMAS_VIAGENS = "SELECT pv.pessoa_id, CAST(EXTRACT(EPOCH FROM MAX(v.data_hora_partida)) AS bigint) AS ultima " +
+            "FROM passageiro_viagem pv JOIN viagem v ON v.id = pv.viagem_id GROUP BY pv.pessoa_id";
+
+    // Grupo Família: resolve todos os membros em uma única consulta (telefones já carregados)
+    @Query("SELECT DISTINCT p FROM pessoa p LEFT JOIN FETCH p.telefones WHERE p.id IN :ids OR p.cpf IN :cpfs")
+    List<Pessoa> findAllByIdInOrCpfIn(@Param("ids") Collection<Long> ids, @Param("cpfs") Collection<String> cpfs);
 }
\ No newline at end of file
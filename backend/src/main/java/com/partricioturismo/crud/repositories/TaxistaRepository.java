@@ -1,14 +1,23 @@
 package com.partricioturismo.crud.repositories;
 
 import com.partricioturismo.crud.model.Taxista;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface TaxistaRepository extends JpaRepository<Taxista, Long> {
 
+    // Páginas da listagem de taxistas no cache de consultas (invalidadas a cada alteração na tabela taxista)
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "consultas.afiliados")})
+    Page<Taxista> findAll(Pageable pageable);
+
     // Verifica se já existe um taxista vinculado a esta pessoa
     boolean existsByPessoaId(Long pessoaId);
 
@@ -1,12 +1,170 @@
 package com.partricioturismo.crud.repositories;
 
 import com.partricioturismo.crud.model.Viagem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // <--- IMPORTANTE
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ViagemRepository extends JpaRepository<Viagem, Long>, JpaSpecificationExecutor<Viagem> {
     // A query gigante SUMIU.
     // O "JpaSpecificationExecutor" nos dá superpoderes de filtro nativamente.
-}
\ No newline at end of file
+
+    // Viagem com os ônibus já carregados (evita a carga preguiçosa de listaOnibus)
+    @Query("SELECT v FROM Viagem v LEFT JOIN FETCH v.listaOnibus WHERE v.id = :id")
+    Optional<Viagem> findByIdComOnibus(@Param("id") Long id);
+
+    // Ônibus das viagens de uma página em uma única consulta. Retorna [viagem_id, Onibus].
+    @Query("SELECT v.id, o FROM Viagem v JOIN v.listaOnibus o WHERE v.id IN :viagemIds")
+    List<Object[]> findOnibusByViagemIds(@Param("viagemIds") Collection<Long> viagemIds);
+
+    // Primeiro e último ano com viagens (min/max resolvidos pelo índice de data_hora_partida)
+    @Query(value = "SELECT CAST(EXTRACT(YEAR FROM MIN(data_hora_partida)) AS integer), " +
+            "CAST(EXTRACT(YEAR FROM MAX(data_hora_partida)) AS integer) FROM viagem",
+            nativeQuery = true)
+    List<Object[]> findIntervaloAnos();
+
+    // Versão atual do manifesto (busca pela chave primária, sem carregar a viagem)
+    @Query(value = "SELECT manifest_version FROM viagem WHERE id = :viagemId", nativeQuery = true)
+    Optional<Long> findManifestVersion(@Param("viagemId") Long viagemId);
+
+    // Incrementa e devolve a versão do manifesto em uma única ida ao banco.
+    // O UPDATE também trava a linha da viagem, serializando as escritas no manifesto.
+    @Query(value = "UPDATE viagem SET manifest_version = manifest_version + 1 WHERE id = :viagemId RETURNING manifest_version",
+            nativeQuery = true)
+    Long incrementarVersaoManifesto(@Param("viagemId") Long viagemId);
+
+    // As variantes abaixo travam as viagens sempre em ordem de ID (evita deadlock entre escritas em massa)
+    // e retornam [viagem_id, manifest_version] de cada viagem alterada.
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id = ANY(:viagemIds) ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoEm(@Param("viagemIds") Long[] viagemIds);
+
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN " +
+            "(SELECT pv.viagem_id FROM passageiro_viagem pv WHERE pv.id = ANY(:passageiroIds)) ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorPassageiros(@Param("passageiroIds") Long[] passageiroIds);
+
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN " +
+            "(SELECT e.viagem_id FROM encomenda e WHERE e.id = ANY(:encomendaIds)) ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorEncomendas(@Param("encomendaIds") Long[] encomendaIds);
+
+    // Viagens de passageiros e encomendas juntos (atribuição de taxista em massa): uma só ordem de ID para as duas listas
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN (" +
+            "  SELECT pv.viagem_id FROM passageiro_viagem pv WHERE pv.id = ANY(:passageiroIds) " +
+            "  UNION " +
+            "  SELECT e.viagem_id FROM encomenda e WHERE e.id = ANY(:encomendaIds)" +
+            ") ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorPassageirosEEncomendas(@Param("passageiroIds") Long[] passageiroIds,
+                                                                     @Param("encomendaIds") Long[] encomendaIds);
+
+    // Viagens em que a pessoa aparece: passageira, remetente/destinatária ou como taxista/comisseiro.
+    // Todas, inclusive as passadas: o manifesto e os relatórios delas mostram os dados atuais da pessoa.
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN (" +
+            "  SELECT pv.viagem_id FROM passageiro_viagem pv " +
+            "  LEFT JOIN taxista tc ON tc.id = pv.taxista_coleta_id " +
+            "  LEFT JOIN taxista te ON te.id = pv.taxista_entrega_id " +
+            "  LEFT JOIN comisseiro c ON c.id = pv.comisseiro_id " +
+            "  WHERE :pessoaId IN (pv.pessoa_id, tc.pessoa_id, te.pessoa_id, c.pessoa_id) " +
+            "  UNION " +
+            "  SELECT e.viagem_id FROM encomenda e " +
+            "  LEFT JOIN taxista tc ON tc.id = e.taxista_coleta_id " +
+            "  LEFT JOIN taxista te ON te.id = e.taxista_entrega_id " +
+            "  LEFT JOIN comisseiro c ON c.id = e.comisseiro_id " +
+            "  WHERE :pessoaId IN (e.remetente_id, e.destinatario_id, tc.pessoa_id, te.pessoa_id, c.pessoa_id)" +
+            ") ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorPessoa(@Param("pessoaId") Long pessoaId);
+
+    // Viagens com passageiro ou encomenda que usam o endereço (coleta ou entrega)
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN (" +
+            "  SELECT pv.viagem_id FROM passageiro_viagem pv " +
+            "  WHERE :enderecoId IN (pv.endereco_coleta_id, pv.endereco_entrega_id) " +
+            "  UNION " +
+            "  SELECT e.viagem_id FROM encomenda e " +
+            "  WHERE :enderecoId IN (e.endereco_coleta_id, e.endereco_entrega_id)" +
+            ") ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorEndereco(@Param("enderecoId") Long enderecoId);
+
+    // Viagens que usam o ônibus (placa, modelo e layout vão no manifesto)
+    @Query(value = "UPDATE viagem v SET manifest_version = v.manifest_version + 1 " +
+            "WHERE v.id IN (SELECT t.id FROM viagem t WHERE t.id IN (" +
+            "  SELECT vo.viagem_id FROM viagem_onibus vo WHERE vo.onibus_id = :onibusId" +
+            ") ORDER BY t.id FOR UPDATE) " +
+            "RETURNING v.id, v.manifest_version",
+            nativeQuery = true)
+    List<Object[]> incrementarVersaoManifestoPorOnibus(@Param("onibusId") Long onibusId);
+
+    // Retorna [viagem_id, onibus_id, assentos_ocupados, capacidade_passageiros] dos ônibus das viagens (contadores, sem count)
+    @Query(value = "SELECT vo.viagem_id, vo.onibus_id, vo.assentos_ocupados, o.capacidade_passageiros " +
+            "FROM viagem_onibus vo JOIN onibus o ON o.id = vo.onibus_id WHERE vo.viagem_id IN (:viagemIds)",
+            nativeQuery = true)
+    List<Object[]> findOcupacaoOnibus(@Param("viagemIds") Collection<Long> viagemIds);
+
+    // --- REPARO DOS CONTADORES (V26) ---
+    // Recalculam só as linhas divergentes e retornam quantas foram corrigidas
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "viagem"))
+    @Query(value = "UPDATE viagem v SET total_passageiros = c.passageiros, total_encomendas = c.encomendas " +
+            "FROM (SELECT t.id, " +
+            "  (SELECT count(*) FROM passageiro_viagem pv WHERE pv.viagem_id = t.id) AS passageiros, " +
+            "  (SELECT count(*) FROM encomenda e WHERE e.viagem_id = t.id) AS encomendas " +
+            "  FROM viagem t) c " +
+            "WHERE v.id = c.id AND (v.total_passageiros <> c.passageiros OR v.total_encomendas <> c.encomendas)",
+            nativeQuery = true)
+    int repararTotais();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "viagem_onibus"))
+    @Query(value = "UPDATE viagem_onibus vo SET assentos_ocupados = c.ocupados " +
+            "FROM (SELECT t.viagem_id, t.onibus_id, " +
+            "  (SELECT count(*) FROM passageiro_viagem pv JOIN assento a ON a.id = pv.assento_id " +
+            "   WHERE a.viagem_id = t.viagem_id AND a.onibus_id = t.onibus_id) AS ocupados " +
+            "  FROM viagem_onibus t) c " +
+            "WHERE vo.viagem_id = c.viagem_id AND vo.onibus_id = c.onibus_id AND vo.assentos_ocupados <> c.ocupados",
+            nativeQuery = true)
+    int repararOcupacaoOnibus();
+
+    // Reserva 'quantidade' posições no fim da lista e devolve a primeira delas (uma ida ao banco, sem corrida)
+    @Query(value = "UPDATE viagem SET proxima_ordem = proxima_ordem + :quantidade * :intervalo " +
+            "WHERE id = :viagemId RETURNING proxima_ordem - :quantidade * :intervalo",
+            nativeQuery = true)
+    Integer reservarOrdens(@Param("viagemId") Long viagemId,
+                           @Param("quantidade") int quantidade,
+                           @Param("intervalo") int intervalo);
+
+    // Após renumerar a lista, reposiciona o contador logo após a maior posição
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "viagem"))
+    @Query(value = "UPDATE viagem SET proxima_ordem = " +
+            "(SELECT COALESCE(MAX(pv.ordem), -:intervalo) + :intervalo FROM passageiro_viagem pv WHERE pv.viagem_id = :viagemId) " +
+            "WHERE id = :viagemId",
+            nativeQuery = true)
+    int sincronizarProximaOrdem(@Param("viagemId") Long viagemId, @Param("intervalo") int intervalo);
+}
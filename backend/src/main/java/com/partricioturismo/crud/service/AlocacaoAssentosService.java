@@ -0,0 +1,263 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.AutoAssentoResponseDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import com.partricioturismo.crud.model.Assento;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.Viagem;
+import com.partricioturismo.crud.repositories.AssentoRepository;
+import com.partricioturismo.crud.repositories.PassageiroViagemRepository;
+import com.partricioturismo.crud.repositories.ViagemRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Alocação automática de assentos vizinhos para os grupos (grupoId) de uma viagem.
+ * Cada ônibus usa o grafo de adjacência do seu layout já compilado (LayoutOnibus).
+ * Os grupos, do maior para o menor, recebem o bloco de assentos livres mais compacto
+ * (menos fileiras) encontrado a partir de cada assento livre. Tudo é gravado em lote no fim.
+ */
+@Service
+public class AlocacaoAssentosService {
+
+    @Autowired private ViagemRepository viagemRepository;
+    @Autowired private PassageiroViagemRepository passageiroViagemRepository;
+    @Autowired private AssentoRepository assentoRepository;
+    @Autowired private AssentoService assentoService;
+    @Autowired private SeatInventory seatInventory;
+    @Autowired private ManifestoService manifestoService;
+
+    @Transactional
+    public AutoAssentoResponseDto alocarGrupos(Long viagemId, List<String> grupoIds) {
+        Viagem viagem = viagemRepository.findByIdComOnibus(viagemId)
+                .orElseThrow(() -> new EntityNotFoundException("Viagem não encontrada"));
+        long versao = manifestoService.registrarAlteracao(viagemId);
+        seatInventory.travar(viagemId);
+
+        // 1. Grafo de cada ônibus com a ocupação atual
+        Map<Long, Grafo> grafos = new LinkedHashMap<>();
+        for (Onibus onibus : viagem.getListaOnibus()) {
+            Grafo grafo = new Grafo(onibus.getIdOnibus(), assentoService.getLayout(onibus));
+            for (Integer numero : seatInventory.ocupados(viagemId, onibus.getIdOnibus())) grafo.ocupar(numero);
+            grafos.put(onibus.getIdOnibus(), grafo);
+        }
+
+        // 2. Grupos da viagem: quem falta sentar e onde estão os que já sentaram
+        Set<String> filtro = grupoIds == null || grupoIds.isEmpty() ? null : new HashSet<>(grupoIds);
+        Map<String, Grupo> grupos = new LinkedHashMap<>();
+        for (Object[] linha : passageiroViagemRepository.findGruposParaAlocacao(viagemId)) {
+            String grupoId = (String) linha[1];
+            if (filtro != null && !filtro.contains(grupoId)) continue;
+            Grupo grupo = grupos.computeIfAbsent(grupoId, Grupo::new);
+            Long passageiroId = ((Number) linha[0]).longValue();
+            if (linha[3] == null) {
+                grupo.pendentes.add(passageiroId);
+            } else if (linha[2] == null) {
+                continue; // Assento antigo sem ônibus: fica onde está
+            } else if (grupo.onibusId == null) {
+                grupo.onibusId = ((Number) linha[2]).longValue();
+                grupo.sentados.add(SeatInventory.indice((String) linha[3]));
+            } else if (grupo.onibusId.equals(((Number) linha[2]).longValue())) {
+                grupo.sentados.add(SeatInventory.indice((String) linha[3]));
+            }
+        }
+
+        // 3. Empacotamento guloso: maiores grupos primeiro
+        List<Grupo> ordenados = new ArrayList<>(grupos.values());
+        ordenados.removeIf(g -> g.pendentes.isEmpty());
+        ordenados.sort(Comparator.comparingInt((Grupo g) -> g.pendentes.size()).reversed());
+
+        List<Long> passageiros = new ArrayList<>();
+        List<Long> onibusEscolhidos = new ArrayList<>();
+        List<Integer> numerosEscolhidos = new ArrayList<>();
+        List<String> naoAlocados = new ArrayList<>();
+
+        for (Grupo grupo : ordenados) {
+            int[] melhor = null;
+            Grafo escolhido = null;
+            // Grupo já parcialmente sentado cresce a partir dos próprios assentos, no mesmo ônibus
+            for (Grafo grafo : grupo.onibusId != null ? List.of(grafos.get(grupo.onibusId)) : grafos.values()) {
+                if (grafo == null) continue;
+                int[] bloco = grafo.melhorBloco(grupo.sentados, grupo.pendentes.size());
+                if (bloco != null && (melhor == null || grafo.fileirasOcupadas(bloco) < escolhido.fileirasOcupadas(melhor))) {
+                    melhor = bloco;
+                    escolhido = grafo;
+                }
+            }
+            if (melhor == null) {
+                naoAlocados.add(grupo.grupoId);
+                continue;
+            }
+            for (int i = 0; i < melhor.length; i++) {
+                escolhido.livre[melhor[i]] = false;
+                passageiros.add(grupo.pendentes.get(i));
+                onibusEscolhidos.add(escolhido.onibusId);
+                numerosEscolhidos.add(escolhido.numeros[melhor[i]]);
+            }
+        }
+
+        if (!passageiros.isEmpty()) {
+            gravar(viagem, passageiros, onibusEscolhidos, numerosEscolhidos);
+        }
+        manifestoService.publicarPassageiros(viagemId, versao, TipoAlteracao.ASSENTO_ALTERADO, passageiros);
+        return new AutoAssentoResponseDto(passageiros.size(), naoAlocados);
+    }
+
+    // Resolve os IDs dos assentos (criando os que faltam) e grava tudo em dois UPDATEs
+    private void gravar(Viagem viagem, List<Long> passageiros, List<Long> onibus, List<Integer> numeros) {
+        Map<String, Long> assentoIds = new HashMap<>();
+        for (Object[] linha : assentoRepository.findResumoByViagemId(viagem.getId())) {
+            if (linha[1] == null) continue;
+            int indice = SeatInventory.indice((String) linha[2]);
+            if (indice >= 0) assentoIds.putIfAbsent(chave(((Number) linha[1]).longValue(), indice), ((Number) linha[0]).longValue());
+        }
+
+        Map<Long, Onibus> onibusPorId = new HashMap<>();
+        for (Onibus o : viagem.getListaOnibus()) onibusPorId.put(o.getIdOnibus(), o);
+
+        Map<String, Assento> novos = new LinkedHashMap<>();
+        for (int i = 0; i < passageiros.size(); i++) {
+            String chave = chave(onibus.get(i), numeros.get(i));
+            if (!assentoIds.containsKey(chave) && !novos.containsKey(chave)) {
+                Assento a = new Assento();
+                a.setViagem(viagem); a.setOnibus(onibusPorId.get(onibus.get(i)));
+                a.setNumero(String.valueOf(numeros.get(i))); a.setOcupado(true);
+                novos.put(chave, a);
+            }
+        }
+        if (!novos.isEmpty()) {
+            for (Assento a : SeatInventory.semConflito(() -> assentoRepository.saveAllAndFlush(novos.values()))) {
+                assentoIds.put(chave(a.getOnibus().getIdOnibus(), SeatInventory.indice(a.getNumero())), a.getId());
+            }
+        }
+
+        Long[] ids = passageiros.toArray(new Long[0]);
+        Long[] assentos = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            assentos[i] = assentoIds.get(chave(onibus.get(i), numeros.get(i)));
+            seatInventory.ocupar(viagem.getId(), onibus.get(i), String.valueOf(numeros.get(i)));
+        }
+        SeatInventory.semConflito(() -> passageiroViagemRepository.atribuirAssentos(ids, assentos));
+        assentoRepository.marcarOcupados(assentos);
+    }
+
+    private static String chave(Long onibusId, int numero) {
+        return onibusId + ":" + numero;
+    }
+
+    private static final class Grupo {
+        final String grupoId;
+        final List<Long> pendentes = new ArrayList<>();
+        final List<Integer> sentados = new ArrayList<>();
+        Long onibusId;
+
+        Grupo(String grupoId) { this.grupoId = grupoId; }
+    }
+
+    /**
+     * Grafo de adjacência de um ônibus (LayoutOnibus, compartilhado) com a ocupação desta alocação.
+     * Os assentos são índices 0..n-1 em ordem de leitura do layout.
+     */
+    static final class Grafo {
+        final Long onibusId;
+        final int[] numeros;
+        final int[] fileiras;
+        final int[][] vizinhos;
+        final int[][] custos;
+        final boolean[] livre;
+        private final LayoutOnibus layout;
+
+        Grafo(Long onibusId, LayoutOnibus layout) {
+            this.onibusId = onibusId;
+            this.layout = layout;
+            this.numeros = layout.numeros();
+            this.fileiras = layout.fileiras();
+            this.vizinhos = layout.vizinhos();
+            this.custos = layout.custos();
+            this.livre = new boolean[numeros.length];
+            Arrays.fill(livre, true);
+        }
+
+        void ocupar(int numero) {
+            int i = layout.indice(numero);
+            if (i >= 0) livre[i] = false;
+        }
+
+        /**
+         * Melhor bloco de 'quantidade' assentos livres conectados, ou null se não houver.
+         * Com 'sentados', o bloco cresce a partir deles; senão testa cada assento livre como ponto de partida.
+         */
+        int[] melhorBloco(List<Integer> sentados, int quantidade) {
+            if (!sentados.isEmpty()) {
+                List<Integer> origens = new ArrayList<>();
+                for (Integer numero : sentados) {
+                    int i = layout.indice(numero);
+                    if (i >= 0) origens.add(i);
+                }
+                if (!origens.isEmpty()) return crescer(origens, quantidade, false);
+            }
+
+            int[] melhor = null;
+            int melhorFileiras = Integer.MAX_VALUE;
+            for (int i = 0; i < numeros.length && melhorFileiras > 1; i++) {
+                if (!livre[i]) continue;
+                int[] bloco = crescer(List.of(i), quantidade, true);
+                if (bloco == null) continue;
+                int fileirasBloco = fileirasOcupadas(bloco);
+                if (fileirasBloco < melhorFileiras) {
+                    melhor = bloco;
+                    melhorFileiras = fileirasBloco;
+                }
+            }
+            return melhor;
+        }
+
+        // Expansão de menor custo (Prim) a partir das origens, só por assentos livres
+        private int[] crescer(List<Integer> origens, int quantidade, boolean origemEntra) {
+            int[] bloco = new int[quantidade];
+            int tamanho = 0;
+            boolean[] visitado = new boolean[numeros.length];
+            PriorityQueue<int[]> fronteira = new PriorityQueue<>(Comparator.<int[]>comparingInt(a -> a[0]).thenComparingInt(a -> a[1]));
+
+            for (int origem : origens) {
+                visitado[origem] = true;
+                if (origemEntra) bloco[tamanho++] = origem;
+                for (int k = 0; k < vizinhos[origem].length; k++) {
+                    fronteira.add(new int[]{custos[origem][k], vizinhos[origem][k]});
+                }
+            }
+            while (tamanho < quantidade && !fronteira.isEmpty()) {
+                int atual = fronteira.poll()[1];
+                if (visitado[atual] || !livre[atual]) continue;
+                visitado[atual] = true;
+                bloco[tamanho++] = atual;
+                for (int k = 0; k < vizinhos[atual].length; k++) {
+                    if (!visitado[vizinhos[atual][k]]) fronteira.add(new int[]{custos[atual][k], vizinhos[atual][k]});
+                }
+            }
+            return tamanho == quantidade ? bloco : null;
+        }
+
+        int fileirasOcupadas(int[] bloco) {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i : bloco) {
+                min = Math.min(min, fileiras[i]);
+                max = Math.max(max, fileiras[i]);
+            }
+            return max - min + 1;
+        }
+    }
+}
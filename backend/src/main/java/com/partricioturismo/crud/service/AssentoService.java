@@ -1,17 +1,14 @@
 package com.partricioturismo.crud.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.partricioturismo.crud.dtos.AssentoDto;
-import com.partricioturismo.crud.dtos.AssentoLayoutDto;
+import com.partricioturismo.crud.dtos.OcupacaoAssentosDto;
 import com.partricioturismo.crud.model.Onibus;
 import com.partricioturismo.crud.repositories.AssentoRepository;
-import com.partricioturismo.crud.repositories.OnibusRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,10 +18,10 @@ public class AssentoService {
     private AssentoRepository assentoRepository;
 
     @Autowired
-    private OnibusRepository onibusRepository;
+    private SeatInventory seatInventory;
 
-    // Ferramenta para ler o JSON
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private LayoutOnibusCache layoutOnibusCache;
 
     /**
      * Busca assentos ocupados (Lógica original da viagem)
@@ -37,64 +34,24 @@ public class AssentoService {
     }
 
     /**
-     * NOVA FUNCIONALIDADE: Gera o mapa visual dos assentos.
-     * Prioridade: Layout JSON > Layout Genérico
+     * Ocupação de um ônibus da viagem, lida do mapa em memória (sem consulta após a primeira carga).
      */
-    public List<List<AssentoLayoutDto>> getMapaAssentos(Long onibusId) {
-        Onibus onibus = onibusRepository.findById(onibusId)
-                .orElseThrow(() -> new RuntimeException("Ônibus não encontrado"));
-
-        // 1. Estratégia JSON (Customizado)
-        if (onibus.getLayoutJson() != null && !onibus.getLayoutJson().isBlank()) {
-            try {
-                List<List<Integer>> matriz = objectMapper.readValue(
-                        onibus.getLayoutJson(),
-                        new TypeReference<List<List<Integer>>>(){}
-                );
-                return converterMatrizParaDto(matriz);
-            } catch (Exception e) {
-                System.err.println("Erro ao ler layout JSON, usando fallback: " + e.getMessage());
-            }
-        }
-
-        // 2. Estratégia Genérica (Fallback)
-        return gerarLayoutPadrao(onibus.getCapacidadePassageiros());
+    public OcupacaoAssentosDto getOcupacao(Long viagemId, Long onibusId) {
+        return new OcupacaoAssentosDto(viagemId, onibusId, seatInventory.ocupados(viagemId, onibusId));
     }
 
-    private List<List<AssentoLayoutDto>> converterMatrizParaDto(List<List<Integer>> matriz) {
-        List<List<AssentoLayoutDto>> layoutVisual = new ArrayList<>();
-
-        for (List<Integer> fileiraNumeros : matriz) {
-            List<AssentoLayoutDto> fileiraDtos = new ArrayList<>();
-            for (Integer numero : fileiraNumeros) {
-                if (numero == 0) {
-                    fileiraDtos.add(new AssentoLayoutDto(null, "VAZIO"));
-                } else {
-                    // Regra: Par = Corredor, Ímpar = Janela
-                    String tipo = (numero % 2 == 0) ? "CORREDOR" : "JANELA";
-                    String numeroFormatado = String.format("%02d", numero);
-                    fileiraDtos.add(new AssentoLayoutDto(numeroFormatado, tipo));
-                }
-            }
-            layoutVisual.add(fileiraDtos);
-        }
-        return layoutVisual;
+    /**
+     * Mapa visual dos assentos, já interpretado e serializado (LayoutOnibusCache).
+     * Prioridade: Layout JSON > Layout Genérico
+     */
+    public Optional<LayoutOnibus> getLayout(Long onibusId) {
+        return layoutOnibusCache.doOnibus(onibusId);
     }
 
-    private List<List<AssentoLayoutDto>> gerarLayoutPadrao(int total) {
-        List<List<AssentoLayoutDto>> layout = new ArrayList<>();
-        int assentoAtual = 1;
-
-        while (assentoAtual <= total) {
-            List<AssentoLayoutDto> fileira = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                if (assentoAtual > total) break;
-                String tipo = (assentoAtual % 2 == 0) ? "CORREDOR" : "JANELA";
-                fileira.add(new AssentoLayoutDto(String.format("%02d", assentoAtual), tipo));
-                assentoAtual++;
-            }
-            layout.add(fileira);
-        }
-        return layout;
+    /**
+     * Mesmo layout, para um ônibus já carregado (ex.: listaOnibus da viagem).
+     */
+    public LayoutOnibus getLayout(Onibus onibus) {
+        return layoutOnibusCache.doOnibus(onibus);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.partricioturismo.crud.service;
 
 import com.partricioturismo.crud.dtos.BagagemDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
 import com.partricioturismo.crud.model.Bagagem;
 import com.partricioturismo.crud.model.PassageiroViagem;
 import com.partricioturismo.crud.model.Pessoa;
@@ -12,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors; // Importe esta classe
@@ -25,6 +27,8 @@ public class BagagemService {
     private PessoaRepository pessoaRepository;
     @Autowired
     private PassageiroViagemRepository passageiroViagemRepository;
+    @Autowired
+    private ManifestoService manifestoService;
 
     // --- NOVO MÉTODO HELPER ---
     // Converte a entidade Bagagem para o BagagemDto
@@ -60,6 +64,14 @@ public class BagagemService {
         return repository.findById(id).map(this::convertToDto);
     }
 
+    // Muda a versão do manifesto do passageiro atual da bagagem e, se for o caso, do novo
+    private void registrarAlteracao(Bagagem bagagem, Long novoPassageiroViagemId) {
+        List<Long> passageiros = new ArrayList<>();
+        if (bagagem.getPassageiroViagem() != null) passageiros.add(bagagem.getPassageiroViagem().getId());
+        if (novoPassageiroViagemId != null) passageiros.add(novoPassageiroViagemId);
+        manifestoService.registrarAlteracaoPorPassageiros(passageiros, TipoAlteracao.PASSAGEIRO_ATUALIZADO);
+    }
+
     // Método auxiliar para carregar as entidades (sem alteração)
     private Bagagem carregarEntidades(Bagagem bagagem, BagagemDto dto) {
         // 1. Busca Responsável (obrigatório)
@@ -81,6 +93,9 @@ public class BagagemService {
 
     @Transactional
     public BagagemDto save(BagagemDto dto) { // Retorno alterado para DTO
+        if (dto.passageiroViagemId() != null) {
+            manifestoService.registrarAlteracaoPorPassageiros(List.of(dto.passageiroViagemId()), TipoAlteracao.PASSAGEIRO_ATUALIZADO);
+        }
         Bagagem bagagem = new Bagagem();
         BeanUtils.copyProperties(dto, bagagem); // Copia peso e descricao
         bagagem = carregarEntidades(bagagem, dto); // Busca e seta as entidades
@@ -96,6 +111,7 @@ public class BagagemService {
         }
 
         Bagagem bagagemModel = optionalBagagem.get();
+        registrarAlteracao(bagagemModel, dto.passageiroViagemId());
         BeanUtils.copyProperties(dto, bagagemModel, "id"); // Copia peso e descricao
         bagagemModel = carregarEntidades(bagagemModel, dto); // Atualiza as entidades
         Bagagem bagagemAtualizada = repository.save(bagagemModel);
@@ -108,6 +124,7 @@ public class BagagemService {
         if (optionalBagagem.isEmpty()) {
             return false;
         }
+        registrarAlteracao(optionalBagagem.get(), null);
         repository.delete(optionalBagagem.get());
         return true;
     }
@@ -0,0 +1,197 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.EnderecoDto;
+import com.partricioturismo.crud.dtos.ViaCepResponseDto;
+import com.partricioturismo.crud.model.CepCache;
+import com.partricioturismo.crud.repositories.CepCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache das consultas de CEP ao ViaCEP, em dois níveis:
+ * 1. memória: LRU limitado a 'cep.cache.max-entradas', com validade;
+ * 2. tabela cep_cache: sobrevive a reinícios.
+ * "CEP inexistente" também fica guardado (validade menor). Consultas simultâneas ao mesmo CEP
+ * esperam uma única chamada ao ViaCEP. Se o ViaCEP falhar, a última resposta conhecida é usada
+ * mesmo vencida.
+ *
+ * Métricas: cep.cache.consultas (tag origem), cep.cache.falhas, cep.viacep.latencia, cep.cache.memoria.tamanho.
+ */
+@Service
+public class CepCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(CepCacheService.class);
+
+    private final ViaCepClient viaCep;
+    private final CepCacheRepository repository;
+    private final Duration ttl;
+    private final Duration ttlNegativo;
+
+    // CEP -> resposta (endereco null = CEP inexistente)
+    private record Entrada(EnderecoDto endereco, Instant atualizadoEm) {
+        Optional<EnderecoDto> resultado() { return Optional.ofNullable(endereco); }
+    }
+
+    private final Map<String, Entrada> memoria;
+    private final Map<String, CompletableFuture<Entrada>> emAndamento = new ConcurrentHashMap<>();
+
+    private final Counter acertosMemoria;
+    private final Counter acertosBanco;
+    private final Counter consultasViaCep;
+    private final Counter aguardaram;
+    private final Counter vencidosUsados;
+    private final Counter falhas;
+    private final Timer latenciaViaCep;
+
+    public CepCacheService(ViaCepClient viaCep,
+                           CepCacheRepository repository,
+                           MeterRegistry metricas,
+                           @Value("${cep.cache.max-entradas:10000}") int maxEntradas,
+                           @Value("${cep.cache.ttl-horas:720}") long ttlHoras,
+                           @Value("${cep.cache.ttl-negativo-horas:24}") long ttlNegativoHoras) {
+        this.viaCep = viaCep;
+        this.repository = repository;
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.ttlNegativo = Duration.ofHours(ttlNegativoHoras);
+        this.memoria = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                return size() > maxEntradas;
+            }
+        });
+
+        this.acertosMemoria = consultas(metricas, "memoria");
+        this.acertosBanco = consultas(metricas, "banco");
+        this.consultasViaCep = consultas(metricas, "viacep");
+        this.aguardaram = consultas(metricas, "aguardou");
+        this.vencidosUsados = consultas(metricas, "vencido");
+        this.falhas = Counter.builder("cep.cache.falhas")
+                .description("ViaCEP indisponível sem resposta guardada").register(metricas);
+        this.latenciaViaCep = Timer.builder("cep.viacep.latencia")
+                .description("Tempo das chamadas ao ViaCEP").register(metricas);
+        metricas.gauge("cep.cache.memoria.tamanho", memoria, Map::size);
+    }
+
+    /**
+     * Endereço do CEP (com ou sem pontuação). Vazio quando o CEP não existe.
+     * IllegalArgumentException para formato inválido; IllegalStateException quando o ViaCEP
+     * está fora e o CEP nunca foi consultado.
+     */
+    public Optional<EnderecoDto> consultar(String cep) {
+        String digitos = TextoNormalizador.digitos(cep);
+        if (digitos.length() != 8) {
+            throw new IllegalArgumentException("CEP inválido. Deve conter 8 dígitos.");
+        }
+
+        Entrada naMemoria = memoria.get(digitos);
+        if (naMemoria != null && valida(naMemoria)) {
+            acertosMemoria.increment();
+            return naMemoria.resultado();
+        }
+
+        // Só a primeira requisição de um CEP vai ao banco/ViaCEP; as demais esperam o resultado dela
+        CompletableFuture<Entrada> minha = new CompletableFuture<>();
+        CompletableFuture<Entrada> emCurso = emAndamento.putIfAbsent(digitos, minha);
+        if (emCurso != null) {
+            aguardaram.increment();
+            return aguardar(emCurso).resultado();
+        }
+        try {
+            Entrada entrada = carregar(digitos, naMemoria);
+            minha.complete(entrada);
+            return entrada.resultado();
+        } catch (RuntimeException e) {
+            minha.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(digitos, minha);
+        }
+    }
+
+    private Entrada carregar(String cep, Entrada vencidaNaMemoria) {
+        // 2º nível: tabela cep_cache
+        Entrada doBanco = repository.findById(cep).map(CepCacheService::entradaDo).orElse(null);
+        if (doBanco != null && valida(doBanco)) {
+            acertosBanco.increment();
+            memoria.put(cep, doBanco);
+            return doBanco;
+        }
+
+        Optional<ViaCepResponseDto> resposta;
+        try {
+            resposta = latenciaViaCep.record(() -> viaCep.consultar(cep));
+        } catch (RuntimeException e) {
+            // ViaCEP lento ou fora: a última resposta conhecida, mesmo vencida, é melhor que nenhuma
+            Entrada vencida = doBanco != null ? doBanco : vencidaNaMemoria;
+            if (vencida != null) {
+                vencidosUsados.increment();
+                log.warn("ViaCEP indisponível ({}); usando resposta guardada do CEP {}", e.getMessage(), cep);
+                return vencida;
+            }
+            falhas.increment();
+            throw new IllegalStateException("Serviço ViaCEP indisponível: " + e.getMessage());
+        }
+        consultasViaCep.increment();
+
+        EnderecoDto endereco = resposta.map(r -> new EnderecoDto(
+                null, r.logradouro(), null, r.bairro(), r.localidade(), r.uf(), r.cep())).orElse(null);
+        Entrada nova = new Entrada(endereco, Instant.now());
+        try {
+            repository.gravar(cep, endereco != null,
+                    endereco == null ? null : endereco.logradouro(),
+                    endereco == null ? null : endereco.bairro(),
+                    endereco == null ? null : endereco.cidade(),
+                    endereco == null ? null : endereco.estado());
+        } catch (RuntimeException e) {
+            // Sem o 2º nível a resposta ainda vale para a memória
+            log.warn("Não foi possível gravar o CEP {} em cep_cache: {}", cep, e.getMessage());
+        }
+        memoria.put(cep, nova);
+        return nova;
+    }
+
+    private boolean valida(Entrada entrada) {
+        Duration validade = entrada.endereco() != null ? ttl : ttlNegativo;
+        return entrada.atualizadoEm().plus(validade).isAfter(Instant.now());
+    }
+
+    private static Entrada aguardar(CompletableFuture<Entrada> emCurso) {
+        try {
+            return emCurso.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw e;
+        }
+    }
+
+    private static Entrada entradaDo(CepCache salvo) {
+        EnderecoDto endereco = salvo.isEncontrado()
+                ? new EnderecoDto(null, salvo.getLogradouro(), null, salvo.getBairro(), salvo.getCidade(), salvo.getEstado(),
+                        salvo.getCep().substring(0, 5) + "-" + salvo.getCep().substring(5))
+                : null;
+        return new Entrada(endereco, salvo.getAtualizadoEm().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Counter consultas(MeterRegistry metricas, String origem) {
+        return Counter.builder("cep.cache.consultas")
+                .description("Consultas de CEP por origem da resposta")
+                .tag("origem", origem)
+                .register(metricas);
+    }
+}
@@ -0,0 +1,34 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.repositories.ViagemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reparo dos contadores mantidos por trigger (viagem.total_passageiros, viagem.total_encomendas
+ * e viagem_onibus.assentos_ocupados). Em operação normal não há nada a corrigir; o job existe para
+ * escritas feitas fora da aplicação ou com os triggers desligados (restauração de backup, por exemplo).
+ */
+@Service
+public class ContadoresViagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadoresViagemService.class);
+
+    @Autowired private ViagemRepository viagemRepository;
+
+    // Retorna quantas linhas estavam divergentes
+    @Scheduled(cron = "${contadores.reparo-cron:0 0 4 * * *}")
+    @Transactional
+    public int reparar() {
+        int totais = viagemRepository.repararTotais();
+        int ocupacao = viagemRepository.repararOcupacaoOnibus();
+        if (totais + ocupacao > 0) {
+            log.warn("Contadores corrigidos: {} viagens, {} ônibus de viagem", totais, ocupacao);
+        }
+        return totais + ocupacao;
+    }
+}
@@ -0,0 +1,27 @@
+package com.partricioturismo.crud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco das listagens por keyset: base64url("dataHoraPartida|id") do último item entregue.
+ */
+record CursorPaginacao(LocalDateTime partida, Long id) {
+
+    String codificar() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((partida + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor nulo ou vazio: primeira página
+    static CursorPaginacao decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (partes.length != 2) throw new IllegalArgumentException();
+            return new CursorPaginacao(LocalDateTime.parse(partes[0]), Long.parseLong(partes[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.partricioturismo.crud.service;
 
 import com.partricioturismo.crud.dtos.EncomendaSaveRequestDto;
 import com.partricioturismo.crud.dtos.EncomendaResponseDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
 import com.partricioturismo.crud.model.*;
 import com.partricioturismo.crud.repositories.*;
 import jakarta.persistence.EntityNotFoundException;
@@ -10,7 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -23,35 +26,39 @@ public class EncomendaService {
     @Autowired private EnderecoRepository enderecoRepository;
     @Autowired private TaxistaRepository taxistaRepository;
     @Autowired private ComisseiroRepository comisseiroRepository;
+    @Autowired private ManifestoService manifestoService;
 
     // === NOVO MÉTODO: ATRIBUIR TAXISTA EM MASSA ===
-    @Transactional
-    public void atribuirTaxistaEmMassa(List<Long> ids, Long taxistaId, String tipo) {
-        if (ids == null || ids.isEmpty()) return;
-
-        // Busca o taxista (pode ser null se for para desvincular)
-        Taxista taxista = null;
-        if (taxistaId != null) {
-            taxista = taxistaRepository.findById(taxistaId)
-                    .orElseThrow(() -> new EntityNotFoundException("Taxista não encontrado"));
+    // Valida a atribuição (PassageiroViagemService.atribuirTaxistaEmMassa) antes de travar qualquer coisa.
+    // taxistaId null remove o taxista. Retorna o tipo como o UPDATE compara.
+    String validarAtribuicao(Long taxistaId, String tipo) {
+        String tipoAtribuicao = tipoAtribuicao(tipo);
+        if (taxistaId != null && !taxistaRepository.existsById(taxistaId)) {
+            throw new EntityNotFoundException("Taxista não encontrado");
         }
+        return tipoAtribuicao;
+    }
 
-        List<Encomenda> lista = repository.findAllById(ids);
+    // Um único UPDATE para todas as encomendas; retorna os IDs realmente alterados.
+    // As viagens já devem estar travadas por quem chama (viagem antes da linha, como nas demais escritas).
+    List<Long> atribuirTaxista(Long[] ids, Long[] viagemIds, Long taxistaId, String tipoAtribuicao) {
+        if (ids.length == 0) return List.of();
+        return repository.atribuirTaxista(ids, viagemIds, taxistaId, tipoAtribuicao);
+    }
 
-        for (Encomenda enc : lista) {
-            if ("COLETA".equalsIgnoreCase(tipo)) {
-                enc.setTaxistaColeta(taxista);
-            } else if ("ENTREGA".equalsIgnoreCase(tipo)) {
-                enc.setTaxistaEntrega(taxista);
-            }
-            repository.save(enc);
+    // COLETA ou ENTREGA (maiúsculas, como o UPDATE compara); IllegalArgumentException para o resto
+    static String tipoAtribuicao(String tipo) {
+        if (tipo == null || !(tipo.equalsIgnoreCase("COLETA") || tipo.equalsIgnoreCase("ENTREGA"))) {
+            throw new IllegalArgumentException("Tipo inválido. Use COLETA ou ENTREGA.");
         }
+        return tipo.toUpperCase();
     }
     // ==============================================
 
     // --- NOVO MÉTODO: ATUALIZAR COR (V11) ---
     @Transactional
     public EncomendaResponseDto updateCor(Long id, String cor) {
+        manifestoService.registrarAlteracaoPorEncomendas(List.of(id), TipoAlteracao.COR_ALTERADA);
         Encomenda encomenda = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Encomenda não encontrada"));
         encomenda.setCorTag(cor);
@@ -77,10 +84,13 @@ public class EncomendaService {
 
     @Transactional
     public EncomendaResponseDto save(EncomendaSaveRequestDto dto) {
+        long versao = manifestoService.registrarAlteracao(dto.viagemId());
         Encomenda encomenda = new Encomenda();
         BeanUtils.copyProperties(dto, encomenda);
         encomenda = carregarEntidades(encomenda, dto);
-        return convertToDto(repository.save(encomenda));
+        encomenda = repository.save(encomenda);
+        manifestoService.publicarEncomendas(dto.viagemId(), versao, TipoAlteracao.ENCOMENDA_ADICIONADA, List.of(encomenda.getId()));
+        return convertToDto(encomenda);
     }
 
     @Transactional
@@ -88,6 +98,9 @@ public class EncomendaService {
         Optional<Encomenda> op = repository.findById(id);
         if(op.isEmpty()) return Optional.empty();
         Encomenda enc = op.get();
+        // A encomenda pode mudar de viagem: as duas versões mudam
+        Map<Long, Long> versoes = manifestoService.registrarAlteracao(Arrays.asList(enc.getViagem() != null ? enc.getViagem().getId() : null, dto.viagemId()));
+        manifestoService.publicar(versoes, TipoAlteracao.ENCOMENDA_ATUALIZADA, null, List.of(id));
         BeanUtils.copyProperties(dto, enc, "id");
         enc = carregarEntidades(enc, dto);
         return Optional.of(convertToDto(repository.save(enc)));
@@ -96,12 +109,14 @@ public class EncomendaService {
     @Transactional
     public boolean delete(Long id) {
         if(!repository.existsById(id)) return false;
+        manifestoService.registrarAlteracaoPorEncomendas(List.of(id), TipoAlteracao.ENCOMENDA_REMOVIDA);
         repository.deleteById(id);
         return true;
     }
 
     @Transactional
     public Optional<EncomendaResponseDto> markAsPaid(Long id) {
+        manifestoService.registrarAlteracaoPorEncomendas(List.of(id), TipoAlteracao.PAGAMENTO_ALTERADO);
         return repository.findById(id).map(e -> {
             e.setPago(true);
             return convertToDto(repository.save(e));
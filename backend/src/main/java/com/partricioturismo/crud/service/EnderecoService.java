@@ -1,13 +1,13 @@
 package com.partricioturismo.crud.service;
 
 import com.partricioturismo.crud.dtos.EnderecoDto;
-import com.partricioturismo.crud.dtos.ViaCepResponseDto;
 import com.partricioturismo.crud.model.Endereco;
 import com.partricioturismo.crud.repositories.EnderecoRepository;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,6 +15,10 @@ import org.springframework.data.domain.Pageable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,13 +27,18 @@ public class EnderecoService {
     @Autowired
     private EnderecoRepository repository;
 
-    private final WebClient webClient;
+    @Autowired
+    private CepCacheService cepCacheService;
 
     @Autowired
-    public EnderecoService(EnderecoRepository repository, WebClient.Builder webClientBuilder) {
-        this.repository = repository;
-        this.webClient = webClientBuilder.baseUrl("https://viacep.com.br/ws").build();
-    }
+    private ManifestoService manifestoService;
+
+    // Consultas de CEP assíncronas; o limite de chamadas simultâneas ao ViaCEP fica no ViaCepClient
+    private final ExecutorService consultasCep = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Tempo máximo da consulta inteira (banco + ViaCEP) antes de responder com erro
+    @Value("${viacep.limite-total-ms:5000}")
+    private long limiteConsultaCepMs;
 
     public Page<EnderecoDto> findAll(Pageable pageable) {
         return repository.findAll(pageable)
@@ -63,6 +72,7 @@ public class EnderecoService {
             return Optional.empty();
         }
         var endereco = enderecoOptional.get();
+        manifestoService.registrarAlteracaoPorEndereco(id);
 
         // Atualiza os campos
         endereco.setLogradouro(dto.logradouro());
@@ -79,52 +89,46 @@ public class EnderecoService {
     @Transactional
     public boolean delete(Long id) {
         if (repository.existsById(id)) {
+            manifestoService.registrarAlteracaoPorEndereco(id);
             repository.deleteById(id);
             return true;
         }
         return false;
     }
 
-    // --- CORREÇÃO DO ERRO DE COMPILAÇÃO AQUI ---
-    public List<EnderecoDto> search(String query) {
-        if (query == null || query.trim().isEmpty()) {
+    // Maior página aceita na busca
+    private static final int LIMITE_MAXIMO_BUSCA = 50;
+
+    // Busca ranqueada por similaridade (índice trigram em endereco.busca), uma página por vez
+    public List<EnderecoDto> search(String query, int page, int size) {
+        String termo = String.join(" ", TextoNormalizador.termosDeBusca(query));
+        if (termo.isEmpty()) {
             return Collections.emptyList();
         }
-        // Agora chama o método correto definido no Repository
-        return repository.search(query)
+        int tamanho = Math.max(1, Math.min(size, LIMITE_MAXIMO_BUSCA));
+        return repository.search(termo, tamanho, Math.max(page, 0) * tamanho)
                 .stream()
                 .map(EnderecoDto::new)
                 .collect(Collectors.toList());
     }
 
+    // Consulta passa pelo cache (memória + cep_cache); só vai ao ViaCEP quando necessário
     public EnderecoDto consultarCep(String cep) {
-        String cepFormatado = cep.replaceAll("[^0-9]", "");
-        if (cepFormatado.length() != 8) {
-            throw new RuntimeException("CEP inválido. Deve conter 8 dígitos.");
-        }
+        return cepCacheService.consultar(cep)
+                .orElseThrow(() -> new RuntimeException("CEP não encontrado."));
+    }
 
-        try {
-            ViaCepResponseDto viaCepDto = this.webClient.get()
-                    .uri("/{cep}/json/", cepFormatado)
-                    .retrieve()
-                    .bodyToMono(ViaCepResponseDto.class)
-                    .block();
-
-            if (viaCepDto == null || viaCepDto.erro() != null) {
-                throw new RuntimeException("CEP não encontrado.");
-            }
-
-            return new EnderecoDto(
-                    null,
-                    viaCepDto.logradouro(),
-                    null,
-                    viaCepDto.bairro(),
-                    viaCepDto.localidade(),
-                    viaCepDto.uf(),
-                    viaCepDto.cep()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao consultar CEP: " + e.getMessage());
-        }
+    /**
+     * Mesma consulta fora da thread da requisição (thread virtual): a espera pelo ViaCEP não ocupa
+     * o pool do Tomcat. Completa com TimeoutException após 'viacep.limite-total-ms'.
+     */
+    public CompletableFuture<EnderecoDto> consultarCepAsync(String cep) {
+        return CompletableFuture.supplyAsync(() -> consultarCep(cep), consultasCep)
+                .orTimeout(limiteConsultaCepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        consultasCep.shutdownNow();
     }
-}
\ No newline at end of file
+}
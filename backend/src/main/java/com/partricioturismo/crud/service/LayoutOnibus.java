@@ -0,0 +1,227 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.partricioturismo.crud.dtos.AssentoLayoutDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Layout de um ônibus já interpretado. Imutável: uma instância é compartilhada por todas as
+ * requisições (LayoutOnibusCache) e os arrays não devem ser alterados por quem os lê.
+ *
+ * - assentos: índices 0..n-1 em ordem de leitura, com número, fileira e se é janela;
+ * - vizinhos/custos: grafo de adjacência usado pela alocação automática de grupos;
+ * - json: o mapa visual (GET /api/onibus/{id}/layout) já serializado.
+ *
+ * Origem: layoutJson (matriz de números) ou, sem ele, 4 assentos por fileira até a capacidade.
+ */
+public final class LayoutOnibus {
+
+    // Custo das arestas: lado a lado < através do corredor < fileira da frente/de trás
+    static final int CUSTO_LADO = 1;
+    static final int CUSTO_CORREDOR = 2;
+    static final int CUSTO_FILEIRA = 3;
+
+    private static final TypeReference<List<List<Integer>>> MATRIZ = new TypeReference<>() {};
+
+    private final String layoutJson;
+    private final int capacidade;
+    private final boolean usouPadrao;
+
+    private final int[] numeros;
+    private final int[] fileiras;
+    private final boolean[] janela;
+    private final Map<Integer, Integer> indicePorNumero;
+    private final int[][] vizinhos;
+    private final int[][] custos;
+    private final byte[] json;
+
+    private LayoutOnibus(String layoutJson, int capacidade, int[][] grade, boolean usouPadrao, ObjectMapper objectMapper) {
+        this.layoutJson = layoutJson;
+        this.capacidade = capacidade;
+        this.usouPadrao = usouPadrao;
+
+        // Posição de cada assento numerado (um número repetido só conta na primeira vez)
+        List<int[]> posicoes = new ArrayList<>();
+        Map<Integer, Integer> indices = new HashMap<>();
+        Map<Long, Integer> porPosicao = new HashMap<>();
+        for (int f = 0; f < grade.length; f++) {
+            for (int c = 0; c < grade[f].length; c++) {
+                int numero = grade[f][c];
+                if (numero <= 0 || indices.containsKey(numero)) continue;
+                indices.put(numero, posicoes.size());
+                porPosicao.put(posicao(f, c), posicoes.size());
+                posicoes.add(new int[]{numero, f, c});
+            }
+        }
+
+        int n = posicoes.size();
+        numeros = new int[n];
+        fileiras = new int[n];
+        janela = new boolean[n];
+        vizinhos = new int[n][];
+        custos = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int numero = posicoes.get(i)[0], f = posicoes.get(i)[1], c = posicoes.get(i)[2];
+            numeros[i] = numero;
+            fileiras[i] = f;
+            janela[i] = ehJanela(numero);
+
+            List<int[]> arestas = new ArrayList<>();
+            for (int lado : new int[]{-1, 1}) {
+                Integer junto = porPosicao.get(posicao(f, c + lado));
+                if (junto != null) {
+                    arestas.add(new int[]{junto, CUSTO_LADO});
+                } else {
+                    // Uma célula vazia entre os dois é o corredor
+                    Integer corredor = porPosicao.get(posicao(f, c + 2 * lado));
+                    if (corredor != null) arestas.add(new int[]{corredor, CUSTO_CORREDOR});
+                }
+                Integer fileira = porPosicao.get(posicao(f + lado, c));
+                if (fileira != null) arestas.add(new int[]{fileira, CUSTO_FILEIRA});
+            }
+            vizinhos[i] = arestas.stream().mapToInt(a -> a[0]).toArray();
+            custos[i] = arestas.stream().mapToInt(a -> a[1]).toArray();
+        }
+        indicePorNumero = Map.copyOf(indices);
+        json = serializar(grade, objectMapper);
+    }
+
+    /**
+     * Interpreta o layout do ônibus. Um layoutJson ilegível (gravado antes da validação) cai no layout padrão;
+     * 'usouPadrao()' indica isso.
+     */
+    static LayoutOnibus compilar(String layoutJson, int capacidade, ObjectMapper objectMapper) {
+        if (layoutJson == null || layoutJson.isBlank()) {
+            return new LayoutOnibus(layoutJson, capacidade, padrao(capacidade), false, objectMapper);
+        }
+        int[][] grade = ler(layoutJson, objectMapper, false);
+        return grade != null
+                ? new LayoutOnibus(layoutJson, capacidade, grade, false, objectMapper)
+                : new LayoutOnibus(layoutJson, capacidade, padrao(capacidade), true, objectMapper);
+    }
+
+    /**
+     * Validação do layoutJson ao salvar o ônibus: matriz de inteiros >= 0 (0 = vazio), com ao menos
+     * um assento e sem números repetidos. IllegalArgumentException com o motivo.
+     */
+    static void validar(String layoutJson, ObjectMapper objectMapper) {
+        if (layoutJson == null || layoutJson.isBlank()) return;
+        ler(layoutJson, objectMapper, true);
+    }
+
+    // Em modo estrito lança IllegalArgumentException; senão retorna null para o que não der para usar
+    private static int[][] ler(String layoutJson, ObjectMapper objectMapper, boolean estrito) {
+        List<List<Integer>> matriz;
+        try {
+            matriz = objectMapper.readValue(layoutJson, MATRIZ);
+        } catch (JsonProcessingException e) {
+            if (estrito) throw new IllegalArgumentException("Layout inválido: esperada uma matriz de números, ex.: [[1,2,0,3,4]].");
+            return null;
+        }
+        if (matriz == null || matriz.isEmpty()) {
+            if (estrito) throw new IllegalArgumentException("Layout inválido: nenhuma fileira.");
+            return null;
+        }
+
+        int[][] grade = new int[matriz.size()][];
+        Set<Integer> vistos = new HashSet<>();
+        for (int f = 0; f < matriz.size(); f++) {
+            List<Integer> fileira = matriz.get(f) == null ? List.of() : matriz.get(f);
+            grade[f] = new int[fileira.size()];
+            for (int c = 0; c < fileira.size(); c++) {
+                Integer numero = fileira.get(c);
+                if (estrito && (numero == null || numero < 0)) {
+                    throw new IllegalArgumentException("Layout inválido: fileira " + (f + 1) + " tem valor negativo ou vazio.");
+                }
+                if (estrito && numero > 0 && !vistos.add(numero)) {
+                    throw new IllegalArgumentException("Layout inválido: assento " + numero + " aparece mais de uma vez.");
+                }
+                grade[f][c] = numero == null || numero < 0 ? 0 : numero;
+            }
+        }
+        if (estrito && vistos.isEmpty()) {
+            throw new IllegalArgumentException("Layout inválido: nenhum assento numerado.");
+        }
+        return grade;
+    }
+
+    private static int[][] padrao(int capacidade) {
+        int total = Math.max(capacidade, 0);
+        int[][] grade = new int[(total + 3) / 4][];
+        for (int f = 0; f < grade.length; f++) {
+            grade[f] = new int[Math.min(4, total - f * 4)];
+            for (int c = 0; c < grade[f].length; c++) grade[f][c] = f * 4 + c + 1;
+        }
+        return grade;
+    }
+
+    // Regra do mapa: ímpar = janela, par = corredor
+    private static boolean ehJanela(int numero) {
+        return numero % 2 != 0;
+    }
+
+    private static byte[] serializar(int[][] grade, ObjectMapper objectMapper) {
+        List<List<AssentoLayoutDto>> mapa = new ArrayList<>(grade.length);
+        for (int[] fileira : grade) {
+            List<AssentoLayoutDto> dtos = new ArrayList<>(fileira.length);
+            for (int numero : fileira) {
+                dtos.add(numero == 0
+                        ? new AssentoLayoutDto(null, "VAZIO")
+                        : new AssentoLayoutDto(numero < 10 ? "0" + numero : String.valueOf(numero),
+                                ehJanela(numero) ? "JANELA" : "CORREDOR"));
+            }
+            mapa.add(dtos);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(mapa);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o layout", e);
+        }
+    }
+
+    private static long posicao(int fileira, int coluna) {
+        return ((long) fileira << 32) | (coluna & 0xffffffffL);
+    }
+
+    /** Se este layout ainda corresponde aos dados do ônibus. */
+    boolean geradoDe(String layoutJson, int capacidade) {
+        return this.capacidade == capacidade && Objects.equals(this.layoutJson, layoutJson);
+    }
+
+    /** Mapa visual em JSON (List&lt;List&lt;AssentoLayoutDto&gt;&gt;), pronto para a resposta. Compartilhado: não alterar. */
+    public byte[] json() { return json; }
+
+    /** true quando havia layoutJson mas ele não pôde ser lido. */
+    public boolean usouPadrao() { return usouPadrao; }
+
+    public int quantidadeAssentos() { return numeros.length; }
+
+    /** Índice do assento com esse número, ou -1 se ele não existe no layout. */
+    public int indice(int numero) {
+        Integer i = indicePorNumero.get(numero);
+        return i == null ? -1 : i;
+    }
+
+    public boolean janela(int indice) { return janela[indice]; }
+
+    public int numero(int indice) { return numeros[indice]; }
+
+    public int fileira(int indice) { return fileiras[indice]; }
+
+    int[] numeros() { return numeros; }
+
+    int[] fileiras() { return fileiras; }
+
+    int[][] vizinhos() { return vizinhos; }
+
+    int[][] custos() { return custos; }
+}
@@ -0,0 +1,101 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.repositories.OnibusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Layouts já interpretados (LayoutOnibus), um por ônibus. O layout só muda quando o ônibus é
+ * alterado: OnibusService chama invalidar() no update e no delete.
+ *
+ * Só doOnibus(Long), que lê o ônibus do banco, guarda layouts. Um Onibus recebido de quem chama pode
+ * ter sido lido antes de uma alteração (ou nem estar salvo): o layout dele é compilado e devolvido
+ * sem ir para o cache.
+ */
+@Component
+public class LayoutOnibusCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LayoutOnibusCache.class);
+
+    @Autowired
+    private OnibusRepository onibusRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, LayoutOnibus> layouts = new ConcurrentHashMap<>();
+
+    // Muda a cada invalidação: quem leu o ônibus antes dela não guarda o layout antigo
+    private final AtomicLong geracao = new AtomicLong();
+
+    public Optional<LayoutOnibus> doOnibus(Long onibusId) {
+        LayoutOnibus layout = layouts.get(onibusId);
+        if (layout != null) return Optional.of(layout);
+
+        long lida = geracao.get(); // antes do findById
+        return onibusRepository.findById(onibusId).map(onibus -> {
+            LayoutOnibus compilado = compilar(onibus);
+            // Conferência e put no mesmo compute: descartar() usa a mesma chave, então não entra no meio
+            LayoutOnibus guardado = layouts.compute(onibusId, (id, atual) -> {
+                if (atual != null) return atual;
+                return geracao.get() == lida ? compilado : null;
+            });
+            return guardado != null ? guardado : compilado;
+        });
+    }
+
+    /** Layout de um ônibus já carregado; usa o guardado só se ele veio do mesmo layoutJson/capacidade. */
+    public LayoutOnibus doOnibus(Onibus onibus) {
+        Long id = onibus.getIdOnibus();
+        LayoutOnibus layout = id == null ? null : layouts.get(id);
+        if (layout != null && layout.geradoDe(onibus.getLayoutJson(), onibus.getCapacidadePassageiros())) {
+            return layout;
+        }
+        return compilar(onibus);
+    }
+
+    private LayoutOnibus compilar(Onibus onibus) {
+        LayoutOnibus layout = LayoutOnibus.compilar(onibus.getLayoutJson(), onibus.getCapacidadePassageiros(), objectMapper);
+        if (layout.usouPadrao()) {
+            log.warn("Layout do ônibus {} não pôde ser lido; usando o layout padrão de {} lugares",
+                    onibus.getIdOnibus(), onibus.getCapacidadePassageiros());
+        }
+        return layout;
+    }
+
+    /** IllegalArgumentException quando o layoutJson não pode ser salvo. */
+    public void validar(String layoutJson) {
+        LayoutOnibus.validar(layoutJson, objectMapper);
+    }
+
+    public void invalidar(Long onibusId) {
+        descartar(onibusId);
+        // De novo após o commit: uma leitura entre agora e o commit ainda vê o layout antigo
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar(onibusId);
+                }
+            });
+        }
+    }
+
+    private void descartar(Long onibusId) {
+        layouts.compute(onibusId, (id, atual) -> {
+            geracao.incrementAndGet();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,207 @@
+package com.partricioturismo.crud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login com a verificação da senha (BCrypt, cara em CPU) fora das threads das requisições:
+ * - executor fixo de 'login.bcrypt.threads' threads com fila de 'login.bcrypt.fila' posições;
+ *   fila cheia = recusa imediata (429), sem tocar no BCrypt; pedido que passou de 'login.bcrypt.espera-ms'
+ *   na fila (o cliente já recebeu 429) é descartado sem calcular o hash;
+ * - limite de falhas por login vindas do mesmo IP e, à parte, por IP, dentro de uma janela de
+ *   'login.tentativas.janela-min' minutos; passado o limite, novas tentativas são recusadas (429) até a
+ *   janela acabar. O login sozinho não é chave: senão qualquer um bloquearia a conta de outra pessoa
+ *   errando a senha dela de propósito.
+ * Assim uma enxurrada de logins deixa lento só o login, não o resto da API.
+ *
+ * Métricas: login.bcrypt.tempo (tag resultado), login.bcrypt.fila, login.bcrypt.ativas, login.recusados (tag motivo).
+ */
+@Service
+public class LoginService {
+
+    public record Resultado(Authentication autenticacao, String token) {}
+
+    /** Login recusado sem verificar a senha: servidor ocupado ou tentativas demais. */
+    public static class LoginRecusadoException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long tenteEmSegundos;
+
+        public LoginRecusadoException(String mensagem, long tenteEmSegundos) {
+            super(mensagem);
+            this.tenteEmSegundos = tenteEmSegundos;
+        }
+
+        public long getTenteEmSegundos() {
+            return tenteEmSegundos;
+        }
+    }
+
+    private record Janela(int falhas, long terminaEm) {}
+
+    private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+    private final ThreadPoolExecutor verificacoes;
+    private final long esperaMaximaMs;
+    private final int maxFalhasPorLoginIp;
+    private final int maxFalhasPorIp;
+    private final long janelaMs;
+
+    // "login:<usuario>|<ip>" / "ip:<endereco>" -> falhas na janela atual
+    private final Map<String, Janela> falhas = new ConcurrentHashMap<>();
+
+    private final MeterRegistry metricas;
+    private final Counter recusadosFila;
+    private final Counter recusadosTentativas;
+    private final Counter recusadosPrazo;
+
+    public LoginService(AuthenticationManager authenticationManager,
+                        TokenService tokenService,
+                        MeterRegistry metricas,
+                        @Value("${login.bcrypt.threads:2}") int threads,
+                        @Value("${login.bcrypt.fila:32}") int fila,
+                        @Value("${login.bcrypt.espera-ms:5000}") long esperaMaximaMs,
+                        @Value("${login.tentativas.max-por-login:5}") int maxFalhasPorLoginIp,
+                        @Value("${login.tentativas.max-por-ip:20}") int maxFalhasPorIp,
+                        @Value("${login.tentativas.janela-min:15}") long janelaMin) {
+        this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.maxFalhasPorLoginIp = maxFalhasPorLoginIp;
+        this.maxFalhasPorIp = maxFalhasPorIp;
+        this.janelaMs = TimeUnit.MINUTES.toMillis(janelaMin);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.verificacoes = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila),
+                tarefa -> {
+                    Thread t = new Thread(tarefa, "login-bcrypt-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.metricas = metricas;
+        this.recusadosFila = recusados(metricas, "fila");
+        this.recusadosTentativas = recusados(metricas, "tentativas");
+        this.recusadosPrazo = recusados(metricas, "prazo");
+        metricas.gauge("login.bcrypt.fila", verificacoes, e -> e.getQueue().size());
+        metricas.gauge("login.bcrypt.ativas", verificacoes, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Verifica as credenciais no executor do login e gera o token. Recusa na hora com
+     * LoginRecusadoException; o future falha com AuthenticationException (credenciais inválidas)
+     * ou TimeoutException (fila demorou mais que 'login.bcrypt.espera-ms').
+     */
+    public CompletableFuture<Resultado> autenticar(String usuario, String senha, String ip) {
+        String chaveLogin = "login:" + String.valueOf(usuario).trim().toLowerCase(Locale.ROOT) + "|" + ip;
+        String chaveIp = "ip:" + ip;
+
+        long bloqueado = Math.max(bloqueadoPor(chaveLogin, maxFalhasPorLoginIp), bloqueadoPor(chaveIp, maxFalhasPorIp));
+        if (bloqueado > 0) {
+            recusadosTentativas.increment();
+            throw new LoginRecusadoException("Muitas tentativas de login. Tente novamente mais tarde.",
+                    TimeUnit.MILLISECONDS.toSeconds(bloqueado) + 1);
+        }
+
+        // Prazo contado a partir da entrada na fila, o mesmo do orTimeout abaixo
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        CompletableFuture<Resultado> resultado;
+        try {
+            resultado = CompletableFuture.supplyAsync(() -> verificar(usuario, senha, prazo), verificacoes);
+        } catch (RejectedExecutionException e) {
+            recusadosFila.increment();
+            throw new LoginRecusadoException("Servidor ocupado com outros logins. Tente novamente em instantes.", 2);
+        }
+
+        return resultado
+                .whenComplete((ok, erro) -> {
+                    if (ok != null) {
+                        falhas.remove(chaveLogin);
+                    } else if (causa(erro) instanceof AuthenticationException) {
+                        registrarFalha(chaveLogin);
+                        registrarFalha(chaveIp);
+                    }
+                })
+                .orTimeout(esperaMaximaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Resultado verificar(String usuario, String senha, long prazo) {
+        if (System.nanoTime() - prazo > 0) {
+            // O cliente já recebeu 429 pelo orTimeout: não gasta CPU com um hash que ninguém espera
+            recusadosPrazo.increment();
+            throw new CompletionException(new TimeoutException("Login expirou na fila do BCrypt"));
+        }
+        Timer.Sample inicio = Timer.start(metricas);
+        String desfecho = "falha";
+        try {
+            Authentication autenticacao = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(usuario, senha));
+            desfecho = "ok";
+            return new Resultado(autenticacao, tokenService.generateToken(autenticacao));
+        } finally {
+            inicio.stop(Timer.builder("login.bcrypt.tempo")
+                    .description("Tempo da verificação de credenciais (BCrypt)")
+                    .tag("resultado", desfecho)
+                    .register(metricas));
+        }
+    }
+
+    // Milissegundos até a chave poder tentar de novo (0 = liberada)
+    private long bloqueadoPor(String chave, int maxFalhas) {
+        Janela janela = falhas.get(chave);
+        if (janela == null || janela.falhas() < maxFalhas) return 0;
+        return Math.max(0, janela.terminaEm() - System.currentTimeMillis());
+    }
+
+    private void registrarFalha(String chave) {
+        long agora = System.currentTimeMillis();
+        falhas.compute(chave, (k, atual) -> atual == null || atual.terminaEm() <= agora
+                ? new Janela(1, agora + janelaMs)
+                : new Janela(atual.falhas() + 1, atual.terminaEm()));
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void limparJanelasVencidas() {
+        long agora = System.currentTimeMillis();
+        falhas.values().removeIf(janela -> janela.terminaEm() <= agora);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        verificacoes.shutdownNow();
+    }
+
+    private static Throwable causa(Throwable erro) {
+        return erro != null && erro.getCause() != null && !(erro instanceof AuthenticationException) ? erro.getCause() : erro;
+    }
+
+    private static Counter recusados(MeterRegistry metricas, String motivo) {
+        return Counter.builder("login.recusados")
+                .description("Logins recusados sem verificar a senha")
+                .tag("motivo", motivo)
+                .register(metricas);
+    }
+}
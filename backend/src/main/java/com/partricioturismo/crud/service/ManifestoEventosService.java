@@ -0,0 +1,205 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.ManifestoEventoDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clientes SSE inscritos no manifesto de cada viagem (GET /api/viagem/{id}/events).
+ * Os eventos publicados pelo ManifestoService só chegam aqui após o commit, então nenhum cliente
+ * vê uma alteração que foi desfeita.
+ *
+ * Cada cliente tem a sua fila, esvaziada em ordem por no máximo uma thread virtual de cada vez:
+ * um cliente lento só atrasa a si mesmo. Quem acumula eventos demais, demora demais em um envio
+ * ou falha é desconectado; o EventSource reconecta e o cliente se atualiza pela versão.
+ *
+ * Os inscritos ficam na memória desta JVM: com mais de uma instância, o evento só chega aos
+ * clientes conectados à instância que fez a escrita. Os demais só percebem a mudança pela versão
+ * (ETag / alteracoes?desde=) na próxima leitura ou reconexão.
+ */
+@Service
+public class ManifestoEventosService {
+
+    // Conexões são renovadas pelo EventSource do navegador após este tempo
+    private static final long TEMPO_CONEXAO_MS = 30 * 60 * 1000L;
+
+    // Eventos aguardando envio para um mesmo cliente antes de desconectá-lo
+    static final int LIMITE_FILA = 256;
+
+    // Um envio (escrita no socket) parado além disso derruba o cliente no próximo heartbeat
+    static final long LIMITE_ENVIO_MS = 10_000;
+
+    private final Map<Long, Set<Assinante>> inscritos = new ConcurrentHashMap<>();
+
+    // Uma tarefa por cliente com fila pendente, no máximo; o limite é o número de conexões
+    private final ExecutorService envio = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("manifesto-sse-", 0).factory());
+
+    public SseEmitter inscrever(Long viagemId, long versaoAtual) {
+        return inscrever(viagemId, versaoAtual, new SseEmitter(TEMPO_CONEXAO_MS));
+    }
+
+    SseEmitter inscrever(Long viagemId, long versaoAtual, SseEmitter emitter) {
+        Assinante assinante = new Assinante(viagemId, emitter);
+        emitter.onCompletion(assinante::encerrar);
+        emitter.onTimeout(assinante::encerrar);
+        emitter.onError(e -> assinante.encerrar());
+        inscritos.computeIfAbsent(viagemId, id -> new CopyOnWriteArraySet<>()).add(assinante);
+
+        // Primeiro evento: a versão atual, para o cliente saber se o manifesto que tem está em dia
+        assinante.enfileirar(SseEmitter.event()
+                .name("conectado")
+                .id(String.valueOf(versaoAtual))
+                .data(Map.of("viagemId", viagemId, "versao", versaoAtual), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoConfirmar(ManifestoEventoDto evento) {
+        Set<Assinante> daViagem = inscritos.get(evento.viagemId());
+        if (daViagem == null) return;
+        for (Assinante assinante : daViagem) {
+            assinante.enfileirar(SseEmitter.event()
+                    .name("manifesto")
+                    .id(String.valueOf(evento.versao()))
+                    .data(evento, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * Comentário periódico para proxies não derrubarem conexões ociosas
+     * (e para descobrir clientes que já foram embora ou estão travados em um envio).
+     */
+    @Scheduled(fixedDelayString = "${manifesto.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long agora = System.nanoTime();
+        for (Set<Assinante> daViagem : inscritos.values()) {
+            for (Assinante assinante : daViagem) {
+                if (assinante.travadoDesde(agora)) {
+                    assinante.descartar(new IOException("Envio SSE parado há mais de " + LIMITE_ENVIO_MS + " ms"));
+                } else {
+                    assinante.enfileirar(SseEmitter.event().comment("ping"));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        envio.shutdownNow();
+        inscritos.values().forEach(daViagem -> daViagem.forEach(a -> a.emitter.complete()));
+        inscritos.clear();
+    }
+
+    int inscritos(Long viagemId) {
+        Set<Assinante> daViagem = inscritos.get(viagemId);
+        return daViagem == null ? 0 : daViagem.size();
+    }
+
+    private void remover(Assinante assinante) {
+        inscritos.computeIfPresent(assinante.viagemId, (id, daViagem) -> {
+            daViagem.remove(assinante);
+            return daViagem.isEmpty() ? null : daViagem;
+        });
+    }
+
+    // Um cliente conectado: fila própria, enviada em ordem por uma tarefa de cada vez
+    private final class Assinante {
+        final Long viagemId;
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> fila = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendentes = new AtomicInteger();
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile long inicioEnvio; // System.nanoTime() do envio em curso; 0 quando parado
+        volatile boolean encerrado;
+
+        Assinante(Long viagemId, SseEmitter emitter) {
+            this.viagemId = viagemId;
+            this.emitter = emitter;
+        }
+
+        void enfileirar(SseEmitter.SseEventBuilder evento) {
+            if (encerrado) return;
+            if (pendentes.incrementAndGet() > LIMITE_FILA) {
+                descartar(new IOException("Cliente SSE não acompanha os eventos"));
+                return;
+            }
+            fila.add(evento);
+            agendar();
+        }
+
+        private void agendar() {
+            if (!enviando.compareAndSet(false, true)) return;
+            try {
+                envio.execute(this::esvaziar);
+            } catch (RuntimeException e) {
+                // Executor encerrado (desligamento)
+                enviando.set(false);
+            }
+        }
+
+        private void esvaziar() {
+            try {
+                SseEmitter.SseEventBuilder evento;
+                while (!encerrado && (evento = fila.poll()) != null) {
+                    pendentes.decrementAndGet();
+                    inicioEnvio = System.nanoTime();
+                    try {
+                        emitter.send(evento);
+                    } catch (IOException e) {
+                        // Cliente desconectou
+                        descartar(e);
+                    } catch (IllegalStateException e) {
+                        // Conexão já encerrada (timeout ou complete)
+                        encerrar();
+                    } finally {
+                        inicioEnvio = 0;
+                    }
+                }
+            } finally {
+                enviando.set(false);
+            }
+            // Evento que chegou entre o último poll e a liberação acima
+            if (!encerrado && !fila.isEmpty()) agendar();
+        }
+
+        boolean travadoDesde(long agora) {
+            long inicio = inicioEnvio;
+            return inicio != 0 && agora - inicio > TimeUnit.MILLISECONDS.toNanos(LIMITE_ENVIO_MS);
+        }
+
+        void descartar(Throwable causa) {
+            if (encerrado) return;
+            encerrar();
+            try {
+                emitter.completeWithError(causa);
+            } catch (RuntimeException e) {
+                // Já encerrado pelo container
+            }
+        }
+
+        void encerrar() {
+            encerrado = true;
+            fila.clear();
+            remover(this);
+        }
+    }
+}
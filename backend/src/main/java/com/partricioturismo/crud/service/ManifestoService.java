@@ -0,0 +1,233 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.EncomendaLinhaView;
+import com.partricioturismo.crud.dtos.EncomendaResponseDto;
+import com.partricioturismo.crud.dtos.ManifestoDeltaDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import com.partricioturismo.crud.dtos.ManifestoPassageiroView;
+import com.partricioturismo.crud.dtos.PassengerResponseDto;
+import com.partricioturismo.crud.model.ManifestoAlteracao;
+import com.partricioturismo.crud.repositories.EncomendaRepository;
+import com.partricioturismo.crud.repositories.ManifestoAlteracaoRepository;
+import com.partricioturismo.crud.repositories.PassageiroViagemRepository;
+import com.partricioturismo.crud.repositories.ViagemRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Versão do manifesto de cada viagem (viagem.manifest_version).
+ * Toda escrita em passageiros, encomendas, bagagens ou assentos de uma viagem passa por aqui,
+ * dentro da própria transação, e as leituras do manifesto usam a versão como ETag.
+ * Cada escrita também publica um ManifestoEventoDto, entregue aos clientes SSE só após o commit
+ * (ver ManifestoEventosService), e o grava em manifesto_alteracao para a ressincronização incremental.
+ *
+ * O incremento trava a linha da viagem até o commit. Por isso deve ser chamado no início da
+ * escrita, antes do SeatInventory.travar, mantendo sempre a mesma ordem de travas.
+ */
+@Service
+public class ManifestoService {
+
+    @Autowired private ViagemRepository viagemRepository;
+    @Autowired private ManifestoAlteracaoRepository alteracaoRepository;
+    @Autowired private PassageiroViagemRepository passageiroViagemRepository;
+    @Autowired private EncomendaRepository encomendaRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    // Por quantos dias o registro de alterações é mantido
+    @Value("${manifesto.alteracoes.retencao-dias:7}")
+    private int retencaoDias;
+
+    @Transactional(readOnly = true)
+    public Optional<Long> versaoAtual(Long viagemId) {
+        return viagemRepository.findManifestVersion(viagemId);
+    }
+
+    // ETag (forte) do manifesto de uma viagem na versão informada
+    public static String etag(Long viagemId, long versao) {
+        return "\"" + viagemId + "-" + versao + "\"";
+    }
+
+    @Transactional
+    public long registrarAlteracao(Long viagemId) {
+        Long versao = viagemRepository.incrementarVersaoManifesto(viagemId);
+        if (versao == null) {
+            throw new EntityNotFoundException("Viagem não encontrada");
+        }
+        return versao;
+    }
+
+    // Várias viagens de uma vez (ex.: encomenda trocada de viagem). Retorna viagemId -> nova versão.
+    @Transactional
+    public Map<Long, Long> registrarAlteracao(Collection<Long> viagemIds) {
+        Long[] ids = viagemIds.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        if (ids.length == 0) return Map.of();
+        return paraMapa(viagemRepository.incrementarVersaoManifestoEm(ids));
+    }
+
+    // Os abaixo já publicam o evento, pois os IDs alterados são conhecidos de antemão
+
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorPassageiros(Collection<Long> passageiroIds, TipoAlteracao tipo) {
+        if (passageiroIds == null || passageiroIds.isEmpty()) return Map.of();
+        Map<Long, Long> versoes = paraMapa(viagemRepository.incrementarVersaoManifestoPorPassageiros(passageiroIds.toArray(new Long[0])));
+        publicar(versoes, tipo, passageiroIds, null);
+        return versoes;
+    }
+
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorEncomendas(Collection<Long> encomendaIds, TipoAlteracao tipo) {
+        if (encomendaIds == null || encomendaIds.isEmpty()) return Map.of();
+        Map<Long, Long> versoes = paraMapa(viagemRepository.incrementarVersaoManifestoPorEncomendas(encomendaIds.toArray(new Long[0])));
+        publicar(versoes, tipo, null, encomendaIds);
+        return versoes;
+    }
+
+    // Passageiros e encomendas numa só trava (em ordem de ID), antes de alterar as linhas. Não publica:
+    // quem chama só sabe os IDs alterados depois do UPDATE e publica com publicar(versoes, ...).
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorPassageirosEEncomendas(Long[] passageiroIds, Long[] encomendaIds) {
+        if (passageiroIds.length == 0 && encomendaIds.length == 0) return Map.of();
+        return paraMapa(viagemRepository.incrementarVersaoManifestoPorPassageirosEEncomendas(passageiroIds, encomendaIds));
+    }
+
+    // Dados da pessoa aparecem no manifesto das viagens em que ela está (inclusive as passadas)
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorPessoa(Long pessoaId) {
+        Map<Long, Long> versoes = paraMapa(viagemRepository.incrementarVersaoManifestoPorPessoa(pessoaId));
+        publicar(versoes, TipoAlteracao.MANIFESTO_ATUALIZADO, null, null);
+        return versoes;
+    }
+
+    // Endereço de coleta/entrega alterado ou excluído: todas as viagens que o usam
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorEndereco(Long enderecoId) {
+        Map<Long, Long> versoes = paraMapa(viagemRepository.incrementarVersaoManifestoPorEndereco(enderecoId));
+        publicar(versoes, TipoAlteracao.MANIFESTO_ATUALIZADO, null, null);
+        return versoes;
+    }
+
+    // Ônibus alterado (placa, modelo, layout): todas as viagens que o usam
+    @Transactional
+    public Map<Long, Long> registrarAlteracaoPorOnibus(Long onibusId) {
+        Map<Long, Long> versoes = paraMapa(viagemRepository.incrementarVersaoManifestoPorOnibus(onibusId));
+        publicar(versoes, TipoAlteracao.MANIFESTO_ATUALIZADO, null, null);
+        return versoes;
+    }
+
+    // --- EVENTOS (publicados na transação; os ouvintes só recebem após o commit) ---
+    // Lista de IDs vazia significa "recarregue o manifesto"; o mesmo vale para um salto de versão.
+
+    public void publicar(Long viagemId, long versao, TipoAlteracao tipo, Collection<Long> passageiroIds, Collection<Long> encomendaIds) {
+        ManifestoEventoDto evento = new ManifestoEventoDto(viagemId, versao, tipo, lista(passageiroIds), lista(encomendaIds));
+        alteracaoRepository.save(new ManifestoAlteracao(viagemId, versao, tipo,
+                evento.passageiroIds().toArray(new Long[0]), evento.encomendaIds().toArray(new Long[0])));
+        eventPublisher.publishEvent(evento);
+    }
+
+    public void publicarPassageiros(Long viagemId, long versao, TipoAlteracao tipo, Collection<Long> passageiroIds) {
+        publicar(viagemId, versao, tipo, passageiroIds, null);
+    }
+
+    public void publicarEncomendas(Long viagemId, long versao, TipoAlteracao tipo, Collection<Long> encomendaIds) {
+        publicar(viagemId, versao, tipo, null, encomendaIds);
+    }
+
+    // Um evento por viagem alterada (retorno dos registrarAlteracao* em lote)
+    public void publicar(Map<Long, Long> versoes, TipoAlteracao tipo, Collection<Long> passageiroIds, Collection<Long> encomendaIds) {
+        versoes.forEach((viagemId, versao) -> publicar(viagemId, versao, tipo, passageiroIds, encomendaIds));
+    }
+
+    // --- RESSINCRONIZAÇÃO INCREMENTAL ---
+
+    /**
+     * O que mudou no manifesto desde a versão 'desde': estado atual dos passageiros e encomendas
+     * tocados e os IDs que saíram da viagem. O custo depende do número de alterações, não do manifesto.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ManifestoDeltaDto> alteracoesDesde(Long viagemId, long desde) {
+        // Versão lida antes das linhas: o que mudar depois aparece de novo na próxima chamada
+        Optional<Long> atual = versaoAtual(viagemId);
+        if (atual.isEmpty()) return Optional.empty();
+        long versao = atual.get();
+        if (desde > versao) return Optional.of(ManifestoDeltaDto.recarregar(viagemId, versao));
+        if (desde == versao) {
+            return Optional.of(new ManifestoDeltaDto(viagemId, versao, false, List.of(), List.of(), List.of(), List.of()));
+        }
+
+        Set<Long> passageiroIds = new LinkedHashSet<>();
+        Set<Long> encomendaIds = new LinkedHashSet<>();
+        long esperada = desde + 1;
+        for (ManifestoAlteracao alteracao : alteracaoRepository.findByViagemIdAndVersaoGreaterThanOrderByVersao(viagemId, desde)) {
+            if (alteracao.getVersao() > versao) break;
+            // Versão ausente (histórico já limpo) ou alteração sem itens: não há como montar o delta
+            if (alteracao.getVersao() > esperada) {
+                return Optional.of(ManifestoDeltaDto.recarregar(viagemId, versao));
+            }
+            if (alteracao.getPassageiroIds().length == 0 && alteracao.getEncomendaIds().length == 0) {
+                return Optional.of(ManifestoDeltaDto.recarregar(viagemId, versao));
+            }
+            passageiroIds.addAll(Arrays.asList(alteracao.getPassageiroIds()));
+            encomendaIds.addAll(Arrays.asList(alteracao.getEncomendaIds()));
+            esperada = Math.max(esperada, alteracao.getVersao() + 1);
+        }
+        if (esperada <= versao) return Optional.of(ManifestoDeltaDto.recarregar(viagemId, versao));
+
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        List<PassengerResponseDto> passageiros = new ArrayList<>();
+        if (!passageiroIds.isEmpty()) {
+            for (ManifestoPassageiroView l : passageiroViagemRepository.findManifestoByViagemIdAndIdIn(viagemId, passageiroIds)) {
+                passageiros.add(new PassengerResponseDto(l, viagens.viagemDa(l)));
+                passageiroIds.remove(l.getId());
+            }
+        }
+        List<EncomendaResponseDto> encomendas = new ArrayList<>();
+        if (!encomendaIds.isEmpty()) {
+            for (EncomendaLinhaView l : encomendaRepository.findLinhasByViagemIdAndIdIn(viagemId, encomendaIds)) {
+                encomendas.add(new EncomendaResponseDto(l, viagens.viagemDa(l)));
+                encomendaIds.remove(l.getId());
+            }
+        }
+        // O que sobrou não está mais na viagem: foi removido (ou mudou de viagem)
+        return Optional.of(new ManifestoDeltaDto(viagemId, versao, false,
+                passageiros, new ArrayList<>(passageiroIds), encomendas, new ArrayList<>(encomendaIds)));
+    }
+
+    /**
+     * Limpa o registro de alterações antigo. Clientes com versão anterior recebem 'recarregar'.
+     */
+    @Scheduled(cron = "${manifesto.alteracoes.limpeza-cron:0 30 3 * * *}")
+    @Transactional
+    public void limparAlteracoesAntigas() {
+        alteracaoRepository.deleteByCriadoEmBefore(LocalDateTime.now().minusDays(retencaoDias));
+    }
+
+    private static List<Long> lista(Collection<Long> ids) {
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+
+    private static Map<Long, Long> paraMapa(List<Object[]> linhas) {
+        Map<Long, Long> versoes = new LinkedHashMap<>();
+        for (Object[] linha : linhas) {
+            versoes.put(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue());
+        }
+        return versoes;
+    }
+}
@@ -18,6 +18,12 @@ public class OnibusService {
     @Autowired
     private OnibusRepository repository;
 
+    @Autowired
+    private LayoutOnibusCache layoutOnibusCache;
+
+    @Autowired
+    private ManifestoService manifestoService;
+
     // Converte Entidade -> DTO
     private OnibusDto toDto(Onibus onibus) {
         return new OnibusDto(
@@ -40,8 +46,10 @@ public class OnibusService {
         return repository.findById(id).map(this::toDto);
     }
 
+    // Layout inválido é recusado aqui (IllegalArgumentException), não a cada leitura do mapa
     @Transactional
     public OnibusDto save(OnibusDto onibusDto) {
+        layoutOnibusCache.validar(onibusDto.layoutJson());
         var onibus = new Onibus();
         // Copia as propriedades (incluindo layoutJson se o nome bater)
         BeanUtils.copyProperties(onibusDto, onibus);
@@ -54,6 +62,8 @@ public class OnibusService {
     public Optional<OnibusDto> update(Long id, OnibusDto onibusDto) {
         Optional<Onibus> onibusOptional = repository.findById(id);
         if (onibusOptional.isEmpty()) return Optional.empty();
+        layoutOnibusCache.validar(onibusDto.layoutJson());
+        manifestoService.registrarAlteracaoPorOnibus(id);
 
         var onibusModel = onibusOptional.get();
         BeanUtils.copyProperties(onibusDto, onibusModel);
@@ -62,6 +72,7 @@ public class OnibusService {
         onibusModel.setIdOnibus(id);
 
         var onibusAtualizado = repository.save(onibusModel);
+        layoutOnibusCache.invalidar(id);
         return Optional.of(toDto(onibusAtualizado));
     }
 
@@ -70,6 +81,7 @@ public class OnibusService {
         Optional<Onibus> onibusOptional = repository.findById(id);
         if (onibusOptional.isEmpty()) return false;
         repository.delete(onibusOptional.get());
+        layoutOnibusCache.invalidar(id);
         return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import com.partricioturismo.crud.dtos.ReorderResponseDto;
+import com.partricioturismo.crud.repositories.PassageiroViagemRepository;
+import com.partricioturismo.crud.repositories.ViagemRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordenação "espaçada" da lista de passageiros (passageiro_viagem.ordem).
+ * As posições são múltiplos de ORDEM_INTERVALO, então mover um passageiro entre A e B
+ * grava apenas a linha dele (ponto médio). Quando o espaço acaba, a viagem é renumerada.
+ */
+@Service
+public class OrdemPassageiroService {
+
+    // Distância entre posições consecutivas após uma renumeração
+    public static final int ORDEM_INTERVALO = 1024;
+
+    // Abaixo deste espaço a viagem entra na fila de renumeração em segundo plano
+    private static final int ORDEM_INTERVALO_MINIMO = 16;
+
+    @Autowired private PassageiroViagemRepository repository;
+    @Autowired private ViagemRepository viagemRepository;
+    @Autowired private ManifestoService manifestoService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Viagens cujo espaço entre posições ficou apertado
+    private final Set<Long> viagensParaRebalancear = ConcurrentHashMap.newKeySet();
+
+    public OrdemPassageiroService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reordena a lista inteira (drag & drop em massa) com um único UPDATE.
+     */
+    @Transactional
+    public ReorderResponseDto reordenar(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("A lista de passageiros não pode ser vazia.");
+        }
+        if (new HashSet<>(ids).size() != ids.size()) {
+            throw new IllegalArgumentException("A lista de passageiros contém IDs repetidos.");
+        }
+
+        // 1. Valida que todos os IDs existem e pertencem à mesma viagem
+        List<Object[]> viagens = repository.contarPorViagem(ids);
+        if (viagens.size() != 1) {
+            throw new IllegalArgumentException("Todos os passageiros devem pertencer à mesma viagem.");
+        }
+        Long viagemId = (Long) viagens.get(0)[0];
+        long encontrados = (Long) viagens.get(0)[1];
+        if (encontrados != ids.size()) {
+            throw new EntityNotFoundException("Passageiro não encontrado na viagem.");
+        }
+
+        // 2. Trava a viagem e gera a nova versão do manifesto; 3. Grava toda a ordem em um único UPDATE
+        long versao = manifestoService.registrarAlteracao(viagemId);
+        manifestoService.publicarPassageiros(viagemId, versao, TipoAlteracao.REORDENADO, ids);
+        repository.reordenar(viagemId, ids.toArray(new Long[0]), ORDEM_INTERVALO);
+        viagensParaRebalancear.remove(viagemId);
+
+        return new ReorderResponseDto(viagemId, versao);
+    }
+
+    /**
+     * Move um passageiro para entre 'anteriorId' e 'proximoId' gravando apenas a linha dele.
+     * Sem 'anteriorId' vai para o início; sem 'proximoId' vai para o fim.
+     */
+    @Transactional
+    public ReorderResponseDto mover(Long id, Long anteriorId, Long proximoId) {
+        if (anteriorId == null && proximoId == null) {
+            throw new IllegalArgumentException("Informe ao menos um vizinho (anterior ou próximo).");
+        }
+        if (id.equals(anteriorId) || id.equals(proximoId)) {
+            throw new IllegalArgumentException("O passageiro não pode ser vizinho de si mesmo.");
+        }
+
+        // Trava a viagem do passageiro (todas as escritas de 'ordem' passam por esta trava)
+        Map<Long, Long> travada = manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.REORDENADO);
+        if (travada.isEmpty()) {
+            throw new EntityNotFoundException("Passageiro não encontrado");
+        }
+        Map.Entry<Long, Long> viagem = travada.entrySet().iterator().next();
+        Long viagemId = viagem.getKey();
+        Long versao = viagem.getValue();
+
+        Integer novaOrdem = calcularOrdemEntre(viagemId, anteriorId, proximoId);
+        if (novaOrdem == null) {
+            // Sem espaço entre os vizinhos: renumera a viagem e calcula de novo
+            rebalancear(viagemId);
+            novaOrdem = calcularOrdemEntre(viagemId, anteriorId, proximoId);
+        }
+
+        repository.atualizarOrdem(id, novaOrdem);
+        return new ReorderResponseDto(viagemId, versao);
+    }
+
+    /**
+     * Próxima posição livre no fim da lista da viagem.
+     */
+    @Transactional
+    public int proximaOrdem(Long viagemId) {
+        return reservarOrdens(viagemId, 1);
+    }
+
+    /**
+     * Reserva um bloco de 'quantidade' posições consecutivas no fim da lista e devolve a primeira.
+     * As demais são primeira + i * ORDEM_INTERVALO. A linha da viagem fica travada até o commit,
+     * então reservas simultâneas na mesma viagem nunca recebem a mesma posição.
+     */
+    @Transactional
+    public int reservarOrdens(Long viagemId, int quantidade) {
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("A quantidade de posições deve ser positiva.");
+        }
+        Integer primeira = viagemRepository.reservarOrdens(viagemId, quantidade, ORDEM_INTERVALO);
+        if (primeira == null) {
+            throw new EntityNotFoundException("Viagem não encontrada");
+        }
+        return primeira;
+    }
+
+    // Retorna null quando não há inteiro livre entre os vizinhos
+    private Integer calcularOrdemEntre(Long viagemId, Long anteriorId, Long proximoId) {
+        Set<Long> vizinhos = new HashSet<>();
+        if (anteriorId != null) vizinhos.add(anteriorId);
+        if (proximoId != null) vizinhos.add(proximoId);
+
+        Map<Long, Integer> ordens = new HashMap<>();
+        for (Object[] linha : repository.findOrdensByViagemIdAndIds(viagemId, vizinhos)) {
+            ordens.put((Long) linha[0], (Integer) linha[1]);
+        }
+        if (ordens.size() != vizinhos.size()) {
+            throw new IllegalArgumentException("Os vizinhos informados não pertencem à mesma viagem.");
+        }
+
+        int novaOrdem;
+        if (anteriorId == null) {
+            Integer min = repository.findMinOrdemByViagemId(viagemId);
+            int b = ordens.get(proximoId);
+            novaOrdem = Math.min(b, min == null ? b : min) - ORDEM_INTERVALO;
+        } else if (proximoId == null) {
+            // Fim da lista: usa o contador da viagem, que está sempre após a maior posição
+            novaOrdem = reservarOrdens(viagemId, 1);
+        } else {
+            int a = ordens.get(anteriorId);
+            int b = ordens.get(proximoId);
+            if (a >= b) {
+                throw new IllegalArgumentException("A ordem informada está desatualizada. Recarregue a lista.");
+            }
+            if (b - a < 2) return null;
+            novaOrdem = a + (b - a) / 2;
+            if (novaOrdem - a < ORDEM_INTERVALO_MINIMO || b - novaOrdem < ORDEM_INTERVALO_MINIMO) {
+                viagensParaRebalancear.add(viagemId);
+            }
+        }
+        return novaOrdem;
+    }
+
+    // Renumera a viagem (chamador já detém a trava da linha da viagem)
+    private void rebalancear(Long viagemId) {
+        repository.rebalancearOrdem(viagemId, ORDEM_INTERVALO);
+        viagemRepository.sincronizarProximaOrdem(viagemId, ORDEM_INTERVALO);
+        viagensParaRebalancear.remove(viagemId);
+    }
+
+    /**
+     * Renumera em segundo plano as viagens cujo espaço entre posições ficou apertado.
+     */
+    @Scheduled(fixedDelayString = "${ordem.rebalanceamento.intervalo-ms:60000}")
+    public void rebalancearPendentes() {
+        for (Long viagemId : Set.copyOf(viagensParaRebalancear)) {
+            viagensParaRebalancear.remove(viagemId);
+            transactionTemplate.executeWithoutResult(status -> {
+                long versao = manifestoService.registrarAlteracao(viagemId);
+                manifestoService.publicarPassageiros(viagemId, versao, TipoAlteracao.REORDENADO, null);
+                rebalancear(viagemId);
+            });
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package com.partricioturismo.crud.service;
 
 import com.partricioturismo.crud.dtos.*;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
 import com.partricioturismo.crud.model.*;
 import com.partricioturismo.crud.repositories.*;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.Random; // Import necessário para cor aleatória
 import java.util.stream.Collectors;
@@ -19,6 +27,9 @@ import java.util.stream.Collectors;
 @Service
 public class PassageiroViagemService {
 
+    // Maior página aceita na listagem geral
+    private static final int LIMITE_MAXIMO_PAGINA = 200;
+
     @Autowired private PassageiroViagemRepository repository;
     @Autowired private PessoaRepository pessoaRepository;
     @Autowired private ViagemRepository viagemRepository;
@@ -26,19 +37,44 @@ public class PassageiroViagemService {
     @Autowired private TaxistaRepository taxistaRepository;
     @Autowired private ComisseiroRepository comisseiroRepository;
     @Autowired private AssentoRepository assentoRepository;
-    @Autowired private OnibusRepository onibusRepository;
     @Autowired private EncomendaService encomendaService;
+    @Autowired private OrdemPassageiroService ordemService;
+    @Autowired private SeatInventory seatInventory;
+    @Autowired private ManifestoService manifestoService;
+    @Autowired private PessoaSearchIndex pessoaSearchIndex;
 
     // --- LEITURA ---
 
     @Transactional(readOnly = true)
-    public List<PassengerResponseDto> findAll() {
-        return repository.findAll().stream().map(PassengerResponseDto::new).collect(Collectors.toList());
+    public CursorPageDto<PassengerResponseDto> findAll(LocalDateTime inicio, LocalDateTime fim, Boolean pago,
+                                                       Long taxistaId, Long comisseiroId, String cursor, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+        LocalDateTime cursorPartida = posicao == null ? null : posicao.partida();
+        Long cursorId = posicao == null ? null : posicao.id();
+
+        // Busca um a mais para saber se existe próxima página
+        List<PassageiroViagem> lista = repository.findBy(
+                PassageiroViagemSpecs.comFiltros(inicio, fim, pago, taxistaId, comisseiroId, cursorPartida, cursorId),
+                q -> q.sortBy(Sort.by(Sort.Direction.DESC, "viagem.dataHoraPartida", "id")).limit(tamanho + 1).all());
+
+        String proximoCursor = null;
+        if (lista.size() > tamanho) {
+            lista = lista.subList(0, tamanho);
+            PassageiroViagem ultimo = lista.get(tamanho - 1);
+            proximoCursor = new CursorPaginacao(ultimo.getViagem().getDataHoraPartida(), ultimo.getId()).codificar();
+        }
+        return new CursorPageDto<>(lista.stream().map(PassengerResponseDto::new).collect(Collectors.toList()), proximoCursor);
     }
 
     @Transactional(readOnly = true)
     public List<PassengerResponseDto> findByViagemId(Long viagemId) {
-        return repository.findByViagemId(viagemId).stream().map(PassengerResponseDto::new).collect(Collectors.toList());
+        // Manifesto em uma única consulta projetada: o custo não cresce com o número de passageiros
+        List<ManifestoPassageiroView> linhas = repository.findManifestoByViagemId(viagemId);
+        if (linhas.isEmpty()) return new ArrayList<>();
+
+        ViagemLinhaMapper viagens = new ViagemLinhaMapper();
+        return linhas.stream().map(l -> new PassengerResponseDto(l, viagens.viagemDa(l))).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -68,20 +104,17 @@ public class PassageiroViagemService {
 
     // --- ORDENAÇÃO E VÍNCULOS ---
 
-    @Transactional
-    public void reordenarPassageiros(List<Long> ids) {
-        for (int i = 0; i < ids.size(); i++) {
-            Long id = ids.get(i);
-            final int novaOrdem = i;
-            repository.findById(id).ifPresent(pv -> {
-                pv.setOrdem(novaOrdem);
-                repository.save(pv);
-            });
-        }
+    public ReorderResponseDto reordenarPassageiros(List<Long> ids) {
+        return ordemService.reordenar(ids);
+    }
+
+    public ReorderResponseDto moverPassageiro(Long id, Long anteriorId, Long proximoId) {
+        return ordemService.mover(id, anteriorId, proximoId);
     }
 
     @Transactional
     public void desvincularGrupo(Long id) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.GRUPO_ALTERADO);
         PassageiroViagem p = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Passageiro não encontrado"));
         p.setGrupoId(null);
@@ -93,6 +126,7 @@ public class PassageiroViagemService {
     // ✅ VINCULAR COM ATUALIZAÇÃO DE COR
     @Transactional
     public void vincularGrupo(Long idOrigem, Long idDestino) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(idOrigem, idDestino), TipoAlteracao.GRUPO_ALTERADO);
         PassageiroViagem origem = repository.findById(idOrigem)
                 .orElseThrow(() -> new EntityNotFoundException("Passageiro origem não encontrado"));
         PassageiroViagem destino = repository.findById(idDestino)
@@ -129,56 +163,114 @@ public class PassageiroViagemService {
     }
 
     // --- SALVAR GRUPO FAMÍLIA (Com Cor Unificada) ---
+    // Processado em lote: o número de consultas não depende do tamanho da família.
     @Transactional
     public List<PassengerResponseDto> salvarGrupoFamilia(FamilyGroupRequestDto dto) {
-        Viagem viagem = viagemRepository.findById(dto.viagemId())
+        if (dto.membros() == null || dto.membros().isEmpty()) {
+            throw new IllegalArgumentException("O grupo precisa de ao menos um membro.");
+        }
+
+        // 1. Viagem com os ônibus (1 consulta)
+        Viagem viagem = viagemRepository.findByIdComOnibus(dto.viagemId())
                 .orElseThrow(() -> new EntityNotFoundException("Viagem não encontrada"));
+        long versao = manifestoService.registrarAlteracao(viagem.getId());
+
+        // 2. Todas as Pessoas por ID ou CPF (1 consulta com IN)
+        Map<Long, Pessoa> pessoasPorId = new HashMap<>();
+        Map<String, Pessoa> pessoasPorCpf = new HashMap<>();
+        Set<Long> pessoaIds = new HashSet<>();
+        Set<String> cpfs = new HashSet<>();
+        for (FamilyMemberDto m : dto.membros()) {
+            if (m.pessoaId() != null) pessoaIds.add(m.pessoaId());
+            if (m.cpf() != null && !m.cpf().isEmpty()) cpfs.add(m.cpf());
+        }
+        if (!pessoaIds.isEmpty() || !cpfs.isEmpty()) {
+            for (Pessoa p : pessoaRepository.findAllByIdInOrCpfIn(comSentinela(pessoaIds, -1L), comSentinela(cpfs, ""))) {
+                pessoasPorId.put(p.getId(), p);
+                if (p.getCpf() != null) pessoasPorCpf.put(p.getCpf(), p);
+            }
+        }
+
+        List<Pessoa> pessoasNovas = new ArrayList<>();
+        List<Pessoa> pessoasDosMembros = new ArrayList<>();
+        for (FamilyMemberDto m : dto.membros()) {
+            Pessoa pessoa = m.pessoaId() != null ? pessoasPorId.get(m.pessoaId()) : null;
+            if (pessoa != null) {
+                pessoa.setNome(m.nome()); pessoa.setCpf(m.cpf()); pessoa.setTelefone(m.telefone());
+            } else {
+                pessoa = (m.cpf() != null && !m.cpf().isEmpty()) ? pessoasPorCpf.get(m.cpf()) : null;
+                if (pessoa == null) {
+                    pessoa = new Pessoa(); pessoa.setNome(m.nome()); pessoa.setCpf(m.cpf()); pessoa.setTelefone(m.telefone());
+                    pessoasNovas.add(pessoa);
+                    if (m.cpf() != null && !m.cpf().isEmpty()) pessoasPorCpf.put(m.cpf(), pessoa);
+                }
+            }
+            pessoasDosMembros.add(pessoa);
+        }
 
-        // 1. Determina ID e COR do Grupo
+        // 3. Passageiros já existentes na viagem, por ID ou por Pessoa (1 consulta)
+        Set<Long> pvIds = new HashSet<>();
+        for (FamilyMemberDto m : dto.membros()) {
+            if (m.id() != null) pvIds.add(m.id());
+        }
+        Set<Long> pessoaIdsExistentes = new HashSet<>();
+        for (Pessoa p : pessoasDosMembros) {
+            if (p.getId() != null) pessoaIdsExistentes.add(p.getId());
+        }
+        Map<Long, PassageiroViagem> existentesPorId = new HashMap<>();
+        Map<Long, PassageiroViagem> existentesPorPessoa = new HashMap<>();
+        if (!pvIds.isEmpty() || !pessoaIdsExistentes.isEmpty()) {
+            for (PassageiroViagem pv : repository.findParaGrupo(viagem.getId(),
+                    comSentinela(pvIds, -1L), comSentinela(pessoaIdsExistentes, -1L))) {
+                existentesPorId.put(pv.getId(), pv);
+                existentesPorPessoa.put(pv.getPessoa().getId(), pv);
+            }
+        }
+
+        // 4. Determina ID e COR do Grupo (reaproveita de algum membro existente)
         String grupoId = UUID.randomUUID().toString();
         String corGrupo = gerarCorAleatoria(); // Cor padrão para novo grupo
-
-        // Tenta reaproveitar ID e Cor de algum membro existente
-        for(FamilyMemberDto m : dto.membros()) {
-            if(m.id() != null) {
-                Optional<PassageiroViagem> ex = repository.findById(m.id());
-                if(ex.isPresent() && ex.get().getGrupoId() != null) {
-                    grupoId = ex.get().getGrupoId();
-                    // Se o grupo já tem cor, usamos ela
-                    if (ex.get().getCorTag() != null && !ex.get().getCorTag().isEmpty()) {
-                        corGrupo = ex.get().getCorTag();
-                    }
-                    break;
+        for (FamilyMemberDto m : dto.membros()) {
+            PassageiroViagem ex = m.id() != null ? existentesPorId.get(m.id()) : null;
+            if (ex != null && ex.getGrupoId() != null) {
+                grupoId = ex.getGrupoId();
+                // Se o grupo já tem cor, usamos ela
+                if (ex.getCorTag() != null && !ex.getCorTag().isEmpty()) {
+                    corGrupo = ex.getCorTag();
                 }
+                break;
             }
         }
 
-        // 2. Dados Compartilhados
-        Taxista tc = dto.taxistaColetaId() != null ? taxistaRepository.findById(dto.taxistaColetaId()).orElse(null) : null;
-        Taxista te = dto.taxistaEntregaId() != null ? taxistaRepository.findById(dto.taxistaEntregaId()).orElse(null) : null;
+        // 5. Dados Compartilhados (consultas fixas por grupo)
+        Taxista tc = null, te = null;
+        Set<Long> taxistaIds = new HashSet<>();
+        if (dto.taxistaColetaId() != null) taxistaIds.add(dto.taxistaColetaId());
+        if (dto.taxistaEntregaId() != null) taxistaIds.add(dto.taxistaEntregaId());
+        if (!taxistaIds.isEmpty()) {
+            for (Taxista t : taxistaRepository.findAllById(taxistaIds)) {
+                if (t.getId().equals(dto.taxistaColetaId())) tc = t;
+                if (t.getId().equals(dto.taxistaEntregaId())) te = t;
+            }
+        }
         Comisseiro c = dto.comisseiroId() != null ? comisseiroRepository.findById(dto.comisseiroId()).orElse(null) : null;
         Endereco ec = resolverEndereco(dto.enderecoColeta());
         Endereco ee = resolverEndereco(dto.enderecoEntrega());
 
-        List<PassageiroViagem> listaSalva = new ArrayList<>();
+        // 6. Monta os passageiros em memória
+        List<PassageiroViagem> grupo = new ArrayList<>();
+        List<PassageiroViagem> novos = new ArrayList<>();
+        for (int i = 0; i < dto.membros().size(); i++) {
+            FamilyMemberDto m = dto.membros().get(i);
+            Pessoa pessoa = pessoasDosMembros.get(i);
 
-        for (FamilyMemberDto m : dto.membros()) {
-            Pessoa pessoa = resolverPessoa(m);
-            PassageiroViagem pv = null;
-
-            if (m.id() != null) {
-                pv = repository.findById(m.id()).orElse(null);
-            }
-            if (pv == null) {
-                pv = repository.findByPessoaAndViagem(pessoa.getId(), viagem.getId()).orElse(null);
-            }
+            PassageiroViagem pv = m.id() != null ? existentesPorId.get(m.id()) : null;
+            if (pv == null && pessoa.getId() != null) pv = existentesPorPessoa.get(pessoa.getId());
             if (pv == null) {
                 pv = new PassageiroViagem();
-                pv.setPessoa(pessoa);
                 pv.setViagem(viagem);
-                Integer max = repository.findMaxOrdemByViagemId(viagem.getId());
-                pv.setOrdem(max == null ? 0 : max + 1);
                 pv.setPago(false);
+                novos.add(pv);
             }
 
             // Atualiza Grupo e COR
@@ -192,18 +284,99 @@ public class PassageiroViagemService {
             pv.setEnderecoEntrega(ee);
             pv.setValor(dto.valorIndividual());
             pv.setPessoa(pessoa);
+            grupo.add(pv);
+        }
+
+        // 7. Reserva de uma vez as posições dos novos no fim da lista (1 consulta)
+        if (!novos.isEmpty()) {
+            int proximaOrdem = ordemService.reservarOrdens(viagem.getId(), novos.size());
+            for (PassageiroViagem pv : novos) {
+                pv.setOrdem(proximaOrdem);
+                proximaOrdem += OrdemPassageiroService.ORDEM_INTERVALO;
+            }
+        }
+
+        // 8. Inserções em lote (Pessoas antes dos Passageiros que as referenciam)
+        if (!pessoasNovas.isEmpty()) pessoaRepository.saveAll(pessoasNovas);
+        pessoaSearchIndex.atualizar(pessoasDosMembros);
+        if (!novos.isEmpty()) repository.saveAll(novos);
 
-            PassageiroViagem salvo = repository.save(pv);
+        // 9. Assentos do grupo resolvidos em lote
+        vincularAssentosDoGrupo(viagem, dto.membros(), grupo);
 
-            if (m.numeroAssento() != null && !m.numeroAssento().isEmpty()) {
-                vincularAssentoPorNumero(salvo.getId(), null, m.numeroAssento());
-                salvo = repository.findById(salvo.getId()).orElse(salvo);
+        manifestoService.publicarPassageiros(viagem.getId(), versao, TipoAlteracao.GRUPO_ALTERADO,
+                grupo.stream().map(PassageiroViagem::getId).collect(Collectors.toList()));
+
+        return grupo.stream().map(PassengerResponseDto::new).collect(Collectors.toList());
+    }
+
+    // Vincula os assentos pedidos pelos membros no primeiro ônibus da viagem (mesma regra de vincularAssentoPorNumero)
+    private void vincularAssentosDoGrupo(Viagem viagem, List<FamilyMemberDto> membros, List<PassageiroViagem> grupo) {
+        Map<String, PassageiroViagem> pedidos = new LinkedHashMap<>();
+        for (int i = 0; i < membros.size(); i++) {
+            String numero = membros.get(i).numeroAssento();
+            if (numero == null || numero.isEmpty()) continue;
+            if (pedidos.put(numero, grupo.get(i)) != null) {
+                throw new IllegalArgumentException("Assento " + numero + " repetido no grupo.");
+            }
+        }
+        if (pedidos.isEmpty() || viagem.getListaOnibus() == null || viagem.getListaOnibus().isEmpty()) return;
+        Onibus onibus = viagem.getListaOnibus().get(0);
+
+        // Escritas por entidade: trava o mapa da viagem e recarrega-o após o commit
+        seatInventory.travar(viagem.getId());
+        seatInventory.invalidar(viagem.getId());
+
+        // Assentos já existentes com seus ocupantes (1 consulta); os que faltam são criados em lote
+        Map<String, Assento> assentos = new HashMap<>();
+        for (Assento a : assentoRepository.findComOcupanteByViagemIdAndOnibusIdAndNumeroIn(
+                viagem.getId(), onibus.getIdOnibus(), pedidos.keySet())) {
+            assentos.put(a.getNumero(), a);
+        }
+        List<Assento> assentosNovos = new ArrayList<>();
+        for (String numero : pedidos.keySet()) {
+            if (!assentos.containsKey(numero)) {
+                Assento a = new Assento(); a.setViagem(viagem); a.setOnibus(onibus); a.setNumero(numero); a.setOcupado(false);
+                assentos.put(numero, a);
+                assentosNovos.add(a);
+            }
+        }
+        if (!assentosNovos.isEmpty()) SeatInventory.semConflito(() -> assentoRepository.saveAllAndFlush(assentosNovos));
+
+        // Libera os assentos antigos e desaloja ocupantes de fora antes de gravar os novos vínculos
+        boolean liberou = false;
+        for (Map.Entry<String, PassageiroViagem> pedido : pedidos.entrySet()) {
+            Assento novo = assentos.get(pedido.getKey());
+            PassageiroViagem pv = pedido.getValue();
+            if (novo.equals(pv.getAssento())) continue;
+
+            PassageiroViagem ocupante = novo.getPassageiroViagem();
+            if (ocupante != null && ocupante != pv) {
+                ocupante.setAssento(null);
+                liberou = true;
+            }
+            if (pv.getAssento() != null) {
+                Assento antigo = pv.getAssento();
+                antigo.setOcupado(false); antigo.setPassageiroViagem(null);
+                pv.setAssento(null);
+                liberou = true;
             }
+        }
+        // Grava as liberações primeiro para não violar uq_assento_viagem (1 lote)
+        if (liberou) repository.flush();
 
-            listaSalva.add(salvo);
+        for (Map.Entry<String, PassageiroViagem> pedido : pedidos.entrySet()) {
+            Assento novo = assentos.get(pedido.getKey());
+            PassageiroViagem pv = pedido.getValue();
+            novo.setOcupado(true); novo.setPassageiroViagem(pv); pv.setAssento(novo);
         }
+        // Grava os vínculos já aqui: outra instância pode ter ocupado o assento (uq_assento_viagem)
+        SeatInventory.semConflito(() -> repository.saveAllAndFlush(grupo));
+    }
 
-        return listaSalva.stream().map(PassengerResponseDto::new).collect(Collectors.toList());
+    // IN com coleção vazia não é portável; usa um valor que nunca casa
+    private static <T> Collection<T> comSentinela(Collection<T> valores, T sentinela) {
+        return valores.isEmpty() ? List.of(sentinela) : valores;
     }
 
     // --- ESCRITA INDIVIDUAL ---
@@ -212,6 +385,7 @@ public class PassageiroViagemService {
     public PassengerResponseDto save(PassengerSaveRequestDto dto) {
         Viagem viagem = viagemRepository.findById(dto.viagemId()).orElseThrow(() -> new EntityNotFoundException("Viagem não encontrada"));
         Pessoa pessoa = pessoaRepository.findById(dto.pessoaId()).orElseThrow(() -> new EntityNotFoundException("Pessoa não encontrada"));
+        long versao = manifestoService.registrarAlteracao(viagem.getId());
 
         PassageiroViagem pv = new PassageiroViagem();
         pv.setPessoa(pessoa);
@@ -219,20 +393,23 @@ public class PassageiroViagemService {
 
         atualizarCamposComuns(pv, dto);
 
-        Integer max = repository.findMaxOrdemByViagemId(viagem.getId());
-        pv.setOrdem(max == null ? 0 : max + 1);
+        pv.setOrdem(ordemService.proximaOrdem(viagem.getId()));
 
         pv = repository.save(pv);
+        manifestoService.publicarPassageiros(viagem.getId(), versao, TipoAlteracao.PASSAGEIRO_ADICIONADO, List.of(pv.getId()));
 
         if (dto.assentoId() != null) {
             Assento a = assentoRepository.findById(dto.assentoId()).orElse(null);
-            if(a != null) vincularAssentoPorNumero(pv.getId(), null, a.getNumero());
+            if (a != null) {
+                return vincularAssentoPorNumero(pv.getId(), a.getOnibus() != null ? a.getOnibus().getIdOnibus() : null, a.getNumero());
+            }
         }
         return new PassengerResponseDto(pv);
     }
 
     @Transactional
     public Optional<PassengerResponseDto> update(Long id, PassengerSaveRequestDto dto) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.PASSAGEIRO_ATUALIZADO);
         Optional<PassageiroViagem> pvOpt = repository.findById(id);
         if (pvOpt.isEmpty()) return Optional.empty();
         PassageiroViagem pv = pvOpt.get();
@@ -242,11 +419,16 @@ public class PassageiroViagemService {
 
     @Transactional
     public boolean delete(Long id) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.PASSAGEIRO_REMOVIDO);
         Optional<PassageiroViagem> pv = repository.findById(id);
         if (pv.isEmpty()) return false;
         if (pv.get().getAssento() != null) {
-            pv.get().getAssento().setOcupado(false);
-            pv.get().getAssento().setPassageiroViagem(null);
+            Assento assento = pv.get().getAssento();
+            seatInventory.travar(pv.get().getViagem().getId());
+            assento.setOcupado(false);
+            assento.setPassageiroViagem(null);
+            seatInventory.liberar(pv.get().getViagem().getId(),
+                    assento.getOnibus() != null ? assento.getOnibus().getIdOnibus() : null, assento.getNumero());
         }
         repository.delete(pv.get());
         return true;
@@ -254,6 +436,7 @@ public class PassageiroViagemService {
 
     @Transactional
     public Optional<PassengerResponseDto> markAsPaid(Long id) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.PAGAMENTO_ALTERADO);
         return repository.findById(id).map(pv -> {
             pv.setPago(!pv.isPago());
             return new PassengerResponseDto(repository.save(pv));
@@ -262,58 +445,77 @@ public class PassageiroViagemService {
 
     @Transactional
     public PassengerResponseDto updateCor(Long id, String cor) {
+        manifestoService.registrarAlteracaoPorPassageiros(List.of(id), TipoAlteracao.COR_ALTERADA);
         PassageiroViagem pv = repository.findById(id).orElseThrow(() -> new EntityNotFoundException("Passageiro não encontrado"));
         pv.setCorTag(cor);
         return new PassengerResponseDto(repository.save(pv));
     }
 
     // --- VINCULAR ASSENTO ---
+    // Uma leitura e um único comando de escrita por clique, serializados por viagem no SeatInventory
     @Transactional
     public PassengerResponseDto vincularAssentoPorNumero(Long passageiroId, Long onibusId, String numeroAssento) {
-        PassageiroViagem pv = repository.findById(passageiroId).orElseThrow(() -> new EntityNotFoundException("Passageiro não encontrado"));
-
-        if (pv.getAssento() != null && numeroAssento != null && numeroAssento.equals(pv.getAssento().getNumero())) {
-            return new PassengerResponseDto(pv);
-        }
+        List<Object[]> situacao = repository.findSituacaoAssento(passageiroId);
+        if (situacao.isEmpty()) throw new EntityNotFoundException("Passageiro não encontrado");
+        Long viagemId = ((Number) situacao.get(0)[0]).longValue();
+
+        long versao = manifestoService.registrarAlteracao(viagemId);
+        manifestoService.publicarPassageiros(viagemId, versao, TipoAlteracao.ASSENTO_ALTERADO, List.of(passageiroId));
+        seatInventory.travar(viagemId);
+        // Relê sob a trava: outro atendente pode ter mexido no passageiro enquanto esperávamos
+        Object[] atual = repository.findSituacaoAssento(passageiroId).get(0);
+        String numeroAtual = (String) atual[1];
+        Long onibusAtual = atual[2] != null ? ((Number) atual[2]).longValue() : null;
 
         if (numeroAssento == null || numeroAssento.isEmpty()) {
-            if (pv.getAssento() != null) {
-                Assento old = pv.getAssento(); old.setOcupado(false); old.setPassageiroViagem(null); assentoRepository.save(old); pv.setAssento(null);
+            if (numeroAtual != null) {
+                repository.liberarAssento(passageiroId);
+                seatInventory.liberar(viagemId, onibusAtual, numeroAtual);
             }
-            return new PassengerResponseDto(repository.save(pv));
+            return buscarResposta(passageiroId);
         }
 
-        Long busIdTemp = onibusId;
-        if (busIdTemp == null && pv.getViagem().getListaOnibus() != null && !pv.getViagem().getListaOnibus().isEmpty()) {
-            busIdTemp = pv.getViagem().getListaOnibus().get(0).getIdOnibus();
-        }
-        if (busIdTemp == null) return new PassengerResponseDto(repository.save(pv));
-
-        final Long finalBusId = busIdTemp;
-        Assento novo = assentoRepository.findByViagemIdAndOnibusIdAndNumero(pv.getViagem().getId(), finalBusId, numeroAssento)
-                .orElseGet(() -> {
-                    Onibus bus = onibusRepository.findById(finalBusId).orElseThrow(() -> new EntityNotFoundException("Ônibus não encontrado"));
-                    Assento a = new Assento(); a.setViagem(pv.getViagem()); a.setOnibus(bus); a.setNumero(numeroAssento); a.setOcupado(false);
-                    return assentoRepository.save(a);
-                });
-
-        if (novo.isOcupado()) {
-            PassageiroViagem ocupanteAtual = novo.getPassageiroViagem();
-            if (ocupanteAtual != null && !ocupanteAtual.getId().equals(pv.getId())) {
-                ocupanteAtual.setAssento(null);
-                repository.save(ocupanteAtual);
-                novo.setPassageiroViagem(null);
-                novo.setOcupado(false);
-                assentoRepository.save(novo);
-            }
+        Long busId = onibusId != null ? onibusId : (atual[3] != null ? ((Number) atual[3]).longValue() : null);
+        if (busId == null) return buscarResposta(passageiroId);
+
+        if (numeroAssento.equals(numeroAtual) && busId.equals(onibusAtual)) {
+            return buscarResposta(passageiroId);
         }
 
-        if(pv.getAssento() != null && !pv.getAssento().getId().equals(novo.getId())) {
-            Assento old = pv.getAssento(); old.setOcupado(false); old.setPassageiroViagem(null); assentoRepository.save(old);
+        SeatInventory.semConflito(() -> repository.ocuparAssento(passageiroId, viagemId, busId, numeroAssento));
+        if (numeroAtual != null) seatInventory.liberar(viagemId, onibusAtual, numeroAtual);
+        seatInventory.ocupar(viagemId, busId, numeroAssento);
+        return buscarResposta(passageiroId);
+    }
+
+    /**
+     * Troca os assentos de dois passageiros da mesma viagem em uma única operação.
+     */
+    @Transactional
+    public List<PassengerResponseDto> trocarAssentos(Long id, Long outroId) {
+        if (id.equals(outroId)) {
+            throw new IllegalArgumentException("Informe dois passageiros diferentes.");
+        }
+        List<Object[]> viagens = repository.contarPorViagem(List.of(id, outroId));
+        if (viagens.size() > 1) {
+            throw new IllegalArgumentException("Os passageiros devem pertencer à mesma viagem.");
+        }
+        if (viagens.isEmpty() || (Long) viagens.get(0)[1] != 2) {
+            throw new EntityNotFoundException("Passageiro não encontrado");
         }
 
-        novo.setOcupado(true); novo.setPassageiroViagem(pv); pv.setAssento(novo); assentoRepository.save(novo);
-        return new PassengerResponseDto(repository.save(pv));
+        // O conjunto de assentos ocupados não muda, então o mapa em memória continua válido
+        Long viagemId = (Long) viagens.get(0)[0];
+        long versao = manifestoService.registrarAlteracao(viagemId);
+        manifestoService.publicarPassageiros(viagemId, versao, TipoAlteracao.ASSENTO_ALTERADO, List.of(id, outroId));
+        seatInventory.travar(viagemId);
+        repository.trocarAssentos(id, outroId);
+        return List.of(buscarResposta(id), buscarResposta(outroId));
+    }
+
+    private PassengerResponseDto buscarResposta(Long passageiroId) {
+        return repository.findById(passageiroId).map(PassengerResponseDto::new)
+                .orElseThrow(() -> new EntityNotFoundException("Passageiro não encontrado"));
     }
 
     // --- HELPERS ---
@@ -337,17 +539,34 @@ public class PassageiroViagemService {
         pv.setComisseiro(dto.comisseiroId() != null ? comisseiroRepository.findById(dto.comisseiroId()).orElse(null) : null);
     }
 
+    // Uma ida ao banco por tabela, qualquer que seja a quantidade de passageiros/encomendas
     @Transactional
-    public void atribuirTaxistaEmMassa(List<Long> pIds, List<Long> eIds, Long tId, String tipo) {
-        Taxista t = tId != null ? taxistaRepository.findById(tId).orElseThrow() : null;
-        if (pIds != null) {
-            for (PassageiroViagem pv : repository.findAllById(pIds)) {
-                if ("COLETA".equalsIgnoreCase(tipo)) pv.setTaxistaColeta(t);
-                else if ("ENTREGA".equalsIgnoreCase(tipo)) pv.setTaxistaEntrega(t);
-                repository.save(pv);
-            }
-        }
-        if (eIds != null) encomendaService.atribuirTaxistaEmMassa(eIds, tId, tipo);
+    public BulkAssignResponseDto atribuirTaxistaEmMassa(List<Long> pIds, List<Long> eIds, Long tId, String tipo) {
+        // Valida tipo e taxista antes de travar ou alterar qualquer coisa
+        String tipoAtribuicao = encomendaService.validarAtribuicao(tId, tipo);
+        Long[] passageiroIds = pIds == null ? new Long[0] : pIds.toArray(new Long[0]);
+        Long[] encomendaIds = eIds == null ? new Long[0] : eIds.toArray(new Long[0]);
+
+        // Viagens antes das linhas, todas de uma vez em ordem de ID, como as demais escritas: travar a linha
+        // primeiro e a viagem depois dá deadlock com um update() do mesmo passageiro
+        Map<Long, Long> versoes = manifestoService.registrarAlteracaoPorPassageirosEEncomendas(passageiroIds, encomendaIds);
+        Long[] viagemIds = versoes.keySet().toArray(new Long[0]);
+
+        // Só linhas das viagens travadas: uma que mudou de viagem nesse meio-tempo volta como ignorada
+        List<Long> passageiros = passageiroIds.length == 0 ? List.of()
+                : repository.atribuirTaxista(passageiroIds, viagemIds, tId, tipoAtribuicao);
+        List<Long> encomendas = encomendaService.atribuirTaxista(encomendaIds, viagemIds, tId, tipoAtribuicao);
+        manifestoService.publicar(versoes, TipoAlteracao.TAXISTA_ATRIBUIDO, passageiros, encomendas);
+
+        return new BulkAssignResponseDto(passageiros.size(), encomendas.size(),
+                ignorados(pIds, passageiros), ignorados(eIds, encomendas));
+    }
+
+    // IDs pedidos que o UPDATE não encontrou
+    private static List<Long> ignorados(List<Long> pedidos, List<Long> alterados) {
+        if (pedidos == null) return List.of();
+        Set<Long> feitos = new HashSet<>(alterados);
+        return pedidos.stream().filter(id -> !feitos.contains(id)).distinct().collect(Collectors.toList());
     }
 
     private Endereco resolverEndereco(EnderecoDto dto) {
@@ -360,22 +579,4 @@ public class PassageiroViagemService {
         }
         return null;
     }
-
-    private Pessoa resolverPessoa(FamilyMemberDto dto) {
-        if(dto.pessoaId() != null) {
-            return pessoaRepository.findById(dto.pessoaId()).map(p -> {
-                p.setNome(dto.nome()); p.setCpf(dto.cpf()); p.setTelefone(dto.telefone()); return pessoaRepository.save(p);
-            }).orElseGet(() -> criarPessoa(dto));
-        }
-        return criarPessoa(dto);
-    }
-
-    private Pessoa criarPessoa(FamilyMemberDto dto) {
-        if(dto.cpf() != null && !dto.cpf().isEmpty()) {
-            Optional<Pessoa> p = pessoaRepository.findByCpf(dto.cpf());
-            if(p.isPresent()) return p.get();
-        }
-        Pessoa p = new Pessoa(); p.setNome(dto.nome()); p.setCpf(dto.cpf()); p.setTelefone(dto.telefone());
-        return pessoaRepository.save(p);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Viagem;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PassageiroViagemSpecs {
+
+    /**
+     * Filtros da listagem geral de passageiros. Com 'cursorPartida'/'cursorId' traz apenas
+     * o que vem depois do cursor na ordem (dataHoraPartida DESC, id DESC).
+     */
+    public static Specification<PassageiroViagem> comFiltros(LocalDateTime inicio, LocalDateTime fim, Boolean pago,
+                                                             Long taxistaId, Long comisseiroId,
+                                                             LocalDateTime cursorPartida, Long cursorId) {
+        return (root, query, builder) -> {
+            Join<PassageiroViagem, Viagem> viagem = root.join("viagem");
+            Path<LocalDateTime> partida = viagem.get("dataHoraPartida");
+
+            // Carrega junto o que o PassengerResponseDto usa (só na consulta de dados, não em contagens)
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("pessoa");
+                root.fetch("enderecoColeta", JoinType.LEFT);
+                root.fetch("enderecoEntrega", JoinType.LEFT);
+                root.fetch("taxistaColeta", JoinType.LEFT);
+                root.fetch("taxistaEntrega", JoinType.LEFT);
+                root.fetch("comisseiro", JoinType.LEFT);
+                root.fetch("assento", JoinType.LEFT);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            // 1. Período da viagem (intervalo direto na coluna, aproveita o índice)
+            if (inicio != null) predicates.add(builder.greaterThanOrEqualTo(partida, inicio));
+            if (fim != null) predicates.add(builder.lessThanOrEqualTo(partida, fim));
+
+            // 2. Situação do pagamento
+            if (pago != null) predicates.add(builder.equal(root.get("pago"), pago));
+
+            // 3. Taxista (coleta ou entrega) e comisseiro
+            if (taxistaId != null) {
+                predicates.add(builder.or(
+                        builder.equal(root.get("taxistaColeta").get("id"), taxistaId),
+                        builder.equal(root.get("taxistaEntrega").get("id"), taxistaId)));
+            }
+            if (comisseiroId != null) {
+                predicates.add(builder.equal(root.get("comisseiro").get("id"), comisseiroId));
+            }
+
+            // 4. Cursor (keyset): (partida, id) < (cursorPartida, cursorId)
+            if (cursorPartida != null && cursorId != null) {
+                predicates.add(builder.or(
+                        builder.lessThan(partida, cursorPartida),
+                        builder.and(builder.equal(partida, cursorPartida), builder.lessThan(root.get("id"), cursorId))));
+            }
+
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,312 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.PessoaDto;
+import com.partricioturismo.crud.dtos.ViagemLinhaView;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.repositories.PessoaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice em memória do autocomplete de pessoas (PessoaSearchCombobox).
+ * Termos indexados: palavras do nome sem acento, dígitos do CPF e dígitos de cada telefone.
+ * Prefixos são resolvidos no mapa ordenado de termos; trechos do meio (CPF ou telefone parcial,
+ * pedaço do nome) pelos trigramas. Resultados: prefixo antes de trecho, depois quem viajou por último.
+ *
+ * Carregado uma vez na subida; as escritas do PessoaService chegam aqui só após o commit.
+ * A carga monta um índice novo sem segurar a trava e troca o atual de uma vez; as escritas que
+ * chegaram enquanto ela lia o banco são reaplicadas no índice novo antes da troca.
+ *
+ * O índice é desta JVM: com mais de uma instância, cada uma só vê as escritas feitas por ela
+ * (as das outras aparecem na próxima carga, ao reiniciar).
+ */
+@Component
+public class PessoaSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PessoaSearchIndex.class);
+
+    private static final int MAX_RESULTADOS = 10;
+    private static final int TAMANHO_NGRAMA = 3;
+
+    // Pontuação de cada termo da consulta
+    private static final int PONTOS_EXATO = 3;
+    private static final int PONTOS_PREFIXO = 2;
+    private static final int PONTOS_TRECHO = 1;
+
+    @Autowired private PessoaRepository repository;
+
+    private record Entrada(PessoaDto pessoa, Set<String> termos, String texto, long ultimaViagem) {}
+
+    private record Resultado(Entrada entrada, int pontos) {}
+
+    private final ReadWriteLock trava = new ReentrantReadWriteLock();
+
+    // Protegidos pela trava
+    private Indice indice = new Indice();
+    private List<Consumer<Indice>> escritasDuranteCarga; // null fora de uma carga
+
+    private volatile boolean pronto = false;
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        long inicio = System.nanoTime();
+        trava.writeLock().lock();
+        try {
+            escritasDuranteCarga = new ArrayList<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+
+        Indice novo = null;
+        int total = 0;
+        try {
+            List<Object[]> linhas = repository.findLinhasIndiceBusca();
+            Indice montado = new Indice();
+            for (Object[] l : linhas) {
+                PessoaDto pessoa = new PessoaDto(((Number) l[0]).longValue(), (String) l[1], (String) l[2],
+                        ViagemLinhaView.telefones((String) l[4]), l[3] == null ? null : ((Number) l[3]).intValue());
+                montado.indexar(novaEntrada(pessoa, l[5] == null ? 0L : ((Number) l[5]).longValue()));
+            }
+            novo = montado;
+            total = linhas.size();
+        } finally {
+            trava.writeLock().lock();
+            try {
+                if (novo != null) {
+                    // A leitura pode já ter visto algumas dessas escritas; reaplicar não muda o resultado
+                    for (Consumer<Indice> escrita : escritasDuranteCarga) escrita.accept(novo);
+                    indice = novo;
+                    pronto = true;
+                }
+                escritasDuranteCarga = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+        log.info("Índice de busca de pessoas carregado: {} pessoas em {} ms", total, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Até 10 pessoas em que cada termo da consulta casa com o início de uma palavra do nome,
+     * do CPF ou de um telefone, ou (termos com 3+ caracteres) aparece no meio deles.
+     */
+    public List<PessoaDto> buscar(String consulta) {
+        List<String> termos = TextoNormalizador.termosDeBusca(consulta);
+        if (termos.isEmpty()) return List.of();
+
+        trava.readLock().lock();
+        try {
+            Map<Long, Integer> pontos = null;
+            for (String termo : termos) {
+                Map<Long, Integer> doTermo = indice.pontuar(termo);
+                if (pontos == null) {
+                    pontos = doTermo;
+                } else {
+                    // Todos os termos precisam casar
+                    Map<Long, Integer> acumulado = pontos;
+                    pontos = new HashMap<>();
+                    for (Map.Entry<Long, Integer> e : doTermo.entrySet()) {
+                        Integer anterior = acumulado.get(e.getKey());
+                        if (anterior != null) pontos.put(e.getKey(), anterior + e.getValue());
+                    }
+                }
+                if (pontos.isEmpty()) return List.of();
+            }
+
+            List<Resultado> resultados = new ArrayList<>(pontos.size());
+            pontos.forEach((id, p) -> resultados.add(new Resultado(indice.entradas.get(id), p)));
+            resultados.sort(Comparator.comparingInt(Resultado::pontos).reversed()
+                    .thenComparing(Comparator.comparingLong((Resultado r) -> r.entrada().ultimaViagem()).reversed())
+                    .thenComparing(r -> r.entrada().texto()));
+            return resultados.stream().limit(MAX_RESULTADOS).map(r -> r.entrada().pessoa()).toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // Pessoa criada ou alterada: aplicado após o commit (imediatamente fora de transação)
+    public void atualizar(Pessoa pessoa) {
+        atualizar(List.of(pessoa));
+    }
+
+    public void atualizar(Collection<Pessoa> pessoas) {
+        // Cópia do estado atual: a entidade pode mudar até o commit
+        List<PessoaDto> copias = pessoas.stream()
+                .map(p -> new PessoaDto(p.getId(), p.getNome(), p.getCpf(),
+                        p.getTelefones() == null ? List.of() : List.copyOf(p.getTelefones()), p.getIdade()))
+                .toList();
+        aposCommit(() -> escrever(alvo -> {
+            for (PessoaDto p : copias) {
+                Entrada anterior = alvo.entradas.get(p.id());
+                alvo.indexar(novaEntrada(p, anterior == null ? 0L : anterior.ultimaViagem()));
+            }
+        }));
+    }
+
+    public void remover(Long pessoaId) {
+        aposCommit(() -> escrever(alvo -> alvo.desindexar(pessoaId)));
+    }
+
+    /**
+     * Atualiza a data da última viagem de cada pessoa (ordenação dos resultados).
+     */
+    @Scheduled(fixedDelayString = "${pessoa.busca.recencia-ms:600000}", initialDelayString = "${pessoa.busca.recencia-ms:600000}")
+    public void atualizarRecencia() {
+        if (!pronto) return;
+        List<Object[]> linhas = repository.findUltimasViagens();
+        trava.writeLock().lock();
+        try {
+            for (Object[] l : linhas) {
+                Entrada e = indice.entradas.get(((Number) l[0]).longValue());
+                long ultima = ((Number) l[1]).longValue();
+                if (e != null && e.ultimaViagem() != ultima) {
+                    indice.entradas.put(e.pessoa().id(), new Entrada(e.pessoa(), e.termos(), e.texto(), ultima));
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // Aplica no índice atual e, com uma carga em curso, guarda para reaplicar no que vai substituí-lo
+    private void escrever(Consumer<Indice> escrita) {
+        trava.writeLock().lock();
+        try {
+            escrita.accept(indice);
+            if (escritasDuranteCarga != null) escritasDuranteCarga.add(escrita);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private static Entrada novaEntrada(PessoaDto pessoa, long ultimaViagem) {
+        Set<String> termos = new LinkedHashSet<>(TextoNormalizador.tokens(pessoa.nome()));
+        String cpf = TextoNormalizador.digitos(pessoa.cpf());
+        if (!cpf.isEmpty()) termos.add(cpf);
+        if (pessoa.telefones() != null) {
+            for (String telefone : pessoa.telefones()) {
+                String digitos = TextoNormalizador.digitos(telefone);
+                if (!digitos.isEmpty()) termos.add(digitos);
+            }
+        }
+        return new Entrada(pessoa, termos, String.join(" ", termos), ultimaViagem);
+    }
+
+    private static List<String> ngramas(String termo) {
+        if (termo.length() < TAMANHO_NGRAMA) return List.of();
+        List<String> ngramas = new ArrayList<>(termo.length() - TAMANHO_NGRAMA + 1);
+        for (int i = 0; i + TAMANHO_NGRAMA <= termo.length(); i++) {
+            ngramas.add(termo.substring(i, i + TAMANHO_NGRAMA));
+        }
+        return ngramas;
+    }
+
+    private static void removerDe(Map<String, Set<Long>> postings, String chave, Long id) {
+        Set<Long> ids = postings.get(chave);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) postings.remove(chave);
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    // --- ESTRUTURAS (o publicado só é alterado com a trava de escrita; o da carga, só pela thread dela) ---
+
+    private static final class Indice {
+        final Map<Long, Entrada> entradas = new HashMap<>();
+        final NavigableMap<String, Set<Long>> porTermo = new TreeMap<>();
+        final Map<String, Set<Long>> porNgrama = new HashMap<>();
+
+        void indexar(Entrada entrada) {
+            Long id = entrada.pessoa().id();
+            desindexar(id);
+            entradas.put(id, entrada);
+            for (String termo : entrada.termos()) {
+                porTermo.computeIfAbsent(termo, t -> new HashSet<>()).add(id);
+                for (String ngrama : ngramas(termo)) {
+                    porNgrama.computeIfAbsent(ngrama, n -> new HashSet<>()).add(id);
+                }
+            }
+        }
+
+        void desindexar(Long id) {
+            Entrada anterior = entradas.remove(id);
+            if (anterior == null) return;
+            for (String termo : anterior.termos()) {
+                removerDe(porTermo, termo, id);
+                for (String ngrama : ngramas(termo)) {
+                    removerDe(porNgrama, ngrama, id);
+                }
+            }
+        }
+
+        Map<Long, Integer> pontuar(String termo) {
+            Map<Long, Integer> pontos = new HashMap<>();
+
+            // Início de palavra: faixa [termo, termo + MAX_VALUE) do mapa ordenado
+            for (Map.Entry<String, Set<Long>> e : porTermo.subMap(termo, true, termo + Character.MAX_VALUE, false).entrySet()) {
+                int p = e.getKey().equals(termo) ? PONTOS_EXATO : PONTOS_PREFIXO;
+                for (Long id : e.getValue()) pontos.merge(id, p, Math::max);
+            }
+
+            // Trecho do meio: interseção dos trigramas, confirmada no texto
+            if (termo.length() >= TAMANHO_NGRAMA) {
+                List<Set<Long>> listas = new ArrayList<>();
+                for (String ngrama : ngramas(termo)) {
+                    Set<Long> ids = porNgrama.get(ngrama);
+                    if (ids == null) return pontos;
+                    listas.add(ids);
+                }
+                // Parte da menor lista e descarta quem não está nas demais
+                listas.sort(Comparator.comparingInt(Set::size));
+                Set<Long> candidatos = new HashSet<>(listas.get(0));
+                for (int i = 1; i < listas.size() && !candidatos.isEmpty(); i++) {
+                    candidatos.retainAll(listas.get(i));
+                }
+                for (Long id : candidatos) {
+                    if (!pontos.containsKey(id) && entradas.get(id).texto().contains(termo)) {
+                        pontos.put(id, PONTOS_TRECHO);
+                    }
+                }
+            }
+            return pontos;
+        }
+    }
+}
@@ -22,6 +22,12 @@ public class PessoaService {
     @Autowired
     private PessoaRepository repository;
 
+    @Autowired
+    private ManifestoService manifestoService;
+
+    @Autowired
+    private PessoaSearchIndex searchIndex;
+
     // Método auxiliar corrigido
     private PessoaDto toDto(Pessoa pessoa) {
         // Agora o DTO se constrói usando a lista da entidade
@@ -51,6 +57,7 @@ public class PessoaService {
         pessoa.setTelefones(pessoaDto.telefones());
 
         var pessoaSalva = repository.save(pessoa);
+        searchIndex.atualizar(pessoaSalva);
         return toDto(pessoaSalva);
     }
 
@@ -63,6 +70,9 @@ public class PessoaService {
             throw new RuntimeException("Este CPF já pertence a outra pessoa.");
         }
 
+        // Nome e telefones aparecem nos manifestos das viagens da pessoa
+        manifestoService.registrarAlteracaoPorPessoa(id);
+
         existing.setNome(pessoaDto.nome());
         existing.setCpf(pessoaDto.cpf());
         existing.setIdade(pessoaDto.idade());
@@ -71,6 +81,7 @@ public class PessoaService {
         existing.setTelefones(pessoaDto.telefones());
 
         var pessoaAtualizada = repository.save(existing);
+        searchIndex.atualizar(pessoaAtualizada);
         return Optional.of(toDto(pessoaAtualizada));
     }
 
@@ -81,6 +92,7 @@ public class PessoaService {
             return false;
         }
         repository.delete(pessoaOptional.get());
+        searchIndex.remover(id);
         return true;
     }
 
@@ -88,6 +100,11 @@ public class PessoaService {
         if (query == null || query.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        // Autocomplete em memória, sem ir ao banco
+        if (searchIndex.isPronto()) {
+            return searchIndex.buscar(query);
+        }
+        // Índice ainda carregando (logo após a subida)
         return repository.findTop10ByNomeContainingIgnoreCaseOrCpf(query, query)
                 .stream()
                 .map(this::toDto)
@@ -0,0 +1,58 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Escreve relatórios como um array JSON em streaming: as linhas saem do cursor do banco
+ * (fetch size da consulta) direto para a resposta, uma a uma. A memória não cresce com o período.
+ */
+@Service
+public class RelatorioStreamService {
+
+    // Linhas escritas entre cada flush para o cliente
+    private static final int LINHAS_POR_FLUSH = 100;
+
+    @Autowired private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public RelatorioStreamService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * A consulta roda dentro de uma transação só de leitura aberta na thread que escreve a resposta
+     * (o cursor do PostgreSQL só respeita o fetch size dentro de uma transação).
+     */
+    public <T, R> StreamingResponseBody transmitir(Supplier<Stream<T>> consulta, Function<T, R> conversor) {
+        return saida -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<T> linhas = consulta.get();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(saida)) {
+                json.writeStartArray();
+                int escritas = 0;
+                Iterator<T> it = linhas.iterator();
+                while (it.hasNext()) {
+                    json.writeObject(conversor.apply(it.next()));
+                    if (++escritas % LINHAS_POR_FLUSH == 0) json.flush();
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,232 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.repositories.AssentoRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Mapa de ocupação dos assentos em memória, um BitSet por (viagem, ônibus), indexado pelo número do assento.
+ * Toda escrita de assento de uma viagem trava a "listra" da viagem até o fim da transação,
+ * então dois cliques simultâneos no mesmo mapa são serializados e nunca disputam o mesmo assento.
+ * Os bits só mudam depois do commit; em rollback o mapa da viagem é descartado e recarregado do banco.
+ * Leituras não usam a trava: o mapa é carregado do banco e só publicado se nenhum commit da listra
+ * mudou assentos durante a consulta (geração da listra).
+ *
+ * As travas valem só dentro desta JVM. Entre instâncias (ou contra SQL direto) quem garante a
+ * exclusividade é o banco: uq_assento_numero (um registro por número, V30) e uq_assento_viagem
+ * (um passageiro por registro). Escritas de assento passam por semConflito(), que traduz a violação
+ * dessas restrições na mesma ConflitoAssentoException da trava ocupada.
+ */
+@Component
+public class SeatInventory {
+
+    /** Outro pedido está mexendo (ou acabou de mexer) nos mesmos assentos: o cliente deve tentar de novo. */
+    public static class ConflitoAssentoException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public ConflitoAssentoException(String mensagem, Throwable causa) {
+            super(mensagem, causa);
+        }
+    }
+
+    private static final Set<String> RESTRICOES_ASSENTO = Set.of("uq_assento_numero", "uq_assento_viagem");
+
+    // Quantidade de travas compartilhadas entre as viagens (potência de 2)
+    private static final int LISTRAS = 64;
+
+    // Tempo máximo aguardando outro atendente terminar de mexer no mapa da mesma viagem
+    private static final long ESPERA_TRAVA_MS = 5000;
+
+    @Autowired private AssentoRepository assentoRepository;
+
+    private final ReentrantLock[] travas = new ReentrantLock[LISTRAS];
+    private final Map<Chave, BitSet> mapas = new ConcurrentHashMap<>();
+
+    // Incrementada a cada alteração confirmada (ou descarte) nas viagens da listra
+    private final AtomicLongArray geracoes = new AtomicLongArray(LISTRAS);
+
+    private record Chave(Long viagemId, Long onibusId) {}
+
+    public SeatInventory() {
+        for (int i = 0; i < LISTRAS; i++) travas[i] = new ReentrantLock();
+    }
+
+    /**
+     * Trava os assentos da viagem até o commit/rollback da transação atual.
+     */
+    public void travar(Long viagemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Alterações de assento exigem uma transação ativa.");
+        }
+        ReentrantLock trava = travaDa(viagemId);
+        boolean jaTravada = trava.isHeldByCurrentThread();
+        if (!jaTravada) {
+            adquirir(trava);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) descartar(viagemId);
+                if (!jaTravada) trava.unlock();
+            }
+        });
+    }
+
+    /**
+     * Marca o assento como ocupado quando a transação confirmar.
+     */
+    public void ocupar(Long viagemId, Long onibusId, String numero) {
+        aoConfirmar(() -> alterar(viagemId, onibusId, numero, true));
+    }
+
+    /**
+     * Marca o assento como livre quando a transação confirmar.
+     */
+    public void liberar(Long viagemId, Long onibusId, String numero) {
+        aoConfirmar(() -> alterar(viagemId, onibusId, numero, false));
+    }
+
+    /**
+     * Para escritas que não passam pelo inventário: recarrega o mapa da viagem após o commit.
+     */
+    public void invalidar(Long viagemId) {
+        aoConfirmar(() -> descartar(viagemId));
+    }
+
+    public boolean isOcupado(Long viagemId, Long onibusId, String numero) {
+        int indice = indice(numero);
+        if (indice < 0) return false;
+        BitSet mapa = mapa(viagemId, onibusId);
+        synchronized (mapa) {
+            return mapa.get(indice);
+        }
+    }
+
+    /**
+     * Números dos assentos ocupados do ônibus na viagem (lidos da memória).
+     */
+    public List<Integer> ocupados(Long viagemId, Long onibusId) {
+        BitSet mapa = mapa(viagemId, onibusId);
+        synchronized (mapa) {
+            return mapa.stream().boxed().toList();
+        }
+    }
+
+    private BitSet mapa(Long viagemId, Long onibusId) {
+        Chave chave = new Chave(viagemId, onibusId);
+        BitSet mapa = mapas.get(chave);
+        if (mapa != null) return mapa;
+
+        // Carga sem a trava da viagem (uma leitura não espera escritas nem falha por elas) e fora do
+        // computeIfAbsent (a consulta não segura o lock interno do ConcurrentHashMap). Um commit que a
+        // consulta não viu já incrementou a geração antes da publicação, ou vai encontrar o mapa
+        // publicado em alterar(); no primeiro caso o mapa serve a esta leitura mas não é guardado.
+        int listra = listra(viagemId);
+        long geracao = geracoes.get(listra);
+        BitSet carregado = new BitSet();
+        for (String numero : assentoRepository.findNumerosOcupados(viagemId, onibusId)) {
+            int indice = indice(numero);
+            if (indice >= 0) carregado.set(indice);
+        }
+        BitSet publicado = mapas.compute(chave, (c, atual) -> {
+            if (atual != null) return atual; // outra leitura publicou primeiro
+            return geracoes.get(listra) == geracao ? carregado : null;
+        });
+        return publicado != null ? publicado : carregado;
+    }
+
+    private ReentrantLock travaDa(Long viagemId) {
+        return travas[listra(viagemId)];
+    }
+
+    private static int listra(Long viagemId) {
+        return Long.hashCode(viagemId) & (LISTRAS - 1);
+    }
+
+    /**
+     * Executa uma escrita de assento; violação de uq_assento_numero/uq_assento_viagem vira ConflitoAssentoException.
+     * A escrita precisa chegar ao banco aqui dentro (comando nativo ou saveAllAndFlush), não só no commit.
+     */
+    public static <T> T semConflito(Supplier<T> escrita) {
+        try {
+            return escrita.get();
+        } catch (DataIntegrityViolationException e) {
+            for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+                if (causa instanceof ConstraintViolationException violacao
+                        && violacao.getConstraintName() != null
+                        && RESTRICOES_ASSENTO.contains(violacao.getConstraintName().toLowerCase())) {
+                    throw new ConflitoAssentoException("Assento ocupado por outro atendimento. Atualize o mapa e tente novamente.", e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void adquirir(ReentrantLock trava) {
+        try {
+            if (!trava.tryLock(ESPERA_TRAVA_MS, TimeUnit.MILLISECONDS)) {
+                throw new ConflitoAssentoException("O mapa de assentos está sendo alterado. Tente novamente.", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Operação de assento interrompida.");
+        }
+    }
+
+    private void alterar(Long viagemId, Long onibusId, String numero, boolean ocupado) {
+        int indice = indice(numero);
+        if (indice < 0 || onibusId == null) return;
+        geracoes.incrementAndGet(listra(viagemId));
+        // Só atualiza mapas já carregados; os demais serão lidos do banco já com a alteração.
+        // computeIfPresent espera uma publicação em curso em mapa(), então nenhuma fica sem o bit.
+        mapas.computeIfPresent(new Chave(viagemId, onibusId), (chave, mapa) -> {
+            synchronized (mapa) {
+                mapa.set(indice, ocupado);
+            }
+            return mapa;
+        });
+    }
+
+    private void descartar(Long viagemId) {
+        geracoes.incrementAndGet(listra(viagemId));
+        mapas.keySet().removeIf(chave -> chave.viagemId().equals(viagemId));
+    }
+
+    private void aoConfirmar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    // "01" e "1" são o mesmo assento no mapa; números não numéricos ficam fora dele
+    static int indice(String numero) {
+        if (numero == null || numero.isBlank()) return -1;
+        try {
+            int valor = Integer.parseInt(numero.trim());
+            return valor >= 0 ? valor : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
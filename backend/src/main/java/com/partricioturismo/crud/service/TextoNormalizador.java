@@ -0,0 +1,57 @@
+package com.partricioturismo.crud.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto para busca: minúsculas, sem acentos ("João" == "joao") e só letras/dígitos.
+ */
+public final class TextoNormalizador {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private TextoNormalizador() {}
+
+    // "  José  D'Ávila " -> "jose d avila"
+    public static String normalizar(String texto) {
+        if (texto == null) return "";
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    // Palavras do texto normalizado
+    public static List<String> tokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        for (String t : normalizar(texto).split(" ")) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    // Apenas os dígitos ("123.456.789-00" -> "12345678900")
+    public static String digitos(String texto) {
+        if (texto == null) return "";
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Termos de uma consulta. Sem letras (CPF ou telefone digitado com pontuação), os dígitos
+     * formam um único termo; caso contrário, cada palavra é um termo.
+     */
+    public static List<String> termosDeBusca(String consulta) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.chars().noneMatch(Character::isLetter)) {
+            String digitos = digitos(normalizada);
+            return digitos.isEmpty() ? List.of() : List.of(digitos);
+        }
+        return tokens(consulta);
+    }
+}
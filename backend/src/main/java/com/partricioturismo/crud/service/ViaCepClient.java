@@ -0,0 +1,119 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.ViaCepResponseDto;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Chamada ao ViaCEP (https://viacep.com.br/ws/{cep}/json/). Não guarda nada: o cache fica no CepCacheService.
+ *
+ * Proteções para o ViaCEP lento ou fora não prender threads:
+ * - tempo máximo de conexão e de resposta;
+ * - no máximo 'viacep.max-chamadas' chamadas em andamento; as demais falham logo;
+ * - disjuntor: após 'viacep.disjuntor.falhas' falhas seguidas, recusa chamadas por
+ *   'viacep.disjuntor.aberto-ms' e depois deixa passar uma de teste.
+ */
+@Component
+public class ViaCepClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ViaCepClient.class);
+
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final Semaphore chamadas;
+    private final int falhasParaAbrir;
+    private final long abertoMs;
+
+    // Estado do disjuntor (protegido por 'this')
+    private int falhasSeguidas = 0;
+    private long abertoAte = 0;
+    private boolean testeEmAndamento = false;
+
+    public ViaCepClient(WebClient.Builder webClientBuilder,
+                        @Value("${viacep.url:https://viacep.com.br/ws}") String url,
+                        @Value("${viacep.timeout-ms:3000}") long timeoutMs,
+                        @Value("${viacep.connect-timeout-ms:1000}") int connectTimeoutMs,
+                        @Value("${viacep.max-chamadas:8}") int maxChamadas,
+                        @Value("${viacep.disjuntor.falhas:5}") int falhasParaAbrir,
+                        @Value("${viacep.disjuntor.aberto-ms:30000}") long abertoMs) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(timeout);
+        this.webClient = webClientBuilder.baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.chamadas = new Semaphore(maxChamadas);
+        this.falhasParaAbrir = falhasParaAbrir;
+        this.abertoMs = abertoMs;
+    }
+
+    /**
+     * Consulta um CEP de 8 dígitos. Vazio quando o ViaCEP responde que o CEP não existe;
+     * IllegalStateException quando o serviço falha, demora, está saturado ou o disjuntor está aberto.
+     */
+    public Optional<ViaCepResponseDto> consultar(String cep) {
+        boolean teste = liberarPeloDisjuntor();
+        if (!chamadas.tryAcquire()) {
+            if (teste) liberarTeste();
+            throw new IllegalStateException("Muitas consultas ao ViaCEP em andamento. Tente novamente.");
+        }
+        try {
+            ViaCepResponseDto resposta = webClient.get()
+                    .uri("/{cep}/json/", cep)
+                    .retrieve()
+                    .bodyToMono(ViaCepResponseDto.class)
+                    .block(timeout.plusMillis(500));
+            registrarSucesso();
+
+            if (resposta == null || resposta.erro() != null) {
+                return Optional.empty();
+            }
+            return Optional.of(resposta);
+        } catch (RuntimeException e) {
+            registrarFalha();
+            throw new IllegalStateException("Falha ao consultar o ViaCEP: " + e.getMessage(), e);
+        } finally {
+            chamadas.release();
+        }
+    }
+
+    // Retorna true quando esta é a chamada de teste do disjuntor meio-aberto
+    private synchronized boolean liberarPeloDisjuntor() {
+        if (falhasSeguidas < falhasParaAbrir) return false;
+        if (System.currentTimeMillis() < abertoAte || testeEmAndamento) {
+            throw new IllegalStateException("ViaCEP indisponível no momento. Tente novamente em instantes.");
+        }
+        testeEmAndamento = true;
+        return true;
+    }
+
+    private synchronized void liberarTeste() {
+        testeEmAndamento = false;
+    }
+
+    private synchronized void registrarSucesso() {
+        if (falhasSeguidas >= falhasParaAbrir) log.info("ViaCEP respondeu; disjuntor fechado");
+        falhasSeguidas = 0;
+        testeEmAndamento = false;
+    }
+
+    private synchronized void registrarFalha() {
+        falhasSeguidas++;
+        testeEmAndamento = false;
+        if (falhasSeguidas >= falhasParaAbrir) {
+            abertoAte = System.currentTimeMillis() + abertoMs;
+            log.warn("ViaCEP falhou {} vezes seguidas; disjuntor aberto por {} ms", falhasSeguidas, abertoMs);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.partricioturismo.crud.dtos.OnibusDto;
+import com.partricioturismo.crud.dtos.ViagemDto;
+import com.partricioturismo.crud.dtos.ViagemLinhaView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monta o ViagemDto das linhas projetadas. As linhas de uma viagem chegam juntas e só a primeira
+ * traz os ônibus, então o mesmo ViagemDto é reaproveitado até a viagem mudar.
+ * Não é thread-safe: use uma instância por consulta.
+ */
+public class ViagemLinhaMapper {
+
+    // Ferramenta para ler o JSON dos ônibus
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ViagemDto atual;
+
+    public ViagemDto viagemDa(ViagemLinhaView linha) {
+        if (atual == null || !atual.id().equals(linha.getViagemId())) {
+            atual = new ViagemDto(
+                    linha.getViagemId(),
+                    linha.getViagemPartida(),
+                    linha.getViagemChegada(),
+                    lerOnibus(linha.getOnibusJson()),
+                    linha.getTotalPassageiros() != null ? linha.getTotalPassageiros() : 0,
+                    linha.getTotalEncomendas() != null ? linha.getTotalEncomendas() : 0,
+                    null);
+        }
+        return atual;
+    }
+
+    private static List<OnibusDto> lerOnibus(String json) {
+        if (json == null || json.isBlank()) return new ArrayList<>();
+        try {
+            return OBJECT_MAPPER.readValue(json, new TypeReference<List<OnibusDto>>(){});
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao ler os ônibus da viagem: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.partricioturismo.crud.service;
 
+import com.partricioturismo.crud.dtos.CursorPageDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import com.partricioturismo.crud.dtos.OcupacaoOnibusDto;
 import com.partricioturismo.crud.dtos.OnibusDto;
 import com.partricioturismo.crud.dtos.ViagemDto;
 import com.partricioturismo.crud.dtos.ViagemSaveRequestDto;
@@ -18,29 +21,77 @@ import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ViagemService {
 
+    // Maior página aceita na listagem de próximas viagens
+    private static final int LIMITE_MAXIMO_PAGINA = 200;
+
     @Autowired private ViagemRepository viagemRepository;
     @Autowired private OnibusRepository onibusRepository;
     @Autowired private AssentoRepository assentoRepository;
+    @Autowired private SeatInventory seatInventory;
+    @Autowired private ManifestoService manifestoService;
     @Autowired private PassageiroViagemService passageiroViagemService;
     @Autowired private PassageiroViagemRepository passageiroViagemRepository;
     @Autowired private EncomendaRepository encomendaRepository;
 
     @Transactional(readOnly = true)
     public Page<ViagemDto> findAll(Integer mes, Integer ano, String query, Pageable pageable) {
-        Specification<Viagem> spec = ViagemSpecs.comFiltros(mes, ano, query);
-        return viagemRepository.findAll(spec, pageable).map(this::toDto);
+        // Mês sem ano: um intervalo por ano com viagens
+        Integer primeiroAno = null;
+        Integer ultimoAno = null;
+        if (mes != null && ano == null) {
+            List<Object[]> anos = viagemRepository.findIntervaloAnos();
+            if (!anos.isEmpty() && anos.get(0)[0] != null) {
+                primeiroAno = ((Number) anos.get(0)[0]).intValue();
+                ultimoAno = ((Number) anos.get(0)[1]).intValue();
+            }
+        }
+        Specification<Viagem> spec = ViagemSpecs.comFiltros(mes, ano, query, primeiroAno, ultimoAno);
+        Page<Viagem> pagina = viagemRepository.findAll(spec, pageable);
+        // Ônibus e ocupação de todas as viagens da página em uma consulta cada
+        Map<Viagem, ViagemDto> dtos = paraDtos(pagina.getContent());
+        return pagina.map(dtos::get);
+    }
+
+    /**
+     * Próximas viagens (a partir do início de hoje) paginadas por cursor, na ordem de partida.
+     * Cada página é uma faixa do índice (data_hora_partida, id), sem OFFSET nem count.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<ViagemDto> findProximas(String cursor, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+
+        // Busca uma a mais para saber se existe próxima página
+        List<Viagem> lista = viagemRepository.findBy(
+                ViagemSpecs.proximas(LocalDate.now().atStartOfDay(),
+                        posicao == null ? null : posicao.partida(), posicao == null ? null : posicao.id()),
+                q -> q.sortBy(Sort.by(Sort.Direction.ASC, "dataHoraPartida", "id")).limit(tamanho + 1).all());
+
+        String proximoCursor = null;
+        if (lista.size() > tamanho) {
+            lista = lista.subList(0, tamanho);
+            Viagem ultima = lista.get(tamanho - 1);
+            proximoCursor = new CursorPaginacao(ultima.getDataHoraPartida(), ultima.getId()).codificar();
+        }
+        Map<Viagem, ViagemDto> dtos = paraDtos(lista);
+        return new CursorPageDto<>(lista.stream().map(dtos::get).collect(Collectors.toList()), proximoCursor);
     }
 
     @Transactional(readOnly = true)
@@ -82,10 +133,44 @@ public class ViagemService {
     }
 
     public ViagemDto toDto(Viagem viagem) {
+        return toDto(viagem, viagem.getListaOnibus(),
+                ocupacaoPorViagem(List.of(viagem.getId())).getOrDefault(viagem.getId(), List.of()));
+    }
+
+    // DTOs de uma lista de viagens sem tocar na coleção preguiçosa listaOnibus de cada uma
+    private Map<Viagem, ViagemDto> paraDtos(List<Viagem> viagens) {
+        Map<Viagem, ViagemDto> dtos = new IdentityHashMap<>();
+        if (viagens.isEmpty()) return dtos;
+        List<Long> ids = viagens.stream().map(Viagem::getId).collect(Collectors.toList());
+
+        Map<Long, List<Onibus>> onibus = new HashMap<>();
+        for (Object[] linha : viagemRepository.findOnibusByViagemIds(ids)) {
+            onibus.computeIfAbsent((Long) linha[0], id -> new ArrayList<>()).add((Onibus) linha[1]);
+        }
+        Map<Long, List<OcupacaoOnibusDto>> ocupacao = ocupacaoPorViagem(ids);
+        for (Viagem v : viagens) {
+            dtos.put(v, toDto(v, onibus.getOrDefault(v.getId(), List.of()), ocupacao.getOrDefault(v.getId(), List.of())));
+        }
+        return dtos;
+    }
+
+    private Map<Long, List<OcupacaoOnibusDto>> ocupacaoPorViagem(List<Long> viagemIds) {
+        Map<Long, List<OcupacaoOnibusDto>> ocupacao = new HashMap<>();
+        if (viagemIds.isEmpty()) return ocupacao;
+        for (Object[] linha : viagemRepository.findOcupacaoOnibus(viagemIds)) {
+            int ocupados = ((Number) linha[2]).intValue();
+            int capacidade = ((Number) linha[3]).intValue();
+            ocupacao.computeIfAbsent(((Number) linha[0]).longValue(), id -> new ArrayList<>())
+                    .add(new OcupacaoOnibusDto(((Number) linha[1]).longValue(), capacidade, ocupados, Math.max(capacidade - ocupados, 0)));
+        }
+        return ocupacao;
+    }
+
+    private ViagemDto toDto(Viagem viagem, List<Onibus> listaOnibus, List<OcupacaoOnibusDto> ocupacao) {
         List<OnibusDto> onibusDtos = new ArrayList<>();
 
-        if (viagem.getListaOnibus() != null) {
-            onibusDtos = viagem.getListaOnibus().stream()
+        if (listaOnibus != null) {
+            onibusDtos = listaOnibus.stream()
                     .map(o -> new OnibusDto(
                             o.getIdOnibus(),
                             o.getModelo(),
@@ -100,9 +185,10 @@ public class ViagemService {
                 viagem.getDataHoraPartida(),
                 viagem.getDataHoraChegada(),
                 onibusDtos,
-                // Aqui populamos os novos campos vindos do @Formula
+                // Contadores mantidos por trigger (V26)
                 viagem.getTotalPassageiros(),
-                viagem.getTotalEncomendas()
+                viagem.getTotalEncomendas(),
+                ocupacao
         );
     }
 
@@ -111,6 +197,9 @@ public class ViagemService {
         Optional<Viagem> viagemOptional = viagemRepository.findById(id);
         if (viagemOptional.isEmpty()) { return Optional.empty(); }
 
+        // Datas e ônibus aparecem no cabeçalho do manifesto
+        long versao = manifestoService.registrarAlteracao(id);
+        manifestoService.publicar(id, versao, TipoAlteracao.MANIFESTO_ATUALIZADO, null, null);
         var viagemModel = viagemOptional.get();
         viagemModel.setDataHoraPartida(viagemDto.dataHoraPartida());
         viagemModel.setDataHoraChegada(viagemDto.dataHoraChegada());
@@ -136,6 +225,7 @@ public class ViagemService {
             encomendaRepository.deleteAll(encomendas);
         }
         viagemRepository.deleteById(id);
+        seatInventory.invalidar(id);
         return true;
     }
 }
\ No newline at end of file
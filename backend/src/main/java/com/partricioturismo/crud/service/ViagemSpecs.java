@@ -2,59 +2,93 @@ package com.partricioturismo.crud.service;
 
 import com.partricioturismo.crud.model.Onibus;
 import com.partricioturismo.crud.model.Viagem;
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ViagemSpecs {
 
-    public static Specification<Viagem> comFiltros(Integer mes, Integer ano, String textoBusca) {
+    /**
+     * Filtros da listagem de viagens. Mês e ano viram intervalos [início, fim) direto em
+     * data_hora_partida (índice idx_viagem_data_hora_partida), sem funções sobre a coluna.
+     * Com mês e sem ano, vale o mês em todos os anos de 'primeiroAno' a 'ultimoAno'.
+     */
+    public static Specification<Viagem> comFiltros(Integer mes, Integer ano, String textoBusca,
+                                                   Integer primeiroAno, Integer ultimoAno) {
+        if (mes != null && (mes < 1 || mes > 12)) {
+            throw new IllegalArgumentException("Mês inválido: " + mes);
+        }
         return (root, query, builder) -> {
-            // Garante que não traga duplicatas na paginação
-            query.distinct(true);
-
+            Path<LocalDateTime> partida = root.get("dataHoraPartida");
             List<Predicate> predicates = new ArrayList<>();
 
-            // 1. Filtro de Mês (Abordagem Compatível com PostgreSQL)
-            // Usamos 'to_char' para extrair o mês como Texto ("01", "11", etc)
-            if (mes != null) {
-                String mesStr = String.format("%02d", mes); // Garante "05" em vez de "5"
-
-                // PostgreSQL usa 'to_char', H2/MySQL usam outras.
-                // Se estiver usando Postgres, esta é a forma mais segura:
-                predicates.add(builder.equal(
-                        builder.function("to_char", String.class, root.get("dataHoraPartida"), builder.literal("MM")),
-                        mesStr
-                ));
-            }
-
-            // 2. Filtro de Ano
+            // 1. Período (mês e/ou ano)
             if (ano != null) {
-                String anoStr = String.valueOf(ano);
-                predicates.add(builder.equal(
-                        builder.function("to_char", String.class, root.get("dataHoraPartida"), builder.literal("YYYY")),
-                        anoStr
-                ));
+                LocalDateTime inicio = mes != null ? LocalDateTime.of(ano, mes, 1, 0, 0) : LocalDateTime.of(ano, 1, 1, 0, 0);
+                LocalDateTime fim = mes != null ? inicio.plusMonths(1) : inicio.plusYears(1);
+                predicates.add(emIntervalo(builder, partida, inicio, fim));
+            } else if (mes != null) {
+                // Um intervalo por ano com viagens (OR de faixas, cada uma resolvida pelo índice)
+                List<Predicate> meses = new ArrayList<>();
+                if (primeiroAno != null && ultimoAno != null) {
+                    for (int a = primeiroAno; a <= ultimoAno; a++) {
+                        LocalDateTime inicio = LocalDateTime.of(a, mes, 1, 0, 0);
+                        meses.add(emIntervalo(builder, partida, inicio, inicio.plusMonths(1)));
+                    }
+                }
+                // Sem anos (nenhuma viagem cadastrada): OR vazio, nada é retornado
+                predicates.add(builder.or(meses.toArray(new Predicate[0])));
             }
 
-            // 3. Busca por Texto (Placa ou Modelo)
+            // 2. Busca por Texto (Placa ou Modelo)
+            // EXISTS em vez de JOIN: uma linha por viagem, sem DISTINCT e sem quebrar a paginação
             if (textoBusca != null && !textoBusca.trim().isEmpty()) {
-                String likePattern = "%" + textoBusca.toLowerCase() + "%";
-
-                // JOIN para acessar os dados do ônibus
-                Join<Viagem, Onibus> onibusJoin = root.join("listaOnibus", JoinType.LEFT);
+                String likePattern = "%" + textoBusca.trim().toLowerCase() + "%";
 
-                Predicate placaLike = builder.like(builder.lower(onibusJoin.get("placa")), likePattern);
-                Predicate modeloLike = builder.like(builder.lower(onibusJoin.get("modelo")), likePattern);
+                Subquery<Long> comOnibus = query.subquery(Long.class);
+                Root<Viagem> sub = comOnibus.correlate(root);
+                Join<Viagem, Onibus> onibus = sub.join("listaOnibus");
+                comOnibus.select(onibus.get("id")).where(builder.or(
+                        builder.like(builder.lower(onibus.get("placa")), likePattern),
+                        builder.like(builder.lower(onibus.get("modelo")), likePattern)));
 
-                predicates.add(builder.or(placaLike, modeloLike));
+                predicates.add(builder.exists(comOnibus));
             }
 
             return builder.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Próximas viagens (partida a partir de 'desde'), na ordem (dataHoraPartida ASC, id ASC).
+     * Com 'cursorPartida'/'cursorId' traz apenas o que vem depois do cursor.
+     */
+    public static Specification<Viagem> proximas(LocalDateTime desde, LocalDateTime cursorPartida, Long cursorId) {
+        return (root, query, builder) -> {
+            Path<LocalDateTime> partida = root.get("dataHoraPartida");
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.greaterThanOrEqualTo(partida, desde));
+
+            // Cursor (keyset): (partida, id) > (cursorPartida, cursorId)
+            if (cursorPartida != null && cursorId != null) {
+                predicates.add(builder.or(
+                        builder.greaterThan(partida, cursorPartida),
+                        builder.and(builder.equal(partida, cursorPartida), builder.greaterThan(root.get("id"), cursorId))));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Predicate emIntervalo(CriteriaBuilder builder, Path<LocalDateTime> partida,
+                                         LocalDateTime inicio, LocalDateTime fim) {
+        return builder.and(builder.greaterThanOrEqualTo(partida, inicio), builder.lessThan(partida, fim));
+    }
+}
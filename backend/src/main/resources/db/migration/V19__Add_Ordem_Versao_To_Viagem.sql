@@ -0,0 +1,6 @@
+-- Versão da ordenação da lista de passageiros da viagem.
+-- Incrementada a cada reordenação (PATCH /api/passageiroviagem/reordenar) e devolvida ao frontend.
+ALTER TABLE viagem ADD COLUMN IF NOT EXISTS ordem_versao BIGINT NOT NULL DEFAULT 0;
+
+-- Acelera a leitura da lista ordenada e o UPDATE em massa por viagem
+CREATE INDEX IF NOT EXISTS idx_passageiro_viagem_viagem_ordem ON passageiro_viagem(viagem_id, ordem);
@@ -0,0 +1,11 @@
+-- Ordenação espaçada: as posições passam a ser múltiplos de 1024 dentro de cada viagem,
+-- permitindo mover um passageiro entre dois vizinhos gravando apenas uma linha.
+UPDATE passageiro_viagem pv
+SET ordem = r.pos * 1024
+FROM (
+    SELECT id, row_number() OVER (PARTITION BY viagem_id ORDER BY ordem, id) - 1 AS pos
+    FROM passageiro_viagem
+) r
+WHERE pv.id = r.id;
+
+ALTER TABLE passageiro_viagem ALTER COLUMN ordem SET NOT NULL;
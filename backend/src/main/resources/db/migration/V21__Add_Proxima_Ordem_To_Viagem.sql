@@ -0,0 +1,13 @@
+-- Contador por viagem da próxima posição livre no fim da lista de passageiros.
+-- Substitui o MAX(ordem)+1 (sujeito a corrida entre reservas simultâneas):
+-- o backend reserva posições com UPDATE ... RETURNING, que trava a linha da viagem.
+ALTER TABLE viagem ADD COLUMN IF NOT EXISTS proxima_ordem INTEGER NOT NULL DEFAULT 0;
+
+UPDATE viagem v
+SET proxima_ordem = m.max_ordem + 1024
+FROM (
+    SELECT viagem_id, MAX(ordem) AS max_ordem
+    FROM passageiro_viagem
+    GROUP BY viagem_id
+) m
+WHERE v.id = m.viagem_id;
@@ -0,0 +1,8 @@
+-- Torna a unicidade do assento verificável no fim de cada comando (e não linha a linha).
+-- Assim um único UPDATE pode desalojar um passageiro e ocupar o assento com outro,
+-- ou trocar os assentos de dois passageiros, sem violar a restrição no meio do caminho.
+ALTER TABLE passageiro_viagem DROP CONSTRAINT IF EXISTS uq_assento_viagem;
+
+ALTER TABLE passageiro_viagem
+    ADD CONSTRAINT uq_assento_viagem
+        UNIQUE (assento_id) DEFERRABLE INITIALLY IMMEDIATE;
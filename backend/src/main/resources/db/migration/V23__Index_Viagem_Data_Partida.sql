@@ -0,0 +1,2 @@
+-- Listagens ordenadas/filtradas pela data de partida (paginação por cursor em (data_hora_partida, id))
+CREATE INDEX IF NOT EXISTS idx_viagem_data_hora_partida ON viagem (data_hora_partida, id);
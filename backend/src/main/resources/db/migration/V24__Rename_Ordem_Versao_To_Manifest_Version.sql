@@ -0,0 +1,3 @@
+-- A versão deixa de ser só da ordenação: passa a mudar a cada escrita no manifesto da viagem
+-- (passageiros, encomendas, bagagens, assentos). Serve de ETag para GET .../viagem/{id}.
+ALTER TABLE viagem RENAME COLUMN ordem_versao TO manifest_version;
@@ -0,0 +1,14 @@
+-- Registro das alterações do manifesto de cada viagem, uma linha por versão (viagem.manifest_version).
+-- Permite a ressincronização incremental: GET /api/viagem/{id}/changes?since=N.
+CREATE TABLE IF NOT EXISTS manifesto_alteracao (
+    id BIGSERIAL PRIMARY KEY,
+    viagem_id BIGINT NOT NULL REFERENCES viagem(id) ON DELETE CASCADE,
+    versao BIGINT NOT NULL,
+    tipo VARCHAR(40) NOT NULL,
+    passageiro_ids BIGINT[] NOT NULL DEFAULT '{}',
+    encomenda_ids BIGINT[] NOT NULL DEFAULT '{}',
+    criado_em TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_manifesto_alteracao_viagem_versao ON manifesto_alteracao(viagem_id, versao);
+CREATE INDEX IF NOT EXISTS idx_manifesto_alteracao_criado_em ON manifesto_alteracao(criado_em);
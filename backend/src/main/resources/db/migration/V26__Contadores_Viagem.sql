@@ -0,0 +1,80 @@
+-- Contadores mantidos por trigger, no lugar dos count(*) (@Formula) executados a cada Viagem carregada.
+-- Os triggers rodam na mesma transação da escrita; o ContadoresViagemService recalcula tudo periodicamente.
+
+ALTER TABLE viagem ADD COLUMN IF NOT EXISTS total_passageiros INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE viagem ADD COLUMN IF NOT EXISTS total_encomendas INTEGER NOT NULL DEFAULT 0;
+-- Assentos com passageiro em cada ônibus da viagem (livres = onibus.capacidade_passageiros - ocupados)
+ALTER TABLE viagem_onibus ADD COLUMN IF NOT EXISTS assentos_ocupados INTEGER NOT NULL DEFAULT 0;
+
+UPDATE viagem v SET
+    total_passageiros = (SELECT count(*) FROM passageiro_viagem pv WHERE pv.viagem_id = v.id),
+    total_encomendas = (SELECT count(*) FROM encomenda e WHERE e.viagem_id = v.id);
+
+UPDATE viagem_onibus vo SET assentos_ocupados = (
+    SELECT count(*) FROM passageiro_viagem pv JOIN assento a ON a.id = pv.assento_id
+    WHERE a.viagem_id = vo.viagem_id AND a.onibus_id = vo.onibus_id);
+
+-- Passageiros: total da viagem e ocupação do ônibus do assento
+CREATE OR REPLACE FUNCTION fn_contadores_passageiro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.viagem_id IS DISTINCT FROM OLD.viagem_id) THEN
+        UPDATE viagem SET total_passageiros = total_passageiros - 1 WHERE id = OLD.viagem_id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.viagem_id IS DISTINCT FROM OLD.viagem_id) THEN
+        UPDATE viagem SET total_passageiros = total_passageiros + 1 WHERE id = NEW.viagem_id;
+    END IF;
+
+    IF (TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.assento_id IS DISTINCT FROM OLD.assento_id))
+            AND OLD.assento_id IS NOT NULL THEN
+        UPDATE viagem_onibus vo SET assentos_ocupados = vo.assentos_ocupados - 1
+        FROM assento a
+        WHERE a.id = OLD.assento_id AND vo.viagem_id = a.viagem_id AND vo.onibus_id = a.onibus_id;
+    END IF;
+    IF (TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.assento_id IS DISTINCT FROM OLD.assento_id))
+            AND NEW.assento_id IS NOT NULL THEN
+        UPDATE viagem_onibus vo SET assentos_ocupados = vo.assentos_ocupados + 1
+        FROM assento a
+        WHERE a.id = NEW.assento_id AND vo.viagem_id = a.viagem_id AND vo.onibus_id = a.onibus_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_contadores_passageiro ON passageiro_viagem;
+CREATE TRIGGER trg_contadores_passageiro
+    AFTER INSERT OR DELETE OR UPDATE OF viagem_id, assento_id ON passageiro_viagem
+    FOR EACH ROW EXECUTE FUNCTION fn_contadores_passageiro();
+
+-- Encomendas: total da viagem
+CREATE OR REPLACE FUNCTION fn_contadores_encomenda() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND NEW.viagem_id IS DISTINCT FROM OLD.viagem_id) THEN
+        UPDATE viagem SET total_encomendas = total_encomendas - 1 WHERE id = OLD.viagem_id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.viagem_id IS DISTINCT FROM OLD.viagem_id) THEN
+        UPDATE viagem SET total_encomendas = total_encomendas + 1 WHERE id = NEW.viagem_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_contadores_encomenda ON encomenda;
+CREATE TRIGGER trg_contadores_encomenda
+    AFTER INSERT OR DELETE OR UPDATE OF viagem_id ON encomenda
+    FOR EACH ROW EXECUTE FUNCTION fn_contadores_encomenda();
+
+-- A lista de ônibus da viagem é regravada pelo Hibernate (apaga e insere as linhas da junção):
+-- cada linha inserida já nasce com a ocupação atual daquele ônibus
+CREATE OR REPLACE FUNCTION fn_ocupacao_viagem_onibus() RETURNS trigger AS $$
+BEGIN
+    NEW.assentos_ocupados := (
+        SELECT count(*) FROM passageiro_viagem pv JOIN assento a ON a.id = pv.assento_id
+        WHERE a.viagem_id = NEW.viagem_id AND a.onibus_id = NEW.onibus_id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ocupacao_viagem_onibus ON viagem_onibus;
+CREATE TRIGGER trg_ocupacao_viagem_onibus
+    BEFORE INSERT ON viagem_onibus
+    FOR EACH ROW EXECUTE FUNCTION fn_ocupacao_viagem_onibus();
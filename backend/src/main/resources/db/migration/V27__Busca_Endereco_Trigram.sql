@@ -0,0 +1,35 @@
+-- Busca de endereços (AddressSearchCombobox) servida por índice trigram, sem LIKE '%q%' em quatro colunas.
+-- 'busca' é o endereço inteiro em minúsculas, sem acentos e só com letras/dígitos separados por espaço,
+-- a mesma normalização do TextoNormalizador aplicada ao termo digitado.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() não é IMMUTABLE (depende do dicionário padrão e do search_path); com função e dicionário
+-- qualificados pelo schema da extensão pode ir na coluna gerada. O schema é lido do catálogo porque
+-- bancos gerenciados costumam instalar extensões fora do public (ex.: schema "extensions").
+DO $$
+DECLARE
+    esquema text;
+BEGIN
+    SELECT n.nspname INTO esquema
+    FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace
+    WHERE e.extname = 'unaccent';
+
+    EXECUTE format(
+        'CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text AS $f$ SELECT %1$I.unaccent(%2$L::regdictionary, $1) $f$ '
+        'LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT',
+        esquema, quote_ident(esquema) || '.unaccent');
+END
+$$;
+
+ALTER TABLE endereco ADD COLUMN IF NOT EXISTS busca TEXT GENERATED ALWAYS AS (
+    trim(regexp_replace(
+        lower(f_unaccent(
+            coalesce(logradouro, '') || ' ' || coalesce(bairro, '') || ' ' || coalesce(cidade, '') || ' ' ||
+            coalesce(estado, '') || ' ' || coalesce(cep, '') || ' ' || regexp_replace(coalesce(cep, ''), '[^0-9]', '', 'g'))),
+        '[^a-z0-9]+', ' ', 'g'))
+) STORED;
+
+-- Atende LIKE '%termo%' e o operador de similaridade por palavra (<%)
+CREATE INDEX IF NOT EXISTS idx_endereco_busca_trgm ON endereco USING gin (busca gin_trgm_ops);
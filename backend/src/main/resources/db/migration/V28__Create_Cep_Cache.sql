@@ -0,0 +1,11 @@
+-- Segundo nível do cache de CEP (CepCacheService): consultas ao ViaCEP sobrevivem a reinícios.
+-- encontrado = false guarda o "CEP inexistente" (cache negativo, com validade menor).
+CREATE TABLE IF NOT EXISTS cep_cache (
+    cep           CHAR(8)      PRIMARY KEY,
+    encontrado    BOOLEAN      NOT NULL,
+    logradouro    VARCHAR(255),
+    bairro        VARCHAR(255),
+    cidade        VARCHAR(255),
+    estado        VARCHAR(2),
+    atualizado_em TIMESTAMP    NOT NULL DEFAULT now()
+);
@@ -0,0 +1,28 @@
+-- IDs por sequência (GenerationType.SEQUENCE, otimizador pooled) no lugar de IDENTITY: o Hibernate reserva
+-- 50 ids por nextval e pode agrupar os INSERTs em lote (hibernate.jdbc.batch_size), o que IDENTITY impede.
+-- Cada sequência passa a se chamar <tabela>_id_seq e a andar de 50 em 50 (= allocationSize das entidades).
+-- O DEFAULT nextval(...) das colunas continua valendo para INSERTs nativos (ex.: AssentoRepository).
+
+DO $$
+DECLARE
+    tabela TEXT;
+    atual TEXT;
+    nova TEXT;
+BEGIN
+    FOREACH tabela IN ARRAY ARRAY['assento', 'bagagem', 'comisseiro', 'encomenda', 'endereco', 'manifesto_alteracao',
+                                  'onibus', 'passageiro_viagem', 'pessoa', 'taxista', 'usuarios', 'viagem'] LOOP
+        atual := pg_get_serial_sequence(tabela, 'id');
+        nova := tabela || '_id_seq';
+        IF atual IS NULL THEN
+            RAISE EXCEPTION 'Tabela % sem sequência na coluna id', tabela;
+        END IF;
+        -- passageiro_viagem ainda usa passageiroviagem_id_seq (tabela renomeada na V2)
+        IF to_regclass(nova) IS DISTINCT FROM atual::regclass THEN
+            EXECUTE format('ALTER SEQUENCE %s RENAME TO %I', atual, nova);
+        END IF;
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', nova);
+        -- Próximo nextval fica acima de todos os ids já usados
+        EXECUTE format('SELECT setval(%L, GREATEST((SELECT COALESCE(max(id), 0) FROM %I), (SELECT last_value FROM %I)))',
+                       nova, tabela, nova);
+    END LOOP;
+END $$;
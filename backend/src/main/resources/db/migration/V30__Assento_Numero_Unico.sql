@@ -0,0 +1,36 @@
+-- Um único registro de assento por (viagem, ônibus, número). Junto com uq_assento_viagem (um passageiro por
+-- registro), o próprio banco impede a venda dupla, inclusive entre instâncias da aplicação ou por SQL direto;
+-- as travas do SeatInventory só evitam a disputa dentro de uma JVM.
+
+-- 1. Registros repetidos: fica o de menor id
+CREATE TEMP TABLE assento_repetido ON COMMIT DROP AS
+SELECT id, manter FROM (
+    SELECT a.id, min(a.id) OVER (PARTITION BY a.viagem_id, a.onibus_id, a.numero) AS manter
+    FROM assento a
+    WHERE a.onibus_id IS NOT NULL
+) t
+WHERE id <> manter;
+
+-- 2. Passageiros nos registros repetidos: o primeiro vai para o registro mantido, se ele estiver livre;
+--    os demais (venda dupla de fato) ficam sem assento para serem realocados
+WITH ocupantes AS (
+    SELECT p.id, r.manter, row_number() OVER (PARTITION BY r.manter ORDER BY p.id) AS ordem
+    FROM passageiro_viagem p
+    JOIN assento_repetido r ON r.id = p.assento_id
+)
+UPDATE passageiro_viagem p
+SET assento_id = CASE
+    WHEN o.ordem = 1 AND NOT EXISTS (SELECT 1 FROM passageiro_viagem x WHERE x.assento_id = o.manter) THEN o.manter
+    END
+FROM ocupantes o
+WHERE p.id = o.id;
+
+UPDATE assento a
+SET ocupado = EXISTS (SELECT 1 FROM passageiro_viagem p WHERE p.assento_id = a.id)
+WHERE a.id IN (SELECT manter FROM assento_repetido);
+
+DELETE FROM assento WHERE id IN (SELECT id FROM assento_repetido);
+
+-- 3. A restrição (também serve de índice para a busca por número em ocuparAssento)
+ALTER TABLE assento
+    ADD CONSTRAINT uq_assento_numero UNIQUE (viagem_id, onibus_id, numero);
@@ -0,0 +1,19 @@
+-- Posição de cada telefone na lista da pessoa (@OrderColumn em Pessoa.telefones). Sem ela a coleção é um
+-- "bag": qualquer alteração apaga e regrava todos os telefones da pessoa, um DELETE e um INSERT alternados
+-- por pessoa, o que impede o JDBC batch em alterações de grupo. Com a posição, trocar um telefone é um
+-- UPDATE da linha, agrupado em lote com os das outras pessoas, e telefone igual não gera SQL.
+
+ALTER TABLE pessoa_telefones ADD COLUMN posicao INTEGER;
+
+-- A ordem de hoje é a de inserção (a lista lida sem ORDER BY); ctid é o que mais se aproxima dela
+UPDATE pessoa_telefones t
+SET posicao = o.posicao
+FROM (
+    SELECT ctid, row_number() OVER (PARTITION BY pessoa_id ORDER BY ctid) - 1 AS posicao
+    FROM pessoa_telefones
+) o
+WHERE t.ctid = o.ctid;
+
+ALTER TABLE pessoa_telefones
+    ALTER COLUMN posicao SET NOT NULL,
+    ADD PRIMARY KEY (pessoa_id, posicao);
@@ -0,0 +1,45 @@
+package com.partricioturismo.crud;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Postgres embutido (binários do zonky, mesma versão major do docker-compose) para os testes que
+ * precisam de SQL de verdade: migrations Flyway, SQL nativo e contagem de statements.
+ * Sobe uma vez por JVM; cada teste @DataJpaTest roda numa transação que é desfeita no fim.
+ *
+ * Uso: @DynamicPropertySource static void banco(DynamicPropertyRegistry r) { PostgresDeTeste.registrar(r); }
+ */
+public final class PostgresDeTeste {
+
+    private static EmbeddedPostgres postgres;
+
+    private PostgresDeTeste() {}
+
+    public static synchronized void registrar(DynamicPropertyRegistry registro) {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao subir o Postgres embutido", e);
+            }
+            EmbeddedPostgres iniciado = postgres;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    iniciado.close();
+                } catch (IOException ignorada) {
+                    // JVM encerrando
+                }
+            }));
+        }
+        registro.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registro.add("spring.datasource.username", () -> "postgres");
+        registro.add("spring.datasource.password", () -> "postgres");
+        // Mesmo modo do perfil prod: o mapeamento das entidades precisa bater com as migrations
+        registro.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registro.add("spring.jpa.show-sql", () -> "false");
+    }
+}
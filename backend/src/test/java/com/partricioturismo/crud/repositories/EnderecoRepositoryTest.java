@@ -0,0 +1,93 @@
+package com.partricioturismo.crud.repositories;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.model.Endereco;
+import com.partricioturismo.crud.service.TextoNormalizador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Busca de endereços pela coluna gerada 'busca' (V27) contra o Postgres.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EnderecoRepositoryTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private EnderecoRepository repository;
+    @Autowired private TestEntityManager em;
+
+    private Endereco saoJoao;
+    private Endereco se;
+    private Endereco joaquim;
+
+    @BeforeEach
+    void setUp() {
+        saoJoao = em.persist(new Endereco(null, "Rua São João", "10", "Centro", "Aracaju", "SE", "49010-000"));
+        se = em.persist(new Endereco(null, "Praça da Sé", "1", "Sé", "São Paulo", "SP", "01001-000"));
+        joaquim = em.persist(new Endereco(null, "Avenida Joaquim Nabuco", "200", "Siqueira Campos", "Aracaju", "SE", "49075-000"));
+        em.flush();
+    }
+
+    @Test
+    void ignoraAcentosNoCadastroENaConsulta() {
+        assertEquals(List.of(se.getId()), ids(buscar("praca da se")));
+        assertEquals(List.of(se.getId()), ids(buscar("PRAÇA DA SÉ")));
+        assertEquals(List.of(saoJoao.getId()), ids(buscar("sao joao")));
+    }
+
+    @Test
+    void maisParecidosPrimeiro() {
+        // "joa" está nos dois; "joao" é palavra inteira só no primeiro
+        List<Long> resultado = ids(buscar("rua joao"));
+        assertEquals(saoJoao.getId(), resultado.get(0));
+
+        List<Long> ambos = ids(buscar("joa"));
+        assertEquals(2, ambos.size());
+        assertTrue(ambos.containsAll(List.of(saoJoao.getId(), joaquim.getId())));
+    }
+
+    @Test
+    void achaPeloCepComOuSemHifen() {
+        assertEquals(List.of(joaquim.getId()), ids(buscar("49075-000")));
+        assertEquals(List.of(joaquim.getId()), ids(buscar("49075")));
+    }
+
+    @Test
+    void toleraErroDeDigitacaoPorPalavra() {
+        assertEquals(saoJoao.getId(), ids(buscar("aracaju sao joaoo")).get(0));
+    }
+
+    @Test
+    void paginaPeloLimiteEDeslocamento() {
+        List<Long> primeira = ids(repository.search("aracaju", 1, 0));
+        List<Long> segunda = ids(repository.search("aracaju", 1, 1));
+
+        assertEquals(1, primeira.size());
+        assertEquals(1, segunda.size());
+        assertNotEquals(primeira, segunda);
+    }
+
+    // Mesma normalização do EnderecoService.search
+    private List<Endereco> buscar(String consulta) {
+        return repository.search(String.join(" ", TextoNormalizador.termosDeBusca(consulta)), 10, 0);
+    }
+
+    private static List<Long> ids(List<Endereco> enderecos) {
+        return enderecos.stream().map(Endereco::getId).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.partricioturismo.crud.repositories;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.dtos.ManifestoPassageiroView;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Viagem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consulta única do manifesto (MANIFESTO_SELECT) contra o Postgres.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PassageiroViagemRepositoryTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private PassageiroViagemRepository repository;
+    @Autowired private TestEntityManager em;
+
+    @Test
+    void manifestoSelecionaCadaColunaUmaVez() {
+        Matcher alias = Pattern.compile("AS \"(\\w+)\"").matcher(PassageiroViagemRepository.MANIFESTO_SELECT);
+        Set<String> vistos = new HashSet<>();
+        while (alias.find()) {
+            assertTrue(vistos.add(alias.group(1)), "coluna repetida no manifesto: " + alias.group(1));
+        }
+        assertTrue(vistos.containsAll(List.of("viagemId", "viagemPartida", "viagemChegada", "totalPassageiros", "onibusJson")));
+    }
+
+    @Test
+    void manifestoTrazOsDadosDaViagemEOsOnibusSoNaPrimeiraLinha() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "MAN1A23", 46, null));
+        Viagem viagem = new Viagem();
+        LocalDateTime partida = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        viagem.setDataHoraPartida(partida);
+        viagem.setDataHoraChegada(partida.plusHours(8));
+        viagem.setListaOnibus(new ArrayList<>(List.of(onibus)));
+        em.persist(viagem);
+        em.persist(passageiro(viagem, "Ana", "66600000001", 1000));
+        em.persist(passageiro(viagem, "Bia", "66600000002", 2000));
+        em.flush();
+        em.clear();
+
+        List<ManifestoPassageiroView> linhas = repository.findManifestoByViagemId(viagem.getId());
+
+        assertEquals(List.of("Ana", "Bia"), linhas.stream().map(ManifestoPassageiroView::getPessoaNome).toList());
+        ManifestoPassageiroView primeira = linhas.get(0);
+        assertEquals(viagem.getId(), primeira.getViagemId());
+        assertEquals(partida, primeira.getViagemPartida());
+        assertEquals(2, primeira.getTotalPassageiros());
+        assertTrue(primeira.getOnibusJson().contains("MAN1A23"));
+        assertNull(linhas.get(1).getOnibusJson());
+    }
+
+    private PassageiroViagem passageiro(Viagem viagem, String nome, String cpf, int ordem) {
+        Pessoa pessoa = new Pessoa();
+        pessoa.setNome(nome);
+        pessoa.setCpf(cpf);
+        PassageiroViagem pv = new PassageiroViagem();
+        pv.setPessoa(em.persist(pessoa));
+        pv.setViagem(viagem);
+        pv.setValor(new BigDecimal("150.00"));
+        pv.setOrdem(ordem);
+        return pv;
+    }
+}
@@ -0,0 +1,134 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Busca de blocos de assentos vizinhos (AlocacaoAssentosService.Grafo) sobre um layout
+ * convencional: 12 fileiras de 2 + corredor + 2 (48 lugares).
+ */
+class AlocacaoAssentosServiceTest {
+
+    private static final LayoutOnibus LAYOUT = LayoutOnibus.compilar(layoutConvencional(12), 48, new ObjectMapper());
+
+    @Test
+    void casalFicaLadoALadoNaMesmaFileira() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+
+        int[] numeros = numeros(grafo, grafo.melhorBloco(List.of(), 2));
+
+        assertArrayEquals(new int[]{1, 2}, numeros);
+    }
+
+    @Test
+    void grupoDeQuatroAtravessaOCorredorEmVezDeMudarDeFileira() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+
+        int[] bloco = grafo.melhorBloco(List.of(), 4);
+
+        assertEquals(1, grafo.fileirasOcupadas(bloco));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, numeros(grafo, bloco));
+    }
+
+    @Test
+    void grupoMaiorQueUmaFileiraOcupaFileirasSeguidas() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+
+        int[] bloco = grafo.melhorBloco(List.of(), 7);
+
+        assertEquals(7, bloco.length);
+        assertEquals(2, grafo.fileirasOcupadas(bloco));
+    }
+
+    @Test
+    void grupoContornaAssentosOcupados() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+        // Fileira 1 com um só lugar livre: o trio vai inteiro para a fileira 2
+        grafo.ocupar(1);
+        grafo.ocupar(2);
+        grafo.ocupar(3);
+
+        int[] numeros = numeros(grafo, grafo.melhorBloco(List.of(), 3));
+
+        assertArrayEquals(new int[]{5, 6, 7}, numeros);
+    }
+
+    @Test
+    void grupoJaSentadoCresceAPartirDosPropriosAssentos() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+        grafo.ocupar(21);
+
+        int[] numeros = numeros(grafo, grafo.melhorBloco(List.of(21), 1));
+
+        assertArrayEquals(new int[]{22}, numeros);
+    }
+
+    @Test
+    void onibusLotadoNaoTemBloco() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+        for (int numero = 1; numero <= 48; numero++) grafo.ocupar(numero);
+
+        assertNull(grafo.melhorBloco(List.of(), 1));
+    }
+
+    @Test
+    void grupoMaiorQueOsLugaresLivresNaoEhAlocado() {
+        AlocacaoAssentosService.Grafo grafo = grafo();
+        for (int numero = 1; numero <= 45; numero++) grafo.ocupar(numero);
+
+        assertNull(grafo.melhorBloco(List.of(), 4));
+        assertEquals(3, grafo.melhorBloco(List.of(), 3).length);
+    }
+
+    @Test
+    void lotarOOnibusComGruposTerminaRapido() {
+        // Mesma ordem do serviço: maiores primeiro; soma = 48
+        List<Integer> grupos = List.of(6, 5, 5, 4, 4, 4, 3, 3, 3, 3, 2, 2, 2, 1, 1);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            for (int repeticao = 0; repeticao < 100; repeticao++) {
+                AlocacaoAssentosService.Grafo grafo = grafo();
+                Set<Integer> usados = new HashSet<>();
+                for (int tamanho : grupos) {
+                    int[] bloco = grafo.melhorBloco(List.of(), tamanho);
+                    if (bloco == null) continue;
+                    for (int i : bloco) {
+                        assertTrue(usados.add(i), "assento entregue duas vezes");
+                        grafo.livre[i] = false;
+                    }
+                }
+                assertTrue(usados.size() >= 40, "alocou só " + usados.size() + " de 48");
+            }
+        });
+    }
+
+    private static AlocacaoAssentosService.Grafo grafo() {
+        return new AlocacaoAssentosService.Grafo(1L, LAYOUT);
+    }
+
+    private static int[] numeros(AlocacaoAssentosService.Grafo grafo, int[] bloco) {
+        assertNotNull(bloco);
+        int[] numeros = Arrays.stream(bloco).map(i -> grafo.numeros[i]).toArray();
+        Arrays.sort(numeros);
+        return numeros;
+    }
+
+    // [[1,2,0,3,4],[5,6,0,7,8],...]
+    private static String layoutConvencional(int fileiras) {
+        List<String> linhas = new ArrayList<>();
+        for (int f = 0; f < fileiras; f++) {
+            int base = f * 4;
+            linhas.add("[" + (base + 1) + "," + (base + 2) + ",0," + (base + 3) + "," + (base + 4) + "]");
+        }
+        return "[" + String.join(",", linhas) + "]";
+    }
+}
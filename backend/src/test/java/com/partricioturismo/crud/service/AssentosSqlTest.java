@@ -0,0 +1,205 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.dtos.PassengerResponseDto;
+import com.partricioturismo.crud.model.Assento;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Viagem;
+import com.partricioturismo.crud.repositories.AssentoRepository;
+import com.partricioturismo.crud.repositories.PassageiroViagemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reserva e troca de assentos contra o Postgres, incluindo as restrições da V30: duas instâncias
+ * (sem a trava em memória do SeatInventory) disputando o mesmo assento não geram venda dupla.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PassageiroViagemService.class, EncomendaService.class, OrdemPassageiroService.class,
+        SeatInventory.class, ManifestoService.class, PessoaSearchIndex.class})
+class AssentosSqlTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private PassageiroViagemService service;
+    @Autowired private PassageiroViagemRepository repository;
+    @Autowired private AssentoRepository assentoRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private PlatformTransactionManager transacoes;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void reservaOcupaOAssentoELiberaOAnterior() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "RES1A23", 46, null));
+        Viagem viagem = em.persist(viagem(onibus));
+        PassageiroViagem ana = em.persist(passageiro(viagem, "Ana", "88800000001"));
+        em.flush();
+
+        PassengerResponseDto primeiro = service.vincularAssentoPorNumero(ana.getId(), onibus.getIdOnibus(), "10");
+        PassengerResponseDto segundo = service.vincularAssentoPorNumero(ana.getId(), onibus.getIdOnibus(), "11");
+
+        assertEquals("10", primeiro.numeroAssento());
+        assertEquals("11", segundo.numeroAssento());
+        assertEquals(List.of("11"), assentoRepository.findNumerosOcupados(viagem.getId(), onibus.getIdOnibus()));
+    }
+
+    @Test
+    void reservarAssentoDeOutroPassageiroODesaloja() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "RES2A23", 46, null));
+        Viagem viagem = em.persist(viagem(onibus));
+        PassageiroViagem ana = em.persist(passageiro(viagem, "Ana", "88800000002"));
+        PassageiroViagem bia = em.persist(passageiro(viagem, "Bia", "88800000003"));
+        em.flush();
+
+        service.vincularAssentoPorNumero(ana.getId(), onibus.getIdOnibus(), "5");
+        service.vincularAssentoPorNumero(bia.getId(), onibus.getIdOnibus(), "5");
+
+        assertNull(repository.findSituacaoAssento(ana.getId()).get(0)[1]);
+        assertEquals("5", repository.findSituacaoAssento(bia.getId()).get(0)[1]);
+        assertEquals(1, contarAssentos(viagem, "5"));
+    }
+
+    @Test
+    void trocaInverteOsAssentosDosDoisPassageiros() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "TRC1A23", 46, null));
+        Viagem viagem = em.persist(viagem(onibus));
+        PassageiroViagem ana = em.persist(passageiro(viagem, "Ana", "88800000004"));
+        PassageiroViagem bia = em.persist(passageiro(viagem, "Bia", "88800000005"));
+        em.flush();
+        service.vincularAssentoPorNumero(ana.getId(), onibus.getIdOnibus(), "1");
+        service.vincularAssentoPorNumero(bia.getId(), onibus.getIdOnibus(), "2");
+
+        List<PassengerResponseDto> trocados = service.trocarAssentos(ana.getId(), bia.getId());
+
+        assertEquals("2", trocados.get(0).numeroAssento());
+        assertEquals("1", trocados.get(1).numeroAssento());
+    }
+
+    @Test
+    void registroRepetidoDoMesmoNumeroViraConflito() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "DUP1A23", 46, null));
+        Viagem viagem = em.persist(viagem(onibus));
+        em.flush();
+        assentoRepository.saveAndFlush(assento(viagem, onibus, "7"));
+
+        assertThrows(SeatInventory.ConflitoAssentoException.class,
+                () -> SeatInventory.semConflito(() -> assentoRepository.saveAndFlush(assento(viagem, onibus, "7"))));
+    }
+
+    // Duas transações confirmadas de verdade, como duas instâncias da aplicação: a segunda fica
+    // presa no índice único até a primeira confirmar e então recebe a violação de uq_assento_numero
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void instanciasDisputandoOMesmoAssentoNaoVendemDuasVezes() throws Exception {
+        TransactionTemplate transacao = new TransactionTemplate(transacoes);
+        long[] ids = transacao.execute(s -> {
+            Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "CON1A23", 46, null));
+            Viagem viagem = em.persist(viagem(onibus));
+            PassageiroViagem ana = em.persist(passageiro(viagem, "Ana", "88800000006"));
+            PassageiroViagem bia = em.persist(passageiro(viagem, "Bia", "88800000007"));
+            return new long[]{onibus.getIdOnibus(), viagem.getId(), ana.getId(), bia.getId()};
+        });
+        long onibusId = ids[0], viagemId = ids[1];
+
+        CountDownLatch primeiraGravou = new CountDownLatch(1);
+        ExecutorService instancias = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> primeira = instancias.submit(() -> transacao.execute(s -> {
+                repository.ocuparAssento(ids[2], viagemId, onibusId, "9");
+                primeiraGravou.countDown();
+                dormir(300);
+                return null;
+            }));
+            assertTrue(primeiraGravou.await(5, TimeUnit.SECONDS));
+            Future<?> segunda = instancias.submit(() -> transacao.execute(s ->
+                    SeatInventory.semConflito(() -> repository.ocuparAssento(ids[3], viagemId, onibusId, "9"))));
+
+            primeira.get(10, TimeUnit.SECONDS);
+            Exception erro = assertThrows(Exception.class, () -> segunda.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(SeatInventory.ConflitoAssentoException.class, erro.getCause());
+
+            assertEquals(1, jdbc.queryForObject(
+                    "SELECT count(*) FROM assento WHERE viagem_id = ? AND numero = '9'", Integer.class, viagemId));
+            assertEquals(List.of(ids[2]), jdbc.queryForList(
+                    "SELECT p.id FROM passageiro_viagem p JOIN assento a ON a.id = p.assento_id WHERE a.viagem_id = ?",
+                    Long.class, viagemId));
+        } finally {
+            instancias.shutdownNow();
+            jdbc.update("DELETE FROM passageiro_viagem WHERE viagem_id = ?", viagemId);
+            jdbc.update("DELETE FROM assento WHERE viagem_id = ?", viagemId);
+            jdbc.update("DELETE FROM viagem_onibus WHERE viagem_id = ?", viagemId);
+            jdbc.update("DELETE FROM viagem WHERE id = ?", viagemId);
+            jdbc.update("DELETE FROM onibus WHERE id = ?", onibusId);
+            jdbc.update("DELETE FROM pessoa WHERE cpf IN ('88800000006', '88800000007')");
+        }
+    }
+
+    private long contarAssentos(Viagem viagem, String numero) {
+        return jdbc.queryForObject("SELECT count(*) FROM assento WHERE viagem_id = ? AND numero = ?",
+                Long.class, viagem.getId(), numero);
+    }
+
+    private PassageiroViagem passageiro(Viagem viagem, String nome, String cpf) {
+        Pessoa pessoa = new Pessoa();
+        pessoa.setNome(nome);
+        pessoa.setCpf(cpf);
+        PassageiroViagem pv = new PassageiroViagem();
+        pv.setPessoa(em.persist(pessoa));
+        pv.setViagem(viagem);
+        pv.setValor(new BigDecimal("150.00"));
+        return pv;
+    }
+
+    private static Viagem viagem(Onibus onibus) {
+        Viagem viagem = new Viagem();
+        viagem.setDataHoraPartida(LocalDateTime.now().plusDays(1));
+        viagem.setDataHoraChegada(LocalDateTime.now().plusDays(1).plusHours(8));
+        viagem.setListaOnibus(new ArrayList<>(List.of(onibus)));
+        return viagem;
+    }
+
+    private static Assento assento(Viagem viagem, Onibus onibus, String numero) {
+        Assento assento = new Assento();
+        assento.setViagem(viagem);
+        assento.setOnibus(onibus);
+        assento.setNumero(numero);
+        return assento;
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.dtos.BulkAssignResponseDto;
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Taxista;
+import com.partricioturismo.crud.model.Viagem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Atribuição de taxista em massa concorrendo com outras escritas da mesma viagem, em transações confirmadas.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PassageiroViagemService.class, EncomendaService.class, OrdemPassageiroService.class,
+        SeatInventory.class, ManifestoService.class, PessoaSearchIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AtribuicaoTaxistaConcorrenciaSqlTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private PassageiroViagemService service;
+    @Autowired private TestEntityManager em;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private PlatformTransactionManager transacoes;
+
+    // Duas transações confirmadas de verdade: um update() do passageiro trava a viagem e só grava a linha no
+    // commit; a atribuição em massa no meio disso tem de esperar pela viagem em vez de travar a linha antes
+    // (linha -> viagem de um lado, viagem -> linha do outro era deadlock, 40P01)
+    @Test
+    void atribuicaoEmMassaNaoDaDeadlockComUpdateDoPassageiro() throws Exception {
+        TransactionTemplate transacao = new TransactionTemplate(transacoes);
+        long[] ids = transacao.execute(s -> {
+            Viagem viagem = new Viagem();
+            viagem.setDataHoraPartida(LocalDateTime.now().plusDays(1));
+            viagem.setDataHoraChegada(LocalDateTime.now().plusDays(1).plusHours(8));
+            em.persist(viagem);
+            Taxista taxista = em.persist(new Taxista(em.persist(pessoa("Taxista", "77700000011"))));
+            PassageiroViagem pv = new PassageiroViagem();
+            pv.setPessoa(em.persist(pessoa("Bia", "77700000012")));
+            pv.setViagem(viagem);
+            pv.setValor(new BigDecimal("150.00"));
+            em.persist(pv);
+            return new long[]{viagem.getId(), taxista.getId(), pv.getId()};
+        });
+        long viagemId = ids[0], taxistaId = ids[1], passageiroId = ids[2];
+        long antes = jdbc.queryForObject("SELECT manifest_version FROM viagem WHERE id = ?", Long.class, viagemId);
+
+        CountDownLatch viagemTravada = new CountDownLatch(1);
+        ExecutorService transacoesParalelas = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> update = transacoesParalelas.submit(() -> transacao.execute(s -> {
+                service.updateCor(passageiroId, "#ff0000");
+                viagemTravada.countDown();
+                dormir(300);
+                return null;
+            }));
+            assertTrue(viagemTravada.await(5, TimeUnit.SECONDS));
+            Future<BulkAssignResponseDto> emMassa = transacoesParalelas.submit(() -> transacao.execute(s ->
+                    service.atribuirTaxistaEmMassa(List.of(passageiroId), List.of(), taxistaId, "COLETA")));
+
+            update.get(10, TimeUnit.SECONDS);
+            assertEquals(1, emMassa.get(10, TimeUnit.SECONDS).passageirosAtualizados());
+
+            assertEquals(List.of(taxistaId + "|#ff0000"), jdbc.queryForList(
+                    "SELECT taxista_coleta_id || '|' || cor_tag FROM passageiro_viagem WHERE id = ?", String.class, passageiroId));
+            assertEquals(antes + 2, jdbc.queryForObject("SELECT manifest_version FROM viagem WHERE id = ?", Long.class, viagemId));
+        } finally {
+            transacoesParalelas.shutdownNow();
+            jdbc.update("DELETE FROM passageiro_viagem WHERE viagem_id = ?", viagemId);
+            jdbc.update("DELETE FROM manifesto_alteracao WHERE viagem_id = ?", viagemId);
+            jdbc.update("DELETE FROM viagem WHERE id = ?", viagemId);
+            jdbc.update("DELETE FROM taxista WHERE id = ?", taxistaId);
+            jdbc.update("DELETE FROM pessoa WHERE cpf IN ('77700000011', '77700000012')");
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Pessoa pessoa(String nome, String cpf) {
+        Pessoa p = new Pessoa();
+        p.setNome(nome);
+        p.setCpf(cpf);
+        return p;
+    }
+}
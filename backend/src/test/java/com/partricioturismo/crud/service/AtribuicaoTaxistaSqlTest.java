@@ -0,0 +1,132 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.dtos.BulkAssignResponseDto;
+import com.partricioturismo.crud.model.Encomenda;
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Taxista;
+import com.partricioturismo.crud.model.Viagem;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Atribuição de taxista em massa (POST /api/passageiroviagem/atribuir-massa) contra o Postgres.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PassageiroViagemService.class, EncomendaService.class, OrdemPassageiroService.class,
+        SeatInventory.class, ManifestoService.class, PessoaSearchIndex.class})
+class AtribuicaoTaxistaSqlTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private PassageiroViagemService service;
+    @Autowired private TestEntityManager em;
+    @Autowired private JdbcTemplate jdbc;
+
+    private Viagem viagem;
+    private Taxista taxista;
+    private PassageiroViagem passageiro;
+
+    @BeforeEach
+    void setUp() {
+        viagem = new Viagem();
+        viagem.setDataHoraPartida(LocalDateTime.now().plusDays(1));
+        viagem.setDataHoraChegada(LocalDateTime.now().plusDays(1).plusHours(8));
+        em.persist(viagem);
+        taxista = em.persist(new Taxista(em.persist(pessoa("Taxista", "77700000001"))));
+        passageiro = new PassageiroViagem();
+        passageiro.setPessoa(em.persist(pessoa("Ana", "77700000002")));
+        passageiro.setViagem(viagem);
+        passageiro.setValor(new BigDecimal("150.00"));
+        em.persist(passageiro);
+        em.flush();
+    }
+
+    @Test
+    void atribuiERemoveOTaxistaComNullDeVerdade() {
+        service.atribuirTaxistaEmMassa(List.of(passageiro.getId()), List.of(), taxista.getId(), "coleta");
+        assertEquals(taxista.getId(), taxistaColeta());
+
+        BulkAssignResponseDto removido = service.atribuirTaxistaEmMassa(List.of(passageiro.getId()), List.of(), null, "COLETA");
+
+        assertEquals(1, removido.passageirosAtualizados());
+        assertNull(taxistaColeta());
+    }
+
+    @Test
+    void soAsViagensDeRegistrosEncontradosMudamDeVersao() {
+        long antes = versao();
+
+        BulkAssignResponseDto resposta = service.atribuirTaxistaEmMassa(List.of(-1L), List.of(-2L), taxista.getId(), "ENTREGA");
+
+        assertEquals(List.of(-1L), resposta.passageirosIgnorados());
+        assertEquals(List.of(-2L), resposta.encomendasIgnoradas());
+        assertEquals(antes, versao());
+
+        service.atribuirTaxistaEmMassa(List.of(passageiro.getId()), List.of(), taxista.getId(), "ENTREGA");
+        assertEquals(antes + 1, versao());
+    }
+
+    @Test
+    void validaTipoETaxistaAntesDeAlterar() {
+        List<Long> ids = List.of(passageiro.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> service.atribuirTaxistaEmMassa(ids, List.of(), taxista.getId(), null));
+        assertThrows(IllegalArgumentException.class, () -> service.atribuirTaxistaEmMassa(ids, List.of(), taxista.getId(), "IDA"));
+        assertThrows(EntityNotFoundException.class, () -> service.atribuirTaxistaEmMassa(ids, List.of(), -1L, "COLETA"));
+        assertNull(taxistaColeta());
+    }
+
+    @Test
+    void passageiroEEncomendaDaMesmaViagemMudamAVersaoUmaVez() {
+        Encomenda encomenda = new Encomenda();
+        encomenda.setViagem(viagem);
+        encomenda.setRemetente(passageiro.getPessoa());
+        encomenda.setDestinatario(taxista.getPessoa());
+        em.persist(encomenda);
+        em.flush();
+        long antes = versao();
+
+        BulkAssignResponseDto resposta = service.atribuirTaxistaEmMassa(
+                List.of(passageiro.getId()), List.of(encomenda.getId()), taxista.getId(), "COLETA");
+
+        assertEquals(1, resposta.passageirosAtualizados());
+        assertEquals(1, resposta.encomendasAtualizadas());
+        assertEquals(antes + 1, versao());
+    }
+
+    private Long taxistaColeta() {
+        return jdbc.queryForObject("SELECT taxista_coleta_id FROM passageiro_viagem WHERE id = ?", Long.class, passageiro.getId());
+    }
+
+    private long versao() {
+        return jdbc.queryForObject("SELECT manifest_version FROM viagem WHERE id = ?", Long.class, viagem.getId());
+    }
+
+    private static Pessoa pessoa(String nome, String cpf) {
+        Pessoa p = new Pessoa();
+        p.setNome(nome);
+        p.setCpf(cpf);
+        return p;
+    }
+}
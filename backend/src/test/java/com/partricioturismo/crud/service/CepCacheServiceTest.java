@@ -0,0 +1,144 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.EnderecoDto;
+import com.partricioturismo.crud.repositories.CepCacheRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// ViaCEP substituído por um servidor HTTP local que conta as chamadas recebidas
+class CepCacheServiceTest {
+
+    private static final String RESPOSTA = "{\"cep\":\"01001-000\",\"logradouro\":\"Praça da Sé\",\"bairro\":\"Sé\"," +
+            "\"localidade\":\"São Paulo\",\"uf\":\"SP\"}";
+
+    private HttpServer viaCepFalso;
+    private final AtomicInteger chamadas = new AtomicInteger();
+    private volatile long atrasoMs = 0;
+    private volatile boolean fora = false;
+
+    private CepCacheRepository repository;
+    private SimpleMeterRegistry metricas;
+    private CepCacheService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        viaCepFalso = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        viaCepFalso.setExecutor(Executors.newCachedThreadPool());
+        viaCepFalso.createContext("/", troca -> {
+            chamadas.incrementAndGet();
+            try {
+                Thread.sleep(atrasoMs);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            String corpo = troca.getRequestURI().getPath().contains("99999999") ? "{\"erro\": true}" : RESPOSTA;
+            byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().add("Content-Type", "application/json");
+            troca.sendResponseHeaders(fora ? 503 : 200, fora ? -1 : bytes.length);
+            if (!fora) troca.getResponseBody().write(bytes);
+            troca.close();
+        });
+        viaCepFalso.start();
+
+        repository = mock(CepCacheRepository.class);
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        metricas = new SimpleMeterRegistry();
+        ViaCepClient client = new ViaCepClient(WebClient.builder(),
+                "http://127.0.0.1:" + viaCepFalso.getAddress().getPort(), 2000, 1000, 32, 3, 60000);
+        service = new CepCacheService(client, repository, metricas, 100, 720, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        viaCepFalso.stop(0);
+    }
+
+    @Test
+    void segundaConsultaVemDaMemoria() {
+        EnderecoDto primeira = service.consultar("01001-000").orElseThrow();
+        EnderecoDto segunda = service.consultar("01001000").orElseThrow();
+
+        assertEquals("São Paulo", primeira.cidade());
+        assertEquals(primeira, segunda);
+        assertEquals(1, chamadas.get());
+        verify(repository, times(1)).gravar(eq("01001000"), eq(true), any(), any(), any(), any());
+        assertEquals(1.0, metricas.counter("cep.cache.consultas", "origem", "memoria").count());
+    }
+
+    @Test
+    void cepInexistenteFicaNoCacheNegativo() {
+        assertTrue(service.consultar("99999-999").isEmpty());
+        assertTrue(service.consultar("99999999").isEmpty());
+
+        assertEquals(1, chamadas.get());
+        verify(repository).gravar(eq("99999999"), eq(false), any(), any(), any(), any());
+    }
+
+    @Test
+    void consultasSimultaneasFazemUmaUnicaChamada() throws Exception {
+        atrasoMs = 300;
+        int clientes = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(clientes);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Optional<EnderecoDto>>> respostas = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            respostas.add(pool.submit(() -> {
+                largada.await();
+                return service.consultar("01001000");
+            }));
+        }
+        largada.countDown();
+        for (Future<Optional<EnderecoDto>> r : respostas) {
+            assertTrue(r.get().isPresent());
+        }
+        pool.shutdown();
+
+        assertEquals(1, chamadas.get());
+    }
+
+    @Test
+    void viaCepForaSemRespostaGuardadaFalha() {
+        fora = true;
+
+        assertThrows(IllegalStateException.class, () -> service.consultar("01001000"));
+        assertEquals(1.0, metricas.counter("cep.cache.falhas").count());
+    }
+
+    @Test
+    void disjuntorAbertoNaoChamaViaCep() {
+        fora = true;
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> service.consultar("01001000"));
+        }
+        assertEquals(3, chamadas.get());
+
+        // Disjuntor aberto: falha sem sair da aplicação
+        assertThrows(IllegalStateException.class, () -> service.consultar("01001000"));
+        assertEquals(3, chamadas.get());
+    }
+
+    @Test
+    void formatoInvalidoNaoChamaViaCep() {
+        assertThrows(IllegalArgumentException.class, () -> service.consultar("123"));
+        assertEquals(0, chamadas.get());
+    }
+}
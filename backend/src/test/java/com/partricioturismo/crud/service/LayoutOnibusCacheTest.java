@@ -0,0 +1,76 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.repositories.OnibusRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LayoutOnibusCacheTest {
+
+    private static final String DUAS_FILEIRAS = "[[1,2,0,3,4],[5,6,0,7,8]]";
+    private static final String UMA_FILEIRA = "[[1,2,0,3,4]]";
+
+    @Mock private OnibusRepository onibusRepository;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks private LayoutOnibusCache cache;
+
+    @Test
+    void guardaOLayoutDoOnibusLidoDoBanco() {
+        when(onibusRepository.findById(1L)).thenReturn(Optional.of(onibus(DUAS_FILEIRAS)));
+
+        LayoutOnibus primeiro = cache.doOnibus(1L).orElseThrow();
+
+        assertSame(primeiro, cache.doOnibus(1L).orElseThrow());
+        assertSame(primeiro, cache.doOnibus(onibus(DUAS_FILEIRAS)));
+        verify(onibusRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void onibusRecebidoDeQuemChamaNaoEntraNoCache() {
+        // Entidade lida antes de uma alteração: o layout dela não pode ficar valendo para o id
+        assertEquals(4, cache.doOnibus(onibus(UMA_FILEIRA)).quantidadeAssentos());
+        when(onibusRepository.findById(1L)).thenReturn(Optional.of(onibus(DUAS_FILEIRAS)));
+
+        assertEquals(8, cache.doOnibus(1L).orElseThrow().quantidadeAssentos());
+    }
+
+    @Test
+    void leituraQueCruzouUmaInvalidacaoNaoGuardaOLayoutAntigo() {
+        when(onibusRepository.findById(1L))
+                .thenAnswer(inv -> {
+                    // O update do ônibus confirma enquanto esta leitura ainda tem a linha antiga
+                    cache.invalidar(1L);
+                    return Optional.of(onibus(UMA_FILEIRA));
+                })
+                .thenReturn(Optional.of(onibus(DUAS_FILEIRAS)));
+
+        assertEquals(4, cache.doOnibus(1L).orElseThrow().quantidadeAssentos());
+
+        assertEquals(8, cache.doOnibus(1L).orElseThrow().quantidadeAssentos());
+        assertEquals(8, cache.doOnibus(1L).orElseThrow().quantidadeAssentos());
+        verify(onibusRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void onibusInexistente() {
+        when(onibusRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.doOnibus(9L).isEmpty());
+    }
+
+    private static Onibus onibus(String layoutJson) {
+        return new Onibus(1L, "Marcopolo", "ABC1D23", 8, layoutJson);
+    }
+}
@@ -0,0 +1,135 @@
+package com.partricioturismo.crud.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.partricioturismo.crud.dtos.AssentoLayoutDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayoutOnibusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"não é json", "{\"a\":1}", "[]", "[[1,-2]]", "[[1,null]]", "[[1,2],[3,1]]", "[[0,0],[0]]"})
+    void validarRecusaLayoutsQueNaoPodemSerSalvos(String layoutJson) {
+        assertThrows(IllegalArgumentException.class, () -> LayoutOnibus.validar(layoutJson, objectMapper));
+    }
+
+    @Test
+    void validarAceitaMatrizComCorredorOuSemLayout() {
+        assertDoesNotThrow(() -> LayoutOnibus.validar("[[1,2,0,3,4],[5,6,0,7,8]]", objectMapper));
+        assertDoesNotThrow(() -> LayoutOnibus.validar(null, objectMapper));
+        assertDoesNotThrow(() -> LayoutOnibus.validar("  ", objectMapper));
+    }
+
+    @Test
+    void semLayoutUsaQuatroPorFileiraAteACapacidade() {
+        LayoutOnibus layout = LayoutOnibus.compilar(null, 10, objectMapper);
+
+        assertFalse(layout.usouPadrao());
+        assertEquals(10, layout.quantidadeAssentos());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, layout.numeros());
+        assertArrayEquals(new int[]{0, 0, 0, 0, 1, 1, 1, 1, 2, 2}, layout.fileiras());
+        assertTrue(layout.janela(layout.indice(9)));
+        assertFalse(layout.janela(layout.indice(10)));
+        assertEquals(-1, layout.indice(11));
+    }
+
+    @Test
+    void layoutIlegivelCaiNoPadrao() {
+        LayoutOnibus layout = LayoutOnibus.compilar("[[1,2", 6, objectMapper);
+
+        assertTrue(layout.usouPadrao());
+        assertEquals(6, layout.quantidadeAssentos());
+        assertTrue(layout.geradoDe("[[1,2", 6));
+        assertFalse(layout.geradoDe("[[1,2", 8));
+    }
+
+    @Test
+    void custosDasArestas() {
+        LayoutOnibus layout = LayoutOnibus.compilar("[[1,2,0,3,4],[5,6,0,7,8]]", 8, objectMapper);
+
+        assertEquals(Map.of(2, LayoutOnibus.CUSTO_LADO, 5, LayoutOnibus.CUSTO_FILEIRA), arestas(layout, 1));
+        assertEquals(Map.of(1, LayoutOnibus.CUSTO_LADO, 3, LayoutOnibus.CUSTO_CORREDOR, 6, LayoutOnibus.CUSTO_FILEIRA),
+                arestas(layout, 2));
+        assertEquals(Map.of(8, LayoutOnibus.CUSTO_LADO, 6, LayoutOnibus.CUSTO_CORREDOR, 3, LayoutOnibus.CUSTO_FILEIRA),
+                arestas(layout, 7));
+    }
+
+    @Test
+    void numeroRepetidoGravadoAntesDaValidacaoContaUmaVez() {
+        LayoutOnibus layout = LayoutOnibus.compilar("[[1,2],[1,3]]", 4, objectMapper);
+
+        assertFalse(layout.usouPadrao());
+        assertEquals(3, layout.quantidadeAssentos());
+        assertEquals(0, layout.fileira(layout.indice(1)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[[1,2,0,3,4],[5,6,0,7,8],[9,10,0,11,12],[13,14,15,16,17]]", "[[0,0,0],[1]]", "", "[[1,2"})
+    void jsonIgualAoDoMapaAntigo(String layoutJson) throws Exception {
+        for (int capacidade : new int[]{0, 3, 46}) {
+            byte[] antigo = objectMapper.writeValueAsBytes(mapaAntigo(layoutJson, capacidade));
+
+            assertArrayEquals(antigo, LayoutOnibus.compilar(layoutJson, capacidade, objectMapper).json(),
+                    "layout " + layoutJson + ", capacidade " + capacidade);
+        }
+    }
+
+    // Número do vizinho -> custo da aresta
+    private static Map<Integer, Integer> arestas(LayoutOnibus layout, int numero) {
+        int i = layout.indice(numero);
+        Map<Integer, Integer> arestas = new HashMap<>();
+        for (int k = 0; k < layout.vizinhos()[i].length; k++) {
+            arestas.put(layout.numero(layout.vizinhos()[i][k]), layout.custos()[i][k]);
+        }
+        return arestas;
+    }
+
+    // AssentoService.getMapaAssentos(Onibus) de antes do LayoutOnibus, como referência do formato da resposta
+    private List<List<AssentoLayoutDto>> mapaAntigo(String layoutJson, int total) {
+        if (layoutJson != null && !layoutJson.isBlank()) {
+            try {
+                List<List<Integer>> matriz = objectMapper.readValue(layoutJson, new TypeReference<List<List<Integer>>>() {});
+                List<List<AssentoLayoutDto>> layoutVisual = new ArrayList<>();
+                for (List<Integer> fileiraNumeros : matriz) {
+                    List<AssentoLayoutDto> fileiraDtos = new ArrayList<>();
+                    for (Integer numero : fileiraNumeros) {
+                        if (numero == 0) {
+                            fileiraDtos.add(new AssentoLayoutDto(null, "VAZIO"));
+                        } else {
+                            String tipo = (numero % 2 == 0) ? "CORREDOR" : "JANELA";
+                            fileiraDtos.add(new AssentoLayoutDto(String.format("%02d", numero), tipo));
+                        }
+                    }
+                    layoutVisual.add(fileiraDtos);
+                }
+                return layoutVisual;
+            } catch (Exception e) {
+                // fallback abaixo
+            }
+        }
+        List<List<AssentoLayoutDto>> layout = new ArrayList<>();
+        int assentoAtual = 1;
+        while (assentoAtual <= total) {
+            List<AssentoLayoutDto> fileira = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                if (assentoAtual > total) break;
+                String tipo = (assentoAtual % 2 == 0) ? "CORREDOR" : "JANELA";
+                fileira.add(new AssentoLayoutDto(String.format("%02d", assentoAtual), tipo));
+                assentoAtual++;
+            }
+            layout.add(fileira);
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,111 @@
+package com.partricioturismo.crud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LoginServiceTest {
+
+    private static final String SENHA = "certa";
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final TokenService tokenService = mock(TokenService.class);
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+    private LoginService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.encerrar();
+    }
+
+    @Test
+    void falhasDeUmIpNaoBloqueiamAContaEmOutro() throws Exception {
+        service = novo(1, 4, 5000, 2, 20);
+        senhaCorretaEntra();
+
+        erra("ana", "10.0.0.1");
+        erra("ana", "10.0.0.1");
+
+        assertThrows(LoginService.LoginRecusadoException.class, () -> service.autenticar("ana", SENHA, "10.0.0.1"));
+        assertEquals("token", service.autenticar("Ana", SENHA, "10.0.0.2").get(5, TimeUnit.SECONDS).token());
+    }
+
+    @Test
+    void limitePorIpValeParaQualquerLogin() throws Exception {
+        service = novo(1, 4, 5000, 5, 3);
+        senhaCorretaEntra();
+
+        for (String login : List.of("ana", "bia", "caio")) erra(login, "10.0.0.1");
+
+        LoginService.LoginRecusadoException recusa = assertThrows(LoginService.LoginRecusadoException.class,
+                () -> service.autenticar("duda", SENHA, "10.0.0.1"));
+        assertTrue(recusa.getTenteEmSegundos() > 0);
+        assertNotNull(service.autenticar("duda", SENHA, "10.0.0.2").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void pedidoQueVenceuNaFilaNaoCalculaOHash() throws Exception {
+        service = novo(1, 4, 200, 5, 20);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return autenticado(inv.getArgument(0));
+        });
+
+        CompletableFuture<LoginService.Resultado> primeiro = service.autenticar("ana", SENHA, "10.0.0.1");
+        CompletableFuture<LoginService.Resultado> segundo = service.autenticar("bia", SENHA, "10.0.0.2");
+
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> segundo.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, erro.getCause());
+
+        liberar.countDown();
+        assertThrows(ExecutionException.class, () -> primeiro.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 250 && recusadosPorPrazo() < 1; i++) Thread.sleep(20);
+
+        assertEquals(1, recusadosPorPrazo());
+        verify(authenticationManager, times(1)).authenticate(any());
+    }
+
+    private LoginService novo(int threads, int fila, long esperaMs, int maxPorLoginIp, int maxPorIp) {
+        return new LoginService(authenticationManager, tokenService, metricas, threads, fila, esperaMs, maxPorLoginIp, maxPorIp, 15);
+    }
+
+    private void senhaCorretaEntra() {
+        when(authenticationManager.authenticate(any())).thenAnswer(inv -> {
+            Authentication pedido = inv.getArgument(0);
+            if (!SENHA.equals(pedido.getCredentials())) throw new BadCredentialsException("senha errada");
+            return autenticado(pedido);
+        });
+        when(tokenService.generateToken(any())).thenReturn("token");
+    }
+
+    // A falha é registrada em whenComplete, antes de o future devolvido completar
+    private void erra(String login, String ip) {
+        ExecutionException erro = assertThrows(ExecutionException.class,
+                () -> service.autenticar(login, "errada", ip).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BadCredentialsException.class, erro.getCause());
+    }
+
+    private double recusadosPorPrazo() {
+        return metricas.get("login.recusados").tag("motivo", "prazo").counter().count();
+    }
+
+    private static Authentication autenticado(Authentication pedido) {
+        return UsernamePasswordAuthenticationToken.authenticated(pedido.getName(), null, List.of());
+    }
+}
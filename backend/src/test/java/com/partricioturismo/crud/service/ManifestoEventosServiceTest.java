@@ -0,0 +1,124 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.ManifestoEventoDto;
+import com.partricioturismo.crud.dtos.ManifestoEventoDto.TipoAlteracao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestoEventosServiceTest {
+
+    private final ManifestoEventosService eventos = new ManifestoEventosService();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        eventos.encerrar();
+    }
+
+    @Test
+    void clienteLentoNaoAtrasaOsOutros() throws Exception {
+        Travado lento = new Travado();
+        Gravador rapido = new Gravador();
+        eventos.inscrever(1L, 0, lento);
+        eventos.inscrever(1L, 0, rapido);
+        assertTrue(lento.entrou.await(5, TimeUnit.SECONDS));
+
+        eventos.aoConfirmar(evento(1L, 1));
+        eventos.aoConfirmar(evento(1L, 2));
+
+        assertEquals("0", rapido.proximoId());
+        assertEquals("1", rapido.proximoId());
+        assertEquals("2", rapido.proximoId());
+    }
+
+    @Test
+    void falhaNoEnvioDesconectaOCliente() throws Exception {
+        Gravador ok = new Gravador();
+        eventos.inscrever(1L, 0, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+        eventos.inscrever(1L, 0, ok);
+        ok.proximoId();
+
+        for (int i = 0; i < 50 && eventos.inscritos(1L) > 1; i++) Thread.sleep(20);
+
+        assertEquals(1, eventos.inscritos(1L));
+    }
+
+    @Test
+    void clienteQueNaoAcompanhaEhDesconectado() throws Exception {
+        Travado lento = new Travado();
+        eventos.inscrever(1L, 0, lento);
+        assertTrue(lento.entrou.await(5, TimeUnit.SECONDS));
+
+        for (int versao = 1; versao <= ManifestoEventosService.LIMITE_FILA + 1; versao++) {
+            eventos.aoConfirmar(evento(1L, versao));
+        }
+
+        assertEquals(0, eventos.inscritos(1L));
+    }
+
+    @Test
+    void eventoDeOutraViagemNaoEhEnviado() throws Exception {
+        Gravador cliente = new Gravador();
+        eventos.inscrever(1L, 0, cliente);
+        cliente.proximoId();
+
+        eventos.aoConfirmar(evento(2L, 7));
+        eventos.aoConfirmar(evento(1L, 8));
+
+        assertEquals("8", cliente.proximoId());
+    }
+
+    private static ManifestoEventoDto evento(Long viagemId, long versao) {
+        return new ManifestoEventoDto(viagemId, versao, TipoAlteracao.PASSAGEIRO_ATUALIZADO, List.of(), List.of());
+    }
+
+    // Guarda o id de cada evento enviado
+    private static final class Gravador extends SseEmitter {
+        final BlockingQueue<String> ids = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder texto = new StringBuilder();
+            builder.build().forEach(parte -> texto.append(parte.getData()));
+            int inicio = texto.indexOf("id:");
+            if (inicio >= 0) ids.add(texto.substring(inicio + 3, texto.indexOf("\n", inicio)).trim());
+        }
+
+        String proximoId() throws InterruptedException {
+            String id = ids.poll(5, TimeUnit.SECONDS);
+            assertNotNull(id, "evento não chegou");
+            return id;
+        }
+    }
+
+    // Fica preso no primeiro envio, como um socket sem leitura do outro lado
+    private final class Travado extends SseEmitter {
+        final CountDownLatch entrou = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            entrou.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
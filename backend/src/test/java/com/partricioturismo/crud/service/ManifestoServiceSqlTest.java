@@ -0,0 +1,138 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.model.Endereco;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.PassageiroViagem;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Viagem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quais viagens mudam de versão quando muda algo compartilhado entre manifestos (pessoa, endereço, ônibus).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ManifestoService.class)
+class ManifestoServiceSqlTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private ManifestoService manifestoService;
+    @Autowired private TestEntityManager em;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void enderecoAlteradoMudaAVersaoDeTodasAsViagensQueOUsam() {
+        Endereco endereco = em.persist(endereco());
+        Viagem passada = em.persist(viagem(LocalDateTime.now().minusYears(1), null));
+        Viagem futura = em.persist(viagem(LocalDateTime.now().plusDays(3), null));
+        Viagem outra = em.persist(viagem(LocalDateTime.now().plusDays(3), null));
+        PassageiroViagem pv = passageiro(passada, "55500000001");
+        pv.setEnderecoColeta(endereco);
+        em.persist(pv);
+        pv = passageiro(futura, "55500000002");
+        pv.setEnderecoEntrega(endereco);
+        em.persist(pv);
+        em.persist(passageiro(outra, "55500000003"));
+        em.flush();
+
+        Map<Long, Long> versoes = manifestoService.registrarAlteracaoPorEndereco(endereco.getId());
+
+        assertEquals(Map.of(passada.getId(), 1L, futura.getId(), 1L), versoes);
+        em.flush();
+        assertEquals(2, alteracoesRegistradas(passada, futura));
+    }
+
+    @Test
+    void onibusAlteradoMudaAVersaoDasViagensQueOUsam() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "MVR1A23", 46, null));
+        Viagem comOnibus = em.persist(viagem(LocalDateTime.now().plusDays(1), onibus));
+        Viagem semOnibus = em.persist(viagem(LocalDateTime.now().plusDays(1), null));
+        em.flush();
+
+        Map<Long, Long> versoes = manifestoService.registrarAlteracaoPorOnibus(onibus.getIdOnibus());
+
+        assertEquals(Map.of(comOnibus.getId(), 1L), versoes);
+        assertEquals(0L, manifestoService.versaoAtual(semOnibus.getId()).orElseThrow());
+    }
+
+    @Test
+    void pessoaAlteradaMudaAVersaoDeTodasAsViagensEmQueAparece() {
+        Viagem encerrada = em.persist(viagem(LocalDateTime.now().minusMonths(2), null));
+        Viagem emAndamento = em.persist(viagem(LocalDateTime.now().minusHours(2), null));
+        Viagem futura = em.persist(viagem(LocalDateTime.now().plusDays(5), null));
+        Pessoa pessoa = em.persist(pessoa("55500000004"));
+        for (Viagem viagem : List.of(encerrada, emAndamento, futura)) {
+            PassageiroViagem pv = passageiro(viagem, null);
+            pv.setPessoa(pessoa);
+            em.persist(pv);
+        }
+        em.flush();
+
+        Map<Long, Long> versoes = manifestoService.registrarAlteracaoPorPessoa(pessoa.getId());
+
+        // A encerrada também: o manifesto dela mostra o nome e o telefone atuais, e o ETag antigo não pode valer
+        assertEquals(Map.of(encerrada.getId(), 1L, emAndamento.getId(), 1L, futura.getId(), 1L), versoes);
+    }
+
+    private long alteracoesRegistradas(Viagem... viagens) {
+        long total = 0;
+        for (Viagem viagem : viagens) {
+            total += jdbc.queryForObject("SELECT count(*) FROM manifesto_alteracao WHERE viagem_id = ?", Long.class, viagem.getId());
+        }
+        return total;
+    }
+
+    private PassageiroViagem passageiro(Viagem viagem, String cpf) {
+        PassageiroViagem pv = new PassageiroViagem();
+        if (cpf != null) pv.setPessoa(em.persist(pessoa(cpf)));
+        pv.setViagem(viagem);
+        pv.setValor(new BigDecimal("150.00"));
+        return pv;
+    }
+
+    private static Pessoa pessoa(String cpf) {
+        Pessoa p = new Pessoa();
+        p.setNome("Pessoa " + cpf);
+        p.setCpf(cpf);
+        return p;
+    }
+
+    private static Viagem viagem(LocalDateTime partida, Onibus onibus) {
+        Viagem viagem = new Viagem();
+        viagem.setDataHoraPartida(partida);
+        viagem.setDataHoraChegada(partida.plusHours(8));
+        viagem.setListaOnibus(onibus == null ? new ArrayList<>() : new ArrayList<>(List.of(onibus)));
+        return viagem;
+    }
+
+    private static Endereco endereco() {
+        Endereco e = new Endereco();
+        e.setLogradouro("Rua das Flores");
+        e.setNumero("10");
+        e.setBairro("Centro");
+        e.setCidade("Aracaju");
+        e.setEstado("SE");
+        return e;
+    }
+}
@@ -0,0 +1,140 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.PostgresDeTeste;
+import com.partricioturismo.crud.dtos.FamilyGroupRequestDto;
+import com.partricioturismo.crud.dtos.FamilyMemberDto;
+import com.partricioturismo.crud.dtos.PassengerResponseDto;
+import com.partricioturismo.crud.model.Comisseiro;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.model.Taxista;
+import com.partricioturismo.crud.model.Viagem;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statements SQL de verdade (Hibernate Statistics) ao salvar um Grupo Família: o número não pode
+ * depender do tamanho do grupo (sem N+1 por membro, em lazy load ou cascade).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PassageiroViagemService.class, EncomendaService.class, OrdemPassageiroService.class,
+        SeatInventory.class, ManifestoService.class, PessoaSearchIndex.class})
+class PassageiroViagemServiceSqlTest {
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registro) {
+        PostgresDeTeste.registrar(registro);
+    }
+
+    @Autowired private PassageiroViagemService service;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory emf;
+
+    private Viagem viagem;
+    private Taxista taxista;
+    private Comisseiro comisseiro;
+    private int proximoAssento = 1;
+
+    @BeforeEach
+    void setUp() {
+        Onibus onibus = em.persist(new Onibus(null, "Marcopolo", "ABC1D23", 46, null));
+        viagem = new Viagem();
+        viagem.setDataHoraPartida(LocalDateTime.now().plusDays(1));
+        viagem.setDataHoraChegada(LocalDateTime.now().plusDays(1).plusHours(8));
+        viagem.setListaOnibus(new ArrayList<>(List.of(onibus)));
+        em.persist(viagem);
+        taxista = em.persist(new Taxista(em.persist(pessoa("Taxista", "99999999901"))));
+        comisseiro = em.persist(new Comisseiro(em.persist(pessoa("Comisseiro", "99999999902"))));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void salvarGrupoFamiliaExecutaOsMesmosStatementsParaUmOuVariosMembros() {
+        // Aquecimento: inicializa os blocos de ids das sequências (1 nextval por 50 ids)
+        statementsAoSalvarGrupo(1);
+
+        long comUm = statementsAoSalvarGrupo(1);
+        long comVinte = statementsAoSalvarGrupo(20);
+
+        assertEquals(comUm, comVinte);
+    }
+
+    @Test
+    void atualizarGrupoExecutaOsMesmosStatementsParaUmOuVariosMembros() {
+        statementsAoSalvarGrupo(1);
+
+        long comUm = statementsAoAtualizarGrupo(service.salvarGrupoFamilia(grupo(1)));
+        long comVinte = statementsAoAtualizarGrupo(service.salvarGrupoFamilia(grupo(20)));
+
+        assertEquals(comUm, comVinte);
+    }
+
+    // Mesmo grupo de novo, com outro nome, telefone e valor: UPDATEs em lote
+    private long statementsAoAtualizarGrupo(List<PassengerResponseDto> salvos) {
+        em.flush();
+        em.clear();
+        List<FamilyMemberDto> membros = new ArrayList<>();
+        for (PassengerResponseDto pv : salvos) {
+            membros.add(new FamilyMemberDto(pv.id(), pv.pessoa().id(), pv.pessoa().nome() + " (alterado)",
+                    "7988880" + pv.pessoa().cpf().substring(7), pv.pessoa().cpf(), null));
+        }
+        Statistics estatisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        service.salvarGrupoFamilia(new FamilyGroupRequestDto(viagem.getId(), taxista.getId(), taxista.getId(),
+                comisseiro.getId(), null, null, new BigDecimal("180.00"), membros));
+        em.flush();
+        em.clear();
+
+        assertEquals(2L * salvos.size(), estatisticas.getEntityUpdateCount());
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private long statementsAoSalvarGrupo(int membros) {
+        Statistics estatisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        service.salvarGrupoFamilia(grupo(membros));
+        em.flush();
+        em.clear();
+
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private FamilyGroupRequestDto grupo(int membros) {
+        List<FamilyMemberDto> lista = new ArrayList<>();
+        for (int i = 0; i < membros; i++) {
+            int assento = proximoAssento++;
+            lista.add(new FamilyMemberDto(null, null, "Membro " + assento, "7999990" + String.format("%04d", assento),
+                    String.format("%011d", assento), String.valueOf(assento)));
+        }
+        return new FamilyGroupRequestDto(viagem.getId(), taxista.getId(), taxista.getId(), comisseiro.getId(),
+                null, null, new BigDecimal("150.00"), lista);
+    }
+
+    private static Pessoa pessoa(String nome, String cpf) {
+        Pessoa p = new Pessoa();
+        p.setNome(nome);
+        p.setCpf(cpf);
+        return p;
+    }
+}
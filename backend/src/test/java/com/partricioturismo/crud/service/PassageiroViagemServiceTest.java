@@ -0,0 +1,100 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.FamilyGroupRequestDto;
+import com.partricioturismo.crud.dtos.FamilyMemberDto;
+import com.partricioturismo.crud.model.Onibus;
+import com.partricioturismo.crud.model.Viagem;
+import com.partricioturismo.crud.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PassageiroViagemServiceTest {
+
+    @Mock private PassageiroViagemRepository repository;
+    @Mock private PessoaRepository pessoaRepository;
+    @Mock private ViagemRepository viagemRepository;
+    @Mock private EnderecoRepository enderecoRepository;
+    @Mock private TaxistaRepository taxistaRepository;
+    @Mock private ComisseiroRepository comisseiroRepository;
+    @Mock private AssentoRepository assentoRepository;
+    @Mock private EncomendaService encomendaService;
+    @Mock private OrdemPassageiroService ordemService;
+    @Mock private SeatInventory seatInventory;
+    @Mock private ManifestoService manifestoService;
+    @Mock private PessoaSearchIndex pessoaSearchIndex;
+
+    @InjectMocks private PassageiroViagemService service;
+
+    @BeforeEach
+    void setUp() {
+        Viagem viagem = new Viagem();
+        viagem.setId(1L);
+        viagem.setOnibus(new Onibus(10L, "Marcopolo", "ABC1234", 46, null));
+
+        when(viagemRepository.findByIdComOnibus(1L)).thenReturn(Optional.of(viagem));
+        when(pessoaRepository.findAllByIdInOrCpfIn(any(), any())).thenReturn(List.of());
+        when(repository.findParaGrupo(anyLong(), any(), any())).thenReturn(List.of());
+        when(assentoRepository.findComOcupanteByViagemIdAndOnibusIdAndNumeroIn(anyLong(), anyLong(), any())).thenReturn(List.of());
+        when(ordemService.reservarOrdens(anyLong(), anyInt())).thenReturn(1024);
+        when(pessoaRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+        when(repository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+        when(assentoRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    void salvarGrupoFamiliaNaoCresceConsultasComTamanhoDoGrupo() {
+        int chamadasCom2 = chamadasAoSalvarGrupo(2);
+        int chamadasCom8 = chamadasAoSalvarGrupo(8);
+
+        assertEquals(chamadasCom2, chamadasCom8);
+    }
+
+    @Test
+    void salvarGrupoFamiliaReservaUmBlocoDeOrdens() {
+        service.salvarGrupoFamilia(grupo(8));
+
+        verify(ordemService, times(1)).reservarOrdens(1L, 8);
+    }
+
+    private int chamadasAoSalvarGrupo(int membros) {
+        clearInvocations(repository, pessoaRepository, viagemRepository, enderecoRepository, taxistaRepository,
+                comisseiroRepository, assentoRepository, ordemService, manifestoService);
+
+        service.salvarGrupoFamilia(grupo(membros));
+
+        return mockingDetails(repository).getInvocations().size()
+                + mockingDetails(pessoaRepository).getInvocations().size()
+                + mockingDetails(viagemRepository).getInvocations().size()
+                + mockingDetails(enderecoRepository).getInvocations().size()
+                + mockingDetails(taxistaRepository).getInvocations().size()
+                + mockingDetails(comisseiroRepository).getInvocations().size()
+                + mockingDetails(assentoRepository).getInvocations().size()
+                + mockingDetails(ordemService).getInvocations().size()
+                + mockingDetails(manifestoService).getInvocations().size();
+    }
+
+    private FamilyGroupRequestDto grupo(int membros) {
+        List<FamilyMemberDto> lista = new ArrayList<>();
+        for (int i = 1; i <= membros; i++) {
+            lista.add(new FamilyMemberDto(null, null, "Membro " + i, "7999999000" + i, "0000000000" + i, String.valueOf(i)));
+        }
+        return new FamilyGroupRequestDto(1L, 5L, 6L, 7L, null, null, new BigDecimal("150.00"), lista);
+    }
+}
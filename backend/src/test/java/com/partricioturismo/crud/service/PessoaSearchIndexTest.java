@@ -0,0 +1,117 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.dtos.PessoaDto;
+import com.partricioturismo.crud.model.Pessoa;
+import com.partricioturismo.crud.repositories.PessoaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PessoaSearchIndexTest {
+
+    @Mock private PessoaRepository repository;
+
+    @InjectMocks private PessoaSearchIndex indice;
+
+    // [id, nome, cpf, idade, telefones, ultima_viagem], como em findLinhasIndiceBusca
+    private final List<Object[]> linhas = new ArrayList<>(List.of(
+            new Object[]{1L, "João D'Ávila", "123.456.789-00", 40, "(79) 99876-5432", 100L},
+            new Object[]{2L, "Joana Souza", "98765432100", null, null, 300L},
+            new Object[]{3L, "Maria Joaquina", "11122233344", 25, "79 3211-0000", null}));
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findLinhasIndiceBusca()).thenReturn(linhas);
+        indice.carregar();
+    }
+
+    @Test
+    void ignoraAcentosNaConsultaENoNome() {
+        assertEquals(List.of(1L), ids(indice.buscar("joão d'avila")));
+        assertEquals(List.of(1L), ids(indice.buscar("ÁVILA")));
+    }
+
+    @Test
+    void prefixoVemAntesDoTrechoEDepoisQuemViajouPorUltimo() {
+        // "joa" é prefixo de joao, joana e joaquina (mais recente primeiro; quem nunca viajou por último)
+        assertEquals(List.of(2L, 1L, 3L), ids(indice.buscar("joa")));
+        // Palavra exata antes de prefixo
+        assertEquals(List.of(1L), ids(indice.buscar("joao")));
+        // "aquin" só aparece no meio de joaquina
+        assertEquals(List.of(3L), ids(indice.buscar("aquin")));
+    }
+
+    @Test
+    void achaCpfETelefoneParciaisPelosTrigramas() {
+        assertEquals(List.of(1L), ids(indice.buscar("456.789")));
+        assertEquals(List.of(1L), ids(indice.buscar("99876")));
+        assertEquals(List.of(3L), ids(indice.buscar("3211")));
+        // Menos de três dígitos no meio não usam trigramas
+        assertEquals(List.of(), ids(indice.buscar("65")));
+    }
+
+    @Test
+    void todosOsTermosPrecisamCasar() {
+        assertEquals(List.of(3L), ids(indice.buscar("jo maria")));
+        assertEquals(List.of(), ids(indice.buscar("joana maria")));
+    }
+
+    @Test
+    void atualizarTrocaOsTermosERemoverTiraDaBusca() {
+        indice.atualizar(new Pessoa(2L, "Joana Santos", "98765432100", List.of("79 98888-7777"), null));
+
+        assertEquals(List.of(), ids(indice.buscar("souza")));
+        assertEquals(List.of(2L), ids(indice.buscar("santos")));
+        assertEquals(List.of(2L), ids(indice.buscar("8888")));
+        // A recência da entrada anterior é mantida
+        assertEquals(List.of(2L, 1L, 3L), ids(indice.buscar("joa")));
+
+        indice.remover(2L);
+
+        assertEquals(List.of(), ids(indice.buscar("santos")));
+        assertEquals(List.of(1L, 3L), ids(indice.buscar("joa")));
+    }
+
+    @Test
+    void escritasDuranteACargaSobrevivemATroca() {
+        // A leitura do banco devolve o estado anterior às escritas que chegaram enquanto ela rodava
+        when(repository.findLinhasIndiceBusca()).thenAnswer(inv -> {
+            indice.atualizar(new Pessoa(4L, "Zuleica Prado", "55566677788", List.of(), null));
+            indice.remover(1L);
+            return linhas;
+        });
+
+        indice.carregar();
+
+        assertTrue(indice.isPronto());
+        assertEquals(List.of(4L), ids(indice.buscar("zuleica")));
+        assertEquals(List.of(), ids(indice.buscar("avila")));
+        assertEquals(List.of(2L, 3L), ids(indice.buscar("joa")));
+    }
+
+    @Test
+    void falhaNaCargaMantemOIndiceAnterior() {
+        when(repository.findLinhasIndiceBusca()).thenThrow(new IllegalStateException("banco fora"));
+
+        assertThrows(IllegalStateException.class, () -> indice.carregar());
+
+        assertEquals(List.of(1L), ids(indice.buscar("avila")));
+        // Escritas voltam a ir só para o índice publicado
+        indice.remover(1L);
+        assertEquals(List.of(), ids(indice.buscar("avila")));
+    }
+
+    private static List<Long> ids(List<PessoaDto> pessoas) {
+        return pessoas.stream().map(PessoaDto::id).toList();
+    }
+}
@@ -0,0 +1,234 @@
+package com.partricioturismo.crud.service;
+
+import com.partricioturismo.crud.repositories.AssentoRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatInventoryTest {
+
+    @Mock private AssentoRepository assentoRepository;
+
+    @InjectMocks private SeatInventory inventario;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(assentoRepository.findNumerosOcupados(1L, 10L)).thenReturn(List.of("03"));
+    }
+
+    @Test
+    void ocupacaoSoApareceNoMapaDepoisDoCommit() {
+        emTransacao(true, () -> {
+            inventario.travar(1L);
+            inventario.ocupar(1L, 10L, "7");
+            assertFalse(inventario.isOcupado(1L, 10L, "7"));
+        });
+
+        assertTrue(inventario.isOcupado(1L, 10L, "07"));
+        assertEquals(List.of(3, 7), inventario.ocupados(1L, 10L));
+    }
+
+    @Test
+    void rollbackDescartaOMapaDaViagem() {
+        inventario.ocupados(1L, 10L);
+
+        emTransacao(false, () -> {
+            inventario.travar(1L);
+            inventario.ocupar(1L, 10L, "7");
+        });
+
+        assertFalse(inventario.isOcupado(1L, 10L, "7"));
+        verify(assentoRepository, times(2)).findNumerosOcupados(1L, 10L);
+    }
+
+    @Test
+    void liberarDesocupaDepoisDoCommit() {
+        assertEquals(List.of(3), inventario.ocupados(1L, 10L));
+
+        emTransacao(true, () -> {
+            inventario.travar(1L);
+            inventario.liberar(1L, 10L, "3");
+        });
+
+        assertEquals(List.of(), inventario.ocupados(1L, 10L));
+    }
+
+    @Test
+    void travarExigeTransacao() {
+        assertThrows(IllegalStateException.class, () -> inventario.travar(1L));
+    }
+
+    @Test
+    void pedidosSimultaneosPeloMesmoAssentoTemUmVencedor() throws Exception {
+        int atendentes = 16;
+        AtomicInteger reservas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(atendentes);
+        try {
+            List<Future<?>> pedidos = new ArrayList<>();
+            for (int i = 0; i < atendentes; i++) {
+                pedidos.add(threads.submit(() -> {
+                    largada.await();
+                    emTransacao(true, () -> {
+                        inventario.travar(1L);
+                        // Verifica e ocupa sob a trava, como vincularAssentoPorNumero
+                        if (!inventario.isOcupado(1L, 10L, "7")) {
+                            inventario.ocupar(1L, 10L, "7");
+                            reservas.incrementAndGet();
+                        }
+                    });
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> pedido : pedidos) pedido.get(10, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertEquals(1, reservas.get());
+        assertTrue(inventario.isOcupado(1L, 10L, "7"));
+    }
+
+    @Test
+    void segundaEscritaNaViagemEsperaAPrimeiraTerminar() throws Exception {
+        CountDownLatch travou = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> primeira = threads.submit(() -> {
+                emTransacao(true, () -> {
+                    inventario.travar(1L);
+                    travou.countDown();
+                    try {
+                        terminar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            });
+            assertTrue(travou.await(5, TimeUnit.SECONDS));
+
+            Future<?> segunda = threads.submit(() -> {
+                emTransacao(true, () -> inventario.travar(1L));
+                return null;
+            });
+            Thread.sleep(200);
+            assertFalse(segunda.isDone());
+
+            terminar.countDown();
+            primeira.get(5, TimeUnit.SECONDS);
+            segunda.get(5, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void leituraNaoEsperaQuemEstaEscrevendo() throws Exception {
+        CountDownLatch travou = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(1);
+        try {
+            Future<?> escrita = threads.submit(() -> {
+                emTransacao(true, () -> {
+                    inventario.travar(1L);
+                    travou.countDown();
+                    try {
+                        terminar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            });
+            assertTrue(travou.await(5, TimeUnit.SECONDS));
+
+            // Mapa frio: carrega do banco sem passar pela trava ocupada
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertEquals(List.of(3), inventario.ocupados(1L, 10L)));
+
+            terminar.countDown();
+            escrita.get(5, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void commitDuranteACargaNaoFicaForaDoMapa() {
+        // A consulta não vê o assento 7, confirmado enquanto ela rodava
+        when(assentoRepository.findNumerosOcupados(1L, 10L))
+                .thenAnswer(inv -> {
+                    emTransacao(true, () -> {
+                        inventario.travar(1L);
+                        inventario.ocupar(1L, 10L, "7");
+                    });
+                    return List.of("03");
+                })
+                .thenReturn(List.of("03", "07"));
+
+        assertEquals(List.of(3), inventario.ocupados(1L, 10L));
+
+        // O mapa desatualizado não foi guardado: a próxima leitura vai ao banco
+        assertEquals(List.of(3, 7), inventario.ocupados(1L, 10L));
+        assertEquals(List.of(3, 7), inventario.ocupados(1L, 10L));
+        verify(assentoRepository, times(2)).findNumerosOcupados(1L, 10L);
+    }
+
+    @Test
+    void violacaoDaRestricaoDeAssentoViraConflito() {
+        DataIntegrityViolationException violacao = new DataIntegrityViolationException("duplicado",
+                new ConstraintViolationException("duplicado", new SQLException("23505"), "uq_assento_numero"));
+
+        assertThrows(SeatInventory.ConflitoAssentoException.class, () -> SeatInventory.semConflito(() -> {
+            throw violacao;
+        }));
+    }
+
+    @Test
+    void outrasViolacoesNaoSaoConflitoDeAssento() {
+        DataIntegrityViolationException violacao = new DataIntegrityViolationException("fk",
+                new ConstraintViolationException("fk", new SQLException("23503"), "fk_assento_onibus"));
+
+        assertSame(violacao, assertThrows(DataIntegrityViolationException.class, () -> SeatInventory.semConflito(() -> {
+            throw violacao;
+        })));
+    }
+
+    // Simula commit/rollback de uma transação Spring na thread atual
+    private static void emTransacao(boolean confirmar, Runnable corpo) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            corpo.run();
+            List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+            if (confirmar) sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+            int status = confirmar ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            sincronizacoes.forEach(s -> s.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
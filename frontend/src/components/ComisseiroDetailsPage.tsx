@@ -4,7 +4,7 @@ import { format } from 'date-fns';
 import { ptBR } from 'date-fns/locale';
 import { Calendar as CalendarIcon, ArrowLeft, UserCheck, Package, Users } from 'lucide-react';
 import { DateRange } from 'react-day-picker';
-import api from '../services/api';
+import api, { getTodosPassageiros } from '../services/api';
 import { Button } from './ui/button';
 import { Calendar } from './ui/calendar';
 import { Popover, PopoverContent, PopoverTrigger } from './ui/popover';
@@ -104,25 +104,19 @@ export default function ComisseiroDetailsPage() {
         } catch (backendError) {
             console.warn("Endpoint específico falhou, tentando fallback geral...", backendError);
             
-            // FALLBACK: Busca TUDO e filtra no front
-            const [passRes, encRes] = await Promise.all([
-                api.get(`/api/passageiroviagem?size=2000`), // Remove o sort se o backend não suportar
+            // FALLBACK: passageiros já filtrados no backend (todas as páginas); encomendas filtradas no front
+            const [allPass, encRes] = await Promise.all([
+                getTodosPassageiros({ comisseiroId, inicio: fromStr, fim: toStr }),
                 api.get(`/api/encomenda?size=2000`)
             ]);
 
-            const allPass = passRes.data.content || passRes.data || [];
             const allEnc = encRes.data.content || encRes.data || [];
             
             const dataInicio = date.from;
             const dataFim = date.to || new Date();
             dataFim.setHours(23, 59, 59);
 
-            setPassengers(allPass.filter((p: any) => {
-                if (p.comisseiro?.id !== comisseiroId) return false;
-                if (!p.viagem?.dataHoraPartida) return false;
-                const d = new Date(p.viagem.dataHoraPartida);
-                return d >= dataInicio && d <= dataFim;
-            }));
+            setPassengers(allPass);
 
             setEncomendas(allEnc.filter((e: any) => {
                 if (e.comisseiro?.id !== comisseiroId) return false;
@@ -4,7 +4,7 @@ import { format } from 'date-fns';
 import { ptBR } from 'date-fns/locale';
 import { Calendar as CalendarIcon, ArrowLeft, Car, Users } from 'lucide-react';
 import { DateRange } from 'react-day-picker';
-import api from '../services/api';
+import api, { getTodosPassageiros } from '../services/api';
 import { Button } from './ui/button';
 import { Calendar } from './ui/calendar';
 import { Popover, PopoverContent, PopoverTrigger } from './ui/popover';
@@ -79,20 +79,10 @@ export default function TaxistaDetailsPage() {
             const data = Array.isArray(passRes.data) ? passRes.data : [];
             setPassengers(data);
         } catch (backendError) {
-            console.warn("Endpoint específico falhou, tentando filtro manual no frontend...", backendError);
+            console.warn("Endpoint específico falhou, tentando a listagem geral...", backendError);
             
-            // FALLBACK: Busca tudo e filtra aqui
-            const fallbackRes = await api.get(`/api/passageiroviagem?size=1000&sort=viagem.dataHoraPartida,desc`);
-            const allData = fallbackRes.data.content || fallbackRes.data || [];
-            
-            const taxistaId = Number(id);
-            const filtered = allData.filter((p: any) => {
-                const isRel = (p.taxistaColeta?.id === taxistaId) || (p.taxistaEntrega?.id === taxistaId);
-                if (!isRel || !p.viagem?.dataHoraPartida) return false;
-                const d = new Date(p.viagem.dataHoraPartida);
-                return d >= (date.from as Date) && d <= (date.to as Date || new Date());
-            });
-            setPassengers(filtered);
+            // FALLBACK: listagem geral já filtrada no backend (coleta ou entrega), seguindo todas as páginas
+            setPassengers(await getTodosPassageiros({ taxistaId: Number(id), inicio: fromStr, fim: toStr }));
         }
 
       } catch (error) {
@@ -40,6 +40,27 @@ export const getOnibusLayout = async (id: number): Promise<SeatLayout[][]> => {
   return response.data;
 };
 
+// === PASSAGEIROS (paginação por cursor) ===
+// GET /api/passageiroviagem devolve { itens, proximoCursor }; segue o cursor até a última página
+export interface CursorPage<T> {
+  itens: T[];
+  proximoCursor: string | null;
+}
+
+export const getTodosPassageiros = async (filtros: Record<string, string | number>): Promise<any[]> => {
+  const todos: any[] = [];
+  let cursor: string | null = null;
+  do {
+    const params = new URLSearchParams({ limite: '200' });
+    Object.entries(filtros).forEach(([chave, valor]) => params.set(chave, String(valor)));
+    if (cursor) params.set('cursor', cursor);
+    const response = await api.get<CursorPage<any>>(`/api/passageiroviagem?${params.toString()}`);
+    todos.push(...response.data.itens);
+    cursor = response.data.proximoCursor;
+  } while (cursor);
+  return todos;
+};
+
 // === FUNÇÕES DE RELATÓRIO ===
 const REPORT_API_URL = '/api/v1/reports';
 const buildDateParams = (inicio: string, fim: string) => new URLSearchParams({ inicio, fim }).toString();